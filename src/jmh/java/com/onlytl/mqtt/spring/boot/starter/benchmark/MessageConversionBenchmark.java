@@ -0,0 +1,84 @@
+package com.onlytl.mqtt.spring.boot.starter.benchmark;
+
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.integration.mqtt.support.DefaultPahoMessageConverter;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * MessageConversionBenchmark
+ * </p >
+ * {@link DefaultPahoMessageConverter} 入站（MqttMessage -> Message）与出站（Message -> MqttMessage）转换，
+ * 入站分别测量 String 与 byte[] 载荷。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageConversionBenchmark {
+
+    @Param({"64", "1024", "16384"})
+    public int payloadSize;
+
+    private final String topic = "tenant-1/site-2/building-0/floor-3/room-7/device-12/sensor-1/temperature";
+
+    private DefaultPahoMessageConverter stringConverter;
+    private DefaultPahoMessageConverter bytesConverter;
+    private MqttMessage mqttMessage;
+    private Message<String> outbound;
+
+    @Setup
+    public void setup() {
+        stringConverter = new DefaultPahoMessageConverter();
+        bytesConverter = new DefaultPahoMessageConverter();
+        bytesConverter.setPayloadAsBytes(true);
+
+        char[] chars = new char[payloadSize];
+        Arrays.fill(chars, 'x');
+        String payload = new String(chars);
+        mqttMessage = new MqttMessage(payload.getBytes(StandardCharsets.UTF_8));
+        mqttMessage.setQos(1);
+        outbound = MessageBuilder.withPayload(payload)
+                .setHeader(MqttHeaders.TOPIC, topic)
+                .setHeader(MqttHeaders.QOS, 1)
+                .build();
+    }
+
+    @Benchmark
+    public Message<?> inboundString() {
+        return stringConverter.toMessage(topic, mqttMessage);
+    }
+
+    @Benchmark
+    public Message<?> inboundBytes() {
+        return bytesConverter.toMessage(topic, mqttMessage);
+    }
+
+    @Benchmark
+    public Object outbound() {
+        return stringConverter.fromMessage(outbound, Object.class);
+    }
+}
@@ -0,0 +1,97 @@
+package com.onlytl.mqtt.spring.boot.starter.benchmark;
+
+
+import com.onlytl.mqtt.spring.boot.starter.config.MqttProperties;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttBatchResult;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttConnectionSelector;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttDeliveryTracker;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttOutboundConnection;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttOutboundMessage;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttOutboundPool;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.integration.mqtt.outbound.MqttPahoMessageHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * MqttTemplateSendBenchmark
+ * </p >
+ * 通过 {@link StandInMqttClientFactory} 测量 MqttTemplate 同步发送、异步发送和批量发送的开销，
+ * 不包含网络与 Broker 时间。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MqttTemplateSendBenchmark {
+
+    private static final String CLIENT = "default";
+    private static final int BATCH_SIZE = 1000;
+
+    private final String topic = "tenant-1/site-2/building-0/floor-3/room-7/device-12/sensor-1/command";
+    private final String payload = "{\"action\":\"reboot\"}";
+
+    private MqttTemplate mqttTemplate;
+    private List<MqttOutboundMessage> batch;
+
+    @Setup
+    public void setup() {
+        MqttProperties.ClientConfig config = new MqttProperties.ClientConfig();
+        config.setDefaultQos(1);
+        config.setMaxInflight(100);
+
+        MqttDeliveryTracker tracker = new MqttDeliveryTracker(null);
+        MqttPahoMessageHandler handler = new MqttPahoMessageHandler("benchmark-outbound", new StandInMqttClientFactory());
+        handler.setAsync(true);
+        handler.setAsyncEvents(true);
+        handler.setApplicationEventPublisher(tracker);
+        handler.afterPropertiesSet();
+
+        MqttOutboundPool pool = new MqttOutboundPool(
+                Collections.singletonList(new MqttOutboundConnection(handler, tracker)),
+                MqttConnectionSelector.roundRobin());
+        mqttTemplate = MqttTemplate.pooled(
+                Collections.singletonMap(CLIENT, pool), Collections.singletonMap(CLIENT, config));
+
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(MqttOutboundMessage.of(topic, payload));
+        }
+    }
+
+    @Benchmark
+    public void send() {
+        mqttTemplate.send(payload, topic, CLIENT);
+    }
+
+    @Benchmark
+    public Void sendAsync() {
+        return mqttTemplate.sendAsync(payload, topic, CLIENT).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public MqttBatchResult sendBatch() {
+        return mqttTemplate.sendBatch(batch, CLIENT).join();
+    }
+}
@@ -0,0 +1,171 @@
+package com.onlytl.mqtt.spring.boot.starter.benchmark;
+
+
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttCallback;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.internal.wire.MqttWireMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.springframework.integration.mqtt.core.DefaultMqttPahoClientFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * StandInMqttClientFactory
+ * </p >
+ * 基准测试使用的客户端工厂：创建不建立网络连接的 Paho 客户端，发布立即完成并在同一线程回调投递完成，
+ * 用于单独测量启动器自身的发送路径开销。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class StandInMqttClientFactory extends DefaultMqttPahoClientFactory {
+
+    public StandInMqttClientFactory() {
+        MqttConnectOptions options = new MqttConnectOptions();
+        options.setServerURIs(new String[]{"tcp://localhost:1883"});
+        setConnectionOptions(options);
+    }
+
+    @Override
+    public IMqttAsyncClient getAsyncClientInstance(String uri, String clientId) throws MqttException {
+        return new StandInClient(uri == null ? "tcp://localhost:1883" : uri, clientId);
+    }
+
+    static class StandInClient extends MqttAsyncClient {
+
+        private final AtomicInteger messageIds = new AtomicInteger();
+
+        private volatile boolean connected;
+        private volatile MqttCallback callback;
+
+        StandInClient(String uri, String clientId) throws MqttException {
+            super(uri, clientId, new MemoryPersistence());
+        }
+
+        @Override
+        public IMqttToken connect(MqttConnectOptions options) {
+            connected = true;
+            return new CompletedToken(this, 0);
+        }
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        public void setCallback(MqttCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public IMqttDeliveryToken publish(String topic, MqttMessage message) {
+            // Paho 的消息ID范围为 1..65535，QoS 0 没有消息ID
+            int messageId = message.getQos() == 0 ? 0 : (messageIds.getAndIncrement() & 0xFFFF) % 65535 + 1;
+            CompletedToken token = new CompletedToken(this, messageId);
+            MqttCallback current = callback;
+            if (current != null && messageId != 0) {
+                current.deliveryComplete(token);
+            }
+            return token;
+        }
+
+        @Override
+        public void close() {
+            connected = false;
+        }
+    }
+
+    static class CompletedToken implements IMqttDeliveryToken {
+
+        private final IMqttAsyncClient client;
+        private final int messageId;
+        private Object userContext;
+
+        CompletedToken(IMqttAsyncClient client, int messageId) {
+            this.client = client;
+            this.messageId = messageId;
+        }
+
+        @Override
+        public MqttMessage getMessage() {
+            return null;
+        }
+
+        @Override
+        public void waitForCompletion() {
+        }
+
+        @Override
+        public void waitForCompletion(long timeout) {
+        }
+
+        @Override
+        public boolean isComplete() {
+            return true;
+        }
+
+        @Override
+        public MqttException getException() {
+            return null;
+        }
+
+        @Override
+        public void setActionCallback(IMqttActionListener listener) {
+            listener.onSuccess(this);
+        }
+
+        @Override
+        public IMqttActionListener getActionCallback() {
+            return null;
+        }
+
+        @Override
+        public IMqttAsyncClient getClient() {
+            return client;
+        }
+
+        @Override
+        public String[] getTopics() {
+            return new String[0];
+        }
+
+        @Override
+        public void setUserContext(Object userContext) {
+            this.userContext = userContext;
+        }
+
+        @Override
+        public Object getUserContext() {
+            return userContext;
+        }
+
+        @Override
+        public int getMessageId() {
+            return messageId;
+        }
+
+        @Override
+        public int[] getGrantedQos() {
+            return new int[0];
+        }
+
+        @Override
+        public boolean getSessionPresent() {
+            return false;
+        }
+
+        @Override
+        public MqttWireMessage getResponse() {
+            return null;
+        }
+    }
+}
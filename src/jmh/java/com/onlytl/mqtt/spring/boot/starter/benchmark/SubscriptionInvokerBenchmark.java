@@ -0,0 +1,94 @@
+package com.onlytl.mqtt.spring.boot.starter.benchmark;
+
+
+import com.onlytl.mqtt.spring.boot.starter.handler.MqttSubscriptionInvoker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * SubscriptionInvokerBenchmark
+ * </p >
+ * 对比订阅方法的反射调用（旧的派发路径）与预编译的 {@link MqttSubscriptionInvoker}。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubscriptionInvokerBenchmark {
+
+    @Param({"1", "2", "3"})
+    public int parameterCount;
+
+    private final String payload = "{\"temperature\":21.5}";
+    private final String topic = "sensors/device-1/temp";
+    private final String clientName = "default";
+
+    private Listener listener;
+    private Method method;
+    private MqttSubscriptionInvoker invoker;
+
+    @Setup
+    public void setup() {
+        listener = new Listener();
+        method = ReflectionUtils.findMethod(Listener.class, "onMessage" + parameterCount, (Class<?>[]) null);
+        invoker = MqttSubscriptionInvoker.compile(listener, method);
+    }
+
+    @Benchmark
+    public void reflective(Blackhole blackhole) throws Exception {
+        // 与原派发逻辑一致：每条消息都检查可访问性并按参数个数选择调用方式
+        ReflectionUtils.makeAccessible(method);
+        if (method.getParameterCount() == 1) {
+            method.invoke(listener, payload);
+        } else if (method.getParameterCount() == 2) {
+            method.invoke(listener, payload, topic);
+        } else if (method.getParameterCount() == 3) {
+            method.invoke(listener, payload, topic, clientName);
+        } else {
+            method.invoke(listener);
+        }
+        blackhole.consume(listener.count);
+    }
+
+    @Benchmark
+    public void compiled(Blackhole blackhole) throws Throwable {
+        invoker.invoke(payload, topic, clientName);
+        blackhole.consume(listener.count);
+    }
+
+    public static class Listener {
+        private long count;
+
+        public void onMessage1(String payload) {
+            count += payload.length();
+        }
+
+        public void onMessage2(String payload, String topic) {
+            count += payload.length() + topic.length();
+        }
+
+        public void onMessage3(String payload, String topic, String clientName) {
+            count += payload.length() + topic.length() + clientName.length();
+        }
+    }
+}
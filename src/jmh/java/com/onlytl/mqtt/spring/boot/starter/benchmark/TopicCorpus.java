@@ -0,0 +1,83 @@
+package com.onlytl.mqtt.spring.boot.starter.benchmark;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <p>
+ * TopicCorpus
+ * </p >
+ * 基准测试使用的主题语料：8级主题（租户/站点/楼栋/楼层/房间/设备/传感器/指标），
+ * 订阅过滤器中约六成为精确主题，其余在随机层级使用 + 或以 # 结尾。固定随机种子，保证各版本结果可比。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public final class TopicCorpus {
+
+    private static final String[] METRICS = {"temperature", "humidity", "co2", "occupancy", "power", "status"};
+
+    private static final int LEVELS = 8;
+
+    private final Random random;
+
+    public TopicCorpus(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * 生成订阅过滤器
+     *
+     * @param count 过滤器数量
+     * @return 过滤器列表
+     */
+    public List<String> filters(int count) {
+        List<String> filters = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String[] levels = levels();
+            int kind = random.nextInt(100);
+            if (kind < 60) {
+                filters.add(String.join("/", levels));
+            } else if (kind < 85) {
+                levels[1 + random.nextInt(LEVELS - 1)] = "+";
+                filters.add(String.join("/", levels));
+            } else {
+                int depth = 2 + random.nextInt(LEVELS - 2);
+                String[] prefix = new String[depth + 1];
+                System.arraycopy(levels, 0, prefix, 0, depth);
+                prefix[depth] = "#";
+                filters.add(String.join("/", prefix));
+            }
+        }
+        return filters;
+    }
+
+    /**
+     * 生成8级主题
+     *
+     * @param count 主题数量
+     * @return 主题列表
+     */
+    public List<String> topics(int count) {
+        List<String> topics = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            topics.add(String.join("/", levels()));
+        }
+        return topics;
+    }
+
+    private String[] levels() {
+        return new String[]{
+                "tenant-" + random.nextInt(4),
+                "site-" + random.nextInt(8),
+                "building-" + random.nextInt(4),
+                "floor-" + random.nextInt(10),
+                "room-" + random.nextInt(20),
+                "device-" + random.nextInt(50),
+                "sensor-" + random.nextInt(3),
+                METRICS[random.nextInt(METRICS.length)]
+        };
+    }
+}
@@ -0,0 +1,122 @@
+package com.onlytl.mqtt.spring.boot.starter.benchmark;
+
+
+import com.onlytl.mqtt.spring.boot.starter.router.MqttTopicRouter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * TopicRoutingBenchmark
+ * </p >
+ * 对比逐条订阅 split 匹配（旧的 topicMatches）、不分配内存的逐条匹配、前缀树路由以及带缓存的前缀树路由。
+ * 每次调用路由一条8级主题。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopicRoutingBenchmark {
+
+    @Param({"1000", "5000"})
+    public int filterCount;
+
+    private static final int TOPIC_COUNT = 4096;
+
+    private List<String> filters;
+    private String[] topics;
+    private MqttTopicRouter<String> trieRouter;
+    private MqttTopicRouter<String> cachedRouter;
+    private int next;
+
+    @Setup
+    public void setup() {
+        TopicCorpus corpus = new TopicCorpus(42);
+        filters = corpus.filters(filterCount);
+        topics = corpus.topics(TOPIC_COUNT).toArray(new String[0]);
+        trieRouter = new MqttTopicRouter<>(filters, Function.identity(), 0);
+        cachedRouter = new MqttTopicRouter<>(filters, Function.identity(), TOPIC_COUNT);
+    }
+
+    private String nextTopic() {
+        next = (next + 1) & (TOPIC_COUNT - 1);
+        return topics[next];
+    }
+
+    @Benchmark
+    public void legacySplitScan(Blackhole blackhole) {
+        String topic = nextTopic();
+        for (String filter : filters) {
+            if (legacyTopicMatches(filter, topic)) {
+                blackhole.consume(filter);
+            }
+        }
+    }
+
+    @Benchmark
+    public void linearScan(Blackhole blackhole) {
+        String topic = nextTopic();
+        for (String filter : filters) {
+            if (MqttTopicRouter.matches(filter, topic)) {
+                blackhole.consume(filter);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<String> trie() {
+        return trieRouter.route(nextTopic());
+    }
+
+    @Benchmark
+    public List<String> trieCached() {
+        return cachedRouter.route(nextTopic());
+    }
+
+    // 1.0.0 版本 MqttClientConfiguration 中的匹配实现，作为对比基线
+    private static boolean legacyTopicMatches(String subscription, String actualTopic) {
+        String[] subParts = subscription.split("/");
+        String[] topicParts = actualTopic.split("/");
+
+        if (subParts.length > 0 && subParts[subParts.length - 1].equals("#")) {
+            if (topicParts.length < subParts.length - 1) {
+                return false;
+            }
+            for (int i = 0; i < subParts.length - 1; i++) {
+                if (!subParts[i].equals("+") && !subParts[i].equals(topicParts[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        if (subParts.length != topicParts.length) {
+            return false;
+        }
+        for (int i = 0; i < subParts.length; i++) {
+            if (!subParts[i].equals("+") && !subParts[i].equals(topicParts[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
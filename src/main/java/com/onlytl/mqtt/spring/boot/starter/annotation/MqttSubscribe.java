@@ -19,7 +19,8 @@ import java.lang.annotation.*;
 public @interface MqttSubscribe {
 
     /**
-     * 订阅的主题
+     * 订阅的主题，可以使用路径变量，例如 sensors/{deviceId}/temp，
+     * 变量层级按 + 订阅，变量值通过 {@link TopicVariable} 参数获取
      */
     @AliasFor("topic")
     String value() default "";
@@ -39,4 +40,39 @@ public @interface MqttSubscribe {
      * 客户端名称，用于指定哪个MQTT客户端处理该订阅
      */
     String client() default "default";
+
+    /**
+     * 共享订阅组，设置后以 $share/{group}/{topic} 订阅，由 Broker 在同组的多个节点之间分配消息；
+     * 默认使用客户端配置的 shared-group，未配置时不共享
+     */
+    String group() default "";
+
+    /**
+     * 专用派发线程数，大于0时该订阅方法在独立线程池中执行，
+     * 默认0表示使用客户端的派发线程池（未配置时在MQTT回调线程中执行）
+     */
+    int concurrency() default 0;
+
+    /**
+     * 执行该订阅方法的 {@link java.util.concurrent.Executor} Bean 名称，优先级高于 concurrency
+     */
+    String executor() default "";
+
+    /**
+     * 批量模式的最大批次大小，大于0时启用批量模式：
+     * 方法第一个参数为 List，元素为消息内容或 {@link org.springframework.messaging.Message}，
+     * 第二、三个参数（可选）为订阅主题和客户端名称
+     */
+    int batchSize() default 0;
+
+    /**
+     * 批量模式下从批次第一条消息到达起的最长等待时间（毫秒），超时后即使未达到 batchSize 也会提交
+     */
+    long batchTimeoutMs() default 1000;
+
+    /**
+     * 是否跳过重复消息（例如 QoS 1 重连后的重发），按客户端的 dedup 配置计算消息指纹；
+     * 客户端已启用 dedup.enabled 时所有订阅都会去重
+     */
+    boolean dedup() default false;
 }
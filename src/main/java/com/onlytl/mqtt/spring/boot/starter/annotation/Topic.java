@@ -0,0 +1,19 @@
+package com.onlytl.mqtt.spring.boot.starter.annotation;
+
+
+import java.lang.annotation.*;
+
+/**
+ * <p>
+ * Topic
+ * </p >
+ * 标注订阅方法参数，接收消息的实际主题；批量订阅时为订阅过滤器
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Topic {
+}
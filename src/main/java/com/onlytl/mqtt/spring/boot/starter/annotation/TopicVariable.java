@@ -0,0 +1,25 @@
+package com.onlytl.mqtt.spring.boot.starter.annotation;
+
+
+import java.lang.annotation.*;
+
+/**
+ * <p>
+ * TopicVariable
+ * </p >
+ * 标注订阅方法参数，接收订阅主题中的路径变量，例如 {@code sensors/{deviceId}/temp} 中的 deviceId。
+ * 变量值按需转换为参数类型。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface TopicVariable {
+
+    /**
+     * 变量名，默认使用参数名
+     */
+    String value() default "";
+}
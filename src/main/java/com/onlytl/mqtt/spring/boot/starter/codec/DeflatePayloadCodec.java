@@ -0,0 +1,88 @@
+package com.onlytl.mqtt.spring.boot.starter.codec;
+
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * <p>
+ * DeflatePayloadCodec
+ * </p >
+ * 基于 JDK {@link Deflater} 的编码器，输出不带 zlib 头和校验和的原始 Deflate 数据。
+ * Deflater 和 Inflater 占用本地内存，按线程复用，不为每条消息创建。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class DeflatePayloadCodec implements MqttPayloadCodec {
+
+    public static final String NAME = "deflate";
+
+    private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(() -> new Deflater(
+            Deflater.DEFAULT_COMPRESSION, true));
+
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getId() {
+        return 1;
+    }
+
+    @Override
+    public int maxEncodedLength(int length) {
+        // 不可压缩的数据按存储块输出，每 16KB 增加 5 字节
+        return length + ((length + 16383) / 16384) * 5 + 16;
+    }
+
+    @Override
+    public int encode(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int level) {
+        Deflater deflater = DEFLATERS.get();
+        try {
+            deflater.setLevel(level < 0 ? Deflater.DEFAULT_COMPRESSION : Math.min(level, Deflater.BEST_COMPRESSION));
+            deflater.setInput(src, srcOffset, srcLength);
+            deflater.finish();
+            int written = 0;
+            int capacity = dst.length - dstOffset;
+            while (!deflater.finished()) {
+                int n = deflater.deflate(dst, dstOffset + written, capacity - written);
+                if (n == 0 && written == capacity) {
+                    throw new IllegalStateException("Deflate output exceeds the encoding buffer");
+                }
+                written += n;
+            }
+            return written;
+        } finally {
+            deflater.reset();
+        }
+    }
+
+    @Override
+    public void decode(byte[] src, int srcOffset, int srcLength, byte[] dst) {
+        Inflater inflater = INFLATERS.get();
+        try {
+            inflater.setInput(src, srcOffset, srcLength);
+            int read = 0;
+            while (read < dst.length) {
+                int n = inflater.inflate(dst, read, dst.length - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != dst.length) {
+                throw new IllegalArgumentException("Deflate payload is truncated: expected " + dst.length +
+                        " bytes, got " + read);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Invalid deflate payload", e);
+        } finally {
+            inflater.reset();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.onlytl.mqtt.spring.boot.starter.codec;
+
+
+/**
+ * <p>
+ * MqttCodecBuffers
+ * </p >
+ * 编码使用的线程本地缓冲区。每个发送线程复用一块缓冲区，每条消息只分配一次最终载荷大小的数组；
+ * 超过上限的载荷使用临时数组，避免大消息长期占用内存。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+final class MqttCodecBuffers {
+
+    private static final int INITIAL_SIZE = 64 * 1024;
+    private static final int MAX_POOLED_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[INITIAL_SIZE]);
+
+    private MqttCodecBuffers() {
+    }
+
+    /**
+     * 获取至少 size 字节的缓冲区，内容未定义
+     */
+    static byte[] acquire(int size) {
+        byte[] buffer = BUFFERS.get();
+        if (buffer.length >= size) {
+            return buffer;
+        }
+        if (size > MAX_POOLED_SIZE) {
+            return new byte[size];
+        }
+        buffer = new byte[Math.min(MAX_POOLED_SIZE, Math.max(size, buffer.length * 2))];
+        BUFFERS.set(buffer);
+        return buffer;
+    }
+}
@@ -0,0 +1,212 @@
+package com.onlytl.mqtt.spring.boot.starter.codec;
+
+
+import com.onlytl.mqtt.spring.boot.starter.router.MqttTopicRouter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * MqttCodecChain
+ * </p >
+ * 客户端的载荷编码链。每一级编码的输出以标记字节 0xFE、编码器ID和4字节原始长度开头，
+ * 解码时逐级剥离，直到载荷不再以标记字节开头。压缩后没有变小的级别跳过，因此同一主题上编码和未编码的消息可以混合收发；
+ * 原始载荷恰好以标记字节开头时加上2字节的转义头（ID为0）。UTF-8 文本和 JSON 不会以 0xFE 开头。
+ * MQTT 3 没有可以标记编码的消息属性，只能按载荷首字节识别，因此入站只解码本客户端会编码的主题和额外配置的解码主题，
+ * 其他主题上不经编码链发布的二进制载荷原样派发；解码主题上的发布方都应使用编码链。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class MqttCodecChain {
+
+    static final byte MARKER = (byte) 0xFE;
+
+    // 转义：原始载荷以标记字节开头
+    static final int IDENTITY_ID = 0;
+
+    private static final int HEADER_LENGTH = 6;
+
+    private static final int ROUTE_CACHE_SIZE = 1000;
+
+    private final MqttPayloadCodecs codecs;
+    private final List<MqttPayloadCodec> defaultStages;
+    private final MqttTopicRouter<FilterStages> filterRouter;
+    private final MqttTopicRouter<String> decodeRouter;
+    private final int minSize;
+    private final int level;
+    private final int maxDecodedSize;
+    private final int maxRatio;
+
+    MqttCodecChain(MqttPayloadCodecs codecs,
+                   List<MqttPayloadCodec> defaultStages,
+                   Map<String, List<MqttPayloadCodec>> filterStages,
+                   int minSize,
+                   int level,
+                   List<String> decodeFilters,
+                   int maxDecodedSize,
+                   int maxRatio) {
+        this.codecs = codecs;
+        this.defaultStages = defaultStages;
+        this.minSize = minSize;
+        this.level = level;
+        this.maxDecodedSize = maxDecodedSize;
+        this.maxRatio = maxRatio;
+        if (filterStages.isEmpty()) {
+            this.filterRouter = null;
+        } else {
+            List<FilterStages> filters = new ArrayList<>(filterStages.size());
+            filterStages.forEach((filter, stages) -> filters.add(new FilterStages(filter, stages)));
+            this.filterRouter = new MqttTopicRouter<>(filters, FilterStages::getFilter, ROUTE_CACHE_SIZE);
+        }
+        this.decodeRouter = decodeFilters.isEmpty() ? null :
+                new MqttTopicRouter<>(decodeFilters, filter -> filter, ROUTE_CACHE_SIZE);
+    }
+
+    /**
+     * 编码出站载荷，只处理 byte[] 和 String，其他类型原样返回
+     *
+     * @param topic 发布主题，用于匹配按过滤器配置的编码链
+     * @param payload 载荷
+     * @return 编码后的字节；没有编码时返回原载荷
+     */
+    public Object encode(String topic, Object payload) {
+        byte[] data;
+        if (payload instanceof byte[]) {
+            data = (byte[]) payload;
+        } else if (payload instanceof String) {
+            data = ((String) payload).getBytes(StandardCharsets.UTF_8);
+        } else {
+            return payload;
+        }
+
+        byte[] encoded = data.length > 0 && data[0] == MARKER ? escape(data) : data;
+        if (data.length >= minSize) {
+            for (MqttPayloadCodec codec : stagesFor(topic)) {
+                encoded = encode(codec, encoded);
+            }
+        }
+        return encoded == data ? payload : encoded;
+    }
+
+    /**
+     * 入站主题上的载荷是否按编码链解码：本客户端会编码该主题，或主题匹配 decodeFilters
+     *
+     * @param topic 接收主题
+     * @return 是否解码
+     */
+    public boolean decodes(String topic) {
+        if (topic == null) {
+            return false;
+        }
+        return !stagesFor(topic).isEmpty() || decodeRouter != null && !decodeRouter.route(topic).isEmpty();
+    }
+
+    /**
+     * 解码入站载荷，只处理 {@link #decodes(String)} 为true的主题，其他主题的载荷原样返回
+     *
+     * @param topic 接收主题
+     * @param payload 载荷
+     * @return 原始载荷
+     * @throws IllegalArgumentException 编码器未注册、数据损坏或声明的原始长度超过上限
+     */
+    public byte[] decode(String topic, byte[] payload) {
+        return decodes(topic) ? decode(payload) : payload;
+    }
+
+    /**
+     * 解码入站载荷，逐级剥离编码头；不以标记字节开头的载荷原样返回
+     *
+     * @param payload 载荷
+     * @return 原始载荷
+     * @throws IllegalArgumentException 编码器未注册、数据损坏或声明的原始长度超过上限
+     */
+    public byte[] decode(byte[] payload) {
+        byte[] data = payload;
+        while (data.length >= 2 && data[0] == MARKER) {
+            int id = data[1] & 0xFF;
+            if (id == IDENTITY_ID) {
+                return Arrays.copyOfRange(data, 2, data.length);
+            }
+            MqttPayloadCodec codec = codecs.get(id);
+            if (codec == null) {
+                throw new IllegalArgumentException("No MQTT payload codec registered with id " + id);
+            }
+            if (data.length < HEADER_LENGTH) {
+                throw new IllegalArgumentException("Truncated " + codec.getName() + " payload header");
+            }
+            int length = ((data[2] & 0xFF) << 24) | ((data[3] & 0xFF) << 16) | ((data[4] & 0xFF) << 8) | (data[5] & 0xFF);
+            // 原始长度来自网络，分配前按上限和压缩比校验
+            int encodedLength = data.length - HEADER_LENGTH;
+            if (length < 0 || length > maxDecodedSize || length > (long) encodedLength * maxRatio) {
+                throw new IllegalArgumentException("Invalid " + codec.getName() + " payload length " + length +
+                        " for " + encodedLength + " encoded bytes, max decoded size is " + maxDecodedSize);
+            }
+            byte[] decoded = new byte[length];
+            codec.decode(data, HEADER_LENGTH, encodedLength, decoded);
+            data = decoded;
+        }
+        return data;
+    }
+
+    private List<MqttPayloadCodec> stagesFor(String topic) {
+        if (filterRouter == null) {
+            return defaultStages;
+        }
+        // 多个过滤器匹配时使用最长（最具体）的过滤器
+        FilterStages selected = null;
+        for (FilterStages candidate : filterRouter.route(topic)) {
+            if (selected == null || candidate.getFilter().length() > selected.getFilter().length()) {
+                selected = candidate;
+            }
+        }
+        return selected != null ? selected.getStages() : defaultStages;
+    }
+
+    // 编码结果写入线程本地缓冲区，没有变小时返回原数据
+    private byte[] encode(MqttPayloadCodec codec, byte[] data) {
+        byte[] buffer = MqttCodecBuffers.acquire(HEADER_LENGTH + codec.maxEncodedLength(data.length));
+        int written = codec.encode(data, 0, data.length, buffer, HEADER_LENGTH, level);
+        if (HEADER_LENGTH + written >= data.length) {
+            return data;
+        }
+        buffer[0] = MARKER;
+        buffer[1] = (byte) codec.getId();
+        buffer[2] = (byte) (data.length >>> 24);
+        buffer[3] = (byte) (data.length >>> 16);
+        buffer[4] = (byte) (data.length >>> 8);
+        buffer[5] = (byte) data.length;
+        return Arrays.copyOf(buffer, HEADER_LENGTH + written);
+    }
+
+    private static byte[] escape(byte[] data) {
+        byte[] escaped = new byte[data.length + 2];
+        escaped[0] = MARKER;
+        escaped[1] = IDENTITY_ID;
+        System.arraycopy(data, 0, escaped, 2, data.length);
+        return escaped;
+    }
+
+    private static final class FilterStages {
+
+        private final String filter;
+        private final List<MqttPayloadCodec> stages;
+
+        FilterStages(String filter, List<MqttPayloadCodec> stages) {
+            this.filter = filter;
+            this.stages = stages;
+        }
+
+        String getFilter() {
+            return filter;
+        }
+
+        List<MqttPayloadCodec> getStages() {
+            return stages;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.onlytl.mqtt.spring.boot.starter.codec;
+
+
+/**
+ * <p>
+ * MqttPayloadCodec
+ * </p >
+ * 载荷编码器。编码结果写入调用方提供的缓冲区，由 {@link MqttCodecChain} 负责加上标记字节、编码器ID和原始长度，
+ * 因此编码器本身不需要分配输出数组。注册为 Bean 的实现会加入编码器注册表，可在编码链中按名称引用。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public interface MqttPayloadCodec {
+
+    /**
+     * 编码器名称，在编码链配置中引用
+     */
+    String getName();
+
+    /**
+     * 写入载荷的编码器ID，1-127 保留给内置编码器，自定义编码器使用 128-255
+     */
+    int getId();
+
+    /**
+     * 编码 length 字节所需的最大输出长度
+     */
+    int maxEncodedLength(int length);
+
+    /**
+     * 编码
+     *
+     * @param src 原始数据
+     * @param srcOffset 原始数据起始位置
+     * @param srcLength 原始数据长度
+     * @param dst 输出缓冲区，至少有 {@link #maxEncodedLength(int)} 字节可用
+     * @param dstOffset 输出起始位置
+     * @param level 压缩级别，-1表示默认级别
+     * @return 写入的字节数
+     */
+    int encode(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int level);
+
+    /**
+     * 解码
+     *
+     * @param src 编码数据
+     * @param srcOffset 编码数据起始位置
+     * @param srcLength 编码数据长度
+     * @param dst 输出数组，长度等于原始长度
+     */
+    void decode(byte[] src, int srcOffset, int srcLength, byte[] dst);
+}
@@ -0,0 +1,122 @@
+package com.onlytl.mqtt.spring.boot.starter.codec;
+
+
+import com.onlytl.mqtt.spring.boot.starter.config.CodecProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * MqttPayloadCodecs
+ * </p >
+ * 载荷编码器注册表：内置 deflate，类路径中存在 zstd-jni、lz4-java 时注册 zstd、lz4，再加入自定义编码器。
+ * 解码时按载荷中的编码器ID查找，编码时按名称解析编码链。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Slf4j
+public class MqttPayloadCodecs {
+
+    private static final boolean ZSTD_PRESENT = ClassUtils.isPresent(
+            "com.github.luben.zstd.Zstd", MqttPayloadCodecs.class.getClassLoader());
+
+    private static final boolean LZ4_PRESENT = ClassUtils.isPresent(
+            "net.jpountz.lz4.LZ4Factory", MqttPayloadCodecs.class.getClassLoader());
+
+    private final Map<String, MqttPayloadCodec> codecsByName = new LinkedHashMap<>();
+    private final MqttPayloadCodec[] codecsById = new MqttPayloadCodec[256];
+
+    /**
+     * @param customCodecs 自定义编码器，名称和ID不能与已注册的编码器重复
+     */
+    public MqttPayloadCodecs(Collection<? extends MqttPayloadCodec> customCodecs) {
+        register(new DeflatePayloadCodec());
+        if (ZSTD_PRESENT) {
+            register(new ZstdPayloadCodec());
+        }
+        if (LZ4_PRESENT) {
+            register(new Lz4PayloadCodec());
+        }
+        for (MqttPayloadCodec codec : customCodecs) {
+            register(codec);
+        }
+        log.debug("Registered MQTT payload codecs: {}", codecsByName.keySet());
+    }
+
+    /**
+     * 按名称获取编码器
+     *
+     * @return 编码器，未注册时为null
+     */
+    public MqttPayloadCodec get(String name) {
+        return codecsByName.get(name);
+    }
+
+    /**
+     * 按载荷中的编码器ID获取编码器
+     *
+     * @return 编码器，未注册时为null
+     */
+    public MqttPayloadCodec get(int id) {
+        return id > 0 && id < codecsById.length ? codecsById[id] : null;
+    }
+
+    /**
+     * 按客户端的编码配置创建编码链
+     *
+     * @param properties 编码配置
+     * @return 编码链
+     */
+    public MqttCodecChain createChain(CodecProperties properties) {
+        Map<String, List<MqttPayloadCodec>> filterStages = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : properties.getFilters().entrySet()) {
+            filterStages.put(entry.getKey(), resolve(entry.getValue()));
+        }
+        Assert.isTrue(properties.getMaxDecodedSize() > 0, "codec.max-decoded-size must be positive");
+        Assert.isTrue(properties.getMaxRatio() > 0, "codec.max-ratio must be positive");
+        return new MqttCodecChain(this, resolve(properties.getChain()), filterStages,
+                properties.getMinSize(), properties.getLevel(), properties.getDecodeFilters(),
+                properties.getMaxDecodedSize(), properties.getMaxRatio());
+    }
+
+    private List<MqttPayloadCodec> resolve(List<String> names) {
+        List<MqttPayloadCodec> stages = new ArrayList<>(names.size());
+        for (String name : names) {
+            MqttPayloadCodec codec = codecsByName.get(name);
+            Assert.notNull(codec, () -> "Unknown MQTT payload codec [" + name + "], available: " +
+                    codecsByName.keySet() + missingLibraryHint(name));
+            stages.add(codec);
+        }
+        return stages;
+    }
+
+    private void register(MqttPayloadCodec codec) {
+        int id = codec.getId();
+        Assert.isTrue(id > 0 && id < codecsById.length,
+                () -> "MQTT payload codec id must be between 1 and 255: " + codec.getName());
+        Assert.isTrue(codecsById[id] == null,
+                () -> "Duplicate MQTT payload codec id " + id + ": " + codec.getName());
+        Assert.isTrue(!codecsByName.containsKey(codec.getName()),
+                () -> "Duplicate MQTT payload codec name: " + codec.getName());
+        codecsById[id] = codec;
+        codecsByName.put(codec.getName(), codec);
+    }
+
+    private static String missingLibraryHint(String name) {
+        if (ZstdPayloadCodec.NAME.equals(name)) {
+            return ", add com.github.luben:zstd-jni to the classpath";
+        }
+        if (Lz4PayloadCodec.NAME.equals(name)) {
+            return ", add org.lz4:lz4-java to the classpath";
+        }
+        return "";
+    }
+}
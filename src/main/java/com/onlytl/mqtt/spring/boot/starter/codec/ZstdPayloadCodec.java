@@ -0,0 +1,58 @@
+package com.onlytl.mqtt.spring.boot.starter.codec;
+
+
+import com.github.luben.zstd.Zstd;
+
+/**
+ * <p>
+ * ZstdPayloadCodec
+ * </p >
+ * 基于 zstd-jni 的编码器，需要引入 com.github.luben:zstd-jni。
+ * 压缩率接近 Deflate 最高级别，速度快数倍，适合较大的 JSON 载荷。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class ZstdPayloadCodec implements MqttPayloadCodec {
+
+    public static final String NAME = "zstd";
+
+    private static final int DEFAULT_LEVEL = 3;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getId() {
+        return 2;
+    }
+
+    @Override
+    public int maxEncodedLength(int length) {
+        return (int) Zstd.compressBound(length);
+    }
+
+    @Override
+    public int encode(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int level) {
+        long written = Zstd.compressByteArray(dst, dstOffset, dst.length - dstOffset,
+                src, srcOffset, srcLength, level < 0 ? DEFAULT_LEVEL : level);
+        if (Zstd.isError(written)) {
+            throw new IllegalStateException("Zstd compression failed: " + Zstd.getErrorName(written));
+        }
+        return (int) written;
+    }
+
+    @Override
+    public void decode(byte[] src, int srcOffset, int srcLength, byte[] dst) {
+        long read = Zstd.decompressByteArray(dst, 0, dst.length, src, srcOffset, srcLength);
+        if (Zstd.isError(read)) {
+            throw new IllegalArgumentException("Invalid zstd payload: " + Zstd.getErrorName(read));
+        }
+        if (read != dst.length) {
+            throw new IllegalArgumentException("Zstd payload is truncated: expected " + dst.length +
+                    " bytes, got " + read);
+        }
+    }
+}
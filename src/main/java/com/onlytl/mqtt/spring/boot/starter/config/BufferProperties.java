@@ -0,0 +1,53 @@
+package com.onlytl.mqtt.spring.boot.starter.config;
+
+
+import lombok.Data;
+
+/**
+ * <p>
+ * BufferProperties
+ * </p >
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Data
+public class BufferProperties {
+
+    /**
+     * 入站缓冲区容量（客户端所有分区合计），0表示不启用缓冲区
+     */
+    private int capacity = 0;
+
+    /**
+     * 缓冲区已满时的处理策略
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    /**
+     * BLOCK 策略下的最长等待时间（毫秒），超时后丢弃新消息
+     */
+    private long blockTimeout = 1000;
+
+    public enum OverflowPolicy {
+        /**
+         * 阻塞MQTT回调线程直到有空位或超时
+         */
+        BLOCK,
+
+        /**
+         * 丢弃最早入队的消息
+         */
+        DROP_OLDEST,
+
+        /**
+         * 丢弃新到达的消息
+         */
+        DROP_NEWEST,
+
+        /**
+         * 按主题合并，同一主题只保留最新一条待处理消息
+         */
+        CONFLATE
+    }
+}
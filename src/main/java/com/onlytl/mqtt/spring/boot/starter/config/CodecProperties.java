@@ -0,0 +1,64 @@
+package com.onlytl.mqtt.spring.boot.starter.config;
+
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * CodecProperties
+ * </p >
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Data
+public class CodecProperties {
+
+    /**
+     * 是否启用载荷编码。启用后出站消息按编码链编码，入站消息只在编码的主题和 decodeFilters 匹配的主题上按标记字节解码
+     */
+    private boolean enabled = false;
+
+    /**
+     * 出站编码链，按顺序应用，可选 deflate、zstd、lz4 或自定义编码器的名称；为空时不编码，
+     * 入站只解码 filters 中配置了编码链的主题和 decodeFilters 匹配的主题
+     */
+    private List<String> chain = new ArrayList<>();
+
+    /**
+     * 小于该字节数的载荷不编码
+     */
+    private int minSize = 1024;
+
+    /**
+     * 压缩级别，-1表示使用编码器的默认级别
+     */
+    private int level = -1;
+
+    /**
+     * 解码后载荷的最大字节数，编码头中声明的原始长度超过该值时拒绝解码，防止伪造的编码头触发超大内存分配
+     */
+    private int maxDecodedSize = 16 * 1024 * 1024;
+
+    /**
+     * 解码后长度与编码数据长度的最大比值，超过时视为伪造的编码头
+     */
+    private int maxRatio = 1024;
+
+    /**
+     * 按主题过滤器覆盖编码链，key为主题过滤器（yaml 中用 "[telemetry/#]" 的形式书写），
+     * 多个过滤器匹配时使用最长的过滤器，空列表表示该主题不编码
+     */
+    private Map<String, List<String>> filters = new LinkedHashMap<>();
+
+    /**
+     * 另外需要解码的入站主题过滤器，用于只接收不发送编码消息的主题。
+     * 入站解码默认只作用于本客户端会编码的主题，其他主题上以 0xFE 开头的原始载荷不会被误当作编码数据
+     */
+    private List<String> decodeFilters = new ArrayList<>();
+}
@@ -0,0 +1,70 @@
+package com.onlytl.mqtt.spring.boot.starter.config;
+
+
+import lombok.Data;
+
+/**
+ * <p>
+ * DedupProperties
+ * </p >
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Data
+public class DedupProperties {
+
+    /**
+     * 是否对客户端的所有入站消息去重，重复消息不再派发给默认处理器和订阅方法；
+     * 为false时只对 {@code @MqttSubscribe(dedup = true)} 的订阅方法去重
+     */
+    private boolean enabled = false;
+
+    /**
+     * 消息指纹的计算方式
+     */
+    private DedupKey key = DedupKey.MESSAGE_ID;
+
+    /**
+     * 指纹为 HEADER 时使用的消息头名称，例如 MQTT 5 用户属性中的业务消息ID
+     */
+    private String header;
+
+    /**
+     * 指纹为 EXTRACTOR 时使用的 {@link com.onlytl.mqtt.spring.boot.starter.dispatch.MqttDedupKeyExtractor} Bean 名称
+     */
+    private String keyExtractor;
+
+    /**
+     * 指纹缓存容量，超出时淘汰同一槽位中最早写入的指纹
+     */
+    private int capacity = 65536;
+
+    /**
+     * 指纹保留时间（毫秒），超过后同一指纹的消息不再视为重复
+     */
+    private long ttl = 60000;
+
+    public enum DedupKey {
+        /**
+         * 主题、MQTT报文ID与载荷内容的哈希值，只有带重发标记的QoS 1/2消息才会被判定为重复，
+         * 复用报文ID但内容不同的消息不会被误判
+         */
+        MESSAGE_ID,
+
+        /**
+         * 主题与载荷内容的哈希值，内容相同的消息在保留时间内只派发一次
+         */
+        PAYLOAD,
+
+        /**
+         * 指定消息头的值
+         */
+        HEADER,
+
+        /**
+         * 自定义的指纹提取器
+         */
+        EXTRACTOR
+    }
+}
@@ -0,0 +1,69 @@
+package com.onlytl.mqtt.spring.boot.starter.config;
+
+
+import lombok.Data;
+
+/**
+ * <p>
+ * DispatchProperties
+ * </p >
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Data
+public class DispatchProperties {
+
+    /**
+     * 派发线程池大小，0表示在MQTT回调线程中直接执行订阅方法
+     */
+    private int poolSize = 0;
+
+    /**
+     * 派发线程池队列容量，队列已满时由提交线程执行以形成背压
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 是否使用虚拟线程派发（需要JDK 21及以上，不支持时回退到派发线程池）
+     */
+    private boolean virtualThreads = false;
+
+    /**
+     * 有序派发分区数，大于0时按分区键把消息哈希到对应的单线程分区，
+     * 相同分区键的消息严格按到达顺序处理，不同分区之间并行
+     */
+    private int partitions = 0;
+
+    /**
+     * 分区键类型
+     */
+    private PartitionKey partitionKey = PartitionKey.TOPIC;
+
+    /**
+     * 分区键为 TOPIC_SEGMENT 时使用的主题层级下标（从0开始）
+     */
+    private int partitionSegment = 0;
+
+    /**
+     * 分区键为 HEADER 时使用的消息头名称
+     */
+    private String partitionHeader;
+
+    public enum PartitionKey {
+        /**
+         * 完整主题
+         */
+        TOPIC,
+
+        /**
+         * 主题中指定下标的层级，例如 devices/{id}/data 中的设备ID
+         */
+        TOPIC_SEGMENT,
+
+        /**
+         * 指定的消息头
+         */
+        HEADER
+    }
+}
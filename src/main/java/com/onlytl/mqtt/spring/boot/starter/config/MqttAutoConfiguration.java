@@ -1,10 +1,22 @@
 package com.onlytl.mqtt.spring.boot.starter.config;
 
+import com.onlytl.mqtt.spring.boot.starter.codec.MqttPayloadCodec;
+import com.onlytl.mqtt.spring.boot.starter.codec.MqttPayloadCodecs;
+import com.onlytl.mqtt.spring.boot.starter.dispatch.MqttSubscriptionRegistry;
 import com.onlytl.mqtt.spring.boot.starter.factory.MqttClientFactory;
 import com.onlytl.mqtt.spring.boot.starter.factory.MqttPahoClientFactoryImpl;
 import com.onlytl.mqtt.spring.boot.starter.handler.DefaultMqttMessageHandler;
 import com.onlytl.mqtt.spring.boot.starter.handler.MqttMessageHandler;
+import com.onlytl.mqtt.spring.boot.starter.metrics.MicrometerMqttMetrics;
+import com.onlytl.mqtt.spring.boot.starter.metrics.MqttMetrics;
+import com.onlytl.mqtt.spring.boot.starter.reactive.ReactiveMqttTemplate;
+import com.onlytl.mqtt.spring.boot.starter.ssl.SslContextRegistry;
 import com.onlytl.mqtt.spring.boot.starter.template.MqttTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -12,6 +24,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
+import java.util.stream.Collectors;
+
 /**
  * <p>
  * MqttAutoConfiguration
@@ -21,14 +35,29 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
  * @version 1.0.0
  */
 @Configuration
+@AutoConfigureAfter(name = {
+        "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration",
+        "org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration"})
 @EnableConfigurationProperties(MqttProperties.class)
 @ConditionalOnProperty(prefix = "mqtt", name = "enabled", havingValue = "true", matchIfMissing = true)
 public class MqttAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public MqttClientFactory mqttClientFactory() {
-        return new MqttPahoClientFactoryImpl();
+    public SslContextRegistry sslContextRegistry() {
+        return new SslContextRegistry();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public MqttClientFactory mqttClientFactory(SslContextRegistry sslContextRegistry) {
+        return new MqttPahoClientFactoryImpl(sslContextRegistry);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public MqttPayloadCodecs mqttPayloadCodecs(ObjectProvider<MqttPayloadCodec> payloadCodecs) {
+        return new MqttPayloadCodecs(payloadCodecs.orderedStream().collect(Collectors.toList()));
     }
 
     @Bean
@@ -46,9 +75,44 @@ public class MqttAutoConfiguration {
     }
 
     @Bean
-    public MqttTemplate mqttTemplate(MqttClientConfiguration mqttClientConfiguration) {
-        return new MqttTemplate(
-                mqttClientConfiguration.getOutboundHandlers(),
+    public MqttTemplate mqttTemplate(MqttClientConfiguration mqttClientConfiguration,
+                                     ObjectProvider<MqttMetrics> mqttMetrics) {
+        MqttTemplate mqttTemplate = MqttTemplate.pooled(
+                mqttClientConfiguration.getOutboundPools(),
                 mqttClientConfiguration.getClientConfigs());
+        mqttTemplate.setMetrics(mqttMetrics.getIfAvailable(() -> MqttMetrics.NOOP));
+        mqttTemplate.setOutboundSpools(mqttClientConfiguration.getOutboundSpools());
+        mqttTemplate.setCodecChains(mqttClientConfiguration.getCodecChains());
+        return mqttTemplate;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public MqttSubscriptionRegistry mqttSubscriptionRegistry(MqttClientConfiguration mqttClientConfiguration) {
+        return new MqttSubscriptionRegistry(mqttClientConfiguration);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "reactor.core.publisher.Flux")
+    static class ReactiveMqttConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public ReactiveMqttTemplate reactiveMqttTemplate(MqttTemplate mqttTemplate,
+                                                         MqttClientConfiguration mqttClientConfiguration) {
+            return new ReactiveMqttTemplate(mqttTemplate, mqttClientConfiguration);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class MqttMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(MqttMetrics.class)
+        @ConditionalOnBean(MeterRegistry.class)
+        public MqttMetrics mqttMetrics(MeterRegistry meterRegistry) {
+            return new MicrometerMqttMetrics(meterRegistry);
+        }
     }
 }
@@ -3,10 +3,34 @@ package com.onlytl.mqtt.spring.boot.starter.config;
 
 import com.onlytl.mqtt.spring.boot.starter.annotation.MqttClient;
 import com.onlytl.mqtt.spring.boot.starter.annotation.MqttSubscribe;
+import com.onlytl.mqtt.spring.boot.starter.codec.MqttCodecChain;
+import com.onlytl.mqtt.spring.boot.starter.codec.MqttPayloadCodecs;
+import com.onlytl.mqtt.spring.boot.starter.dispatch.MqttBatchAccumulator;
+import com.onlytl.mqtt.spring.boot.starter.dispatch.MqttDedupKeyExtractor;
+import com.onlytl.mqtt.spring.boot.starter.dispatch.MqttDispatchExecutors;
+import com.onlytl.mqtt.spring.boot.starter.dispatch.MqttDuplicateFilter;
+import com.onlytl.mqtt.spring.boot.starter.dispatch.MqttInboundDispatcher;
+import com.onlytl.mqtt.spring.boot.starter.dispatch.SubscriptionInfo;
 import com.onlytl.mqtt.spring.boot.starter.factory.MqttClientFactory;
+import com.onlytl.mqtt.spring.boot.starter.factory.Mqttv5ClientFactory;
 import com.onlytl.mqtt.spring.boot.starter.handler.MqttMessageHandler;
+import com.onlytl.mqtt.spring.boot.starter.handler.MqttPayloadDecoders;
+import com.onlytl.mqtt.spring.boot.starter.handler.MqttSubscriptionInvoker;
+import com.onlytl.mqtt.spring.boot.starter.metrics.MqttMetrics;
+import com.onlytl.mqtt.spring.boot.starter.reconnect.MqttReconnectCoordinator;
+import com.onlytl.mqtt.spring.boot.starter.router.MqttTopicRouter;
+import com.onlytl.mqtt.spring.boot.starter.router.TopicFilterConsolidator;
+import com.onlytl.mqtt.spring.boot.starter.router.TopicTemplate;
+import com.onlytl.mqtt.spring.boot.starter.spool.MqttOutboundSpool;
+import com.onlytl.mqtt.spring.boot.starter.ssl.SslContextRegistry;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttConnectionSelector;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttDeliveryTracker;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttOutboundConnection;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttOutboundPool;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.client.mqttv3.IMqttClient;
+import org.eclipse.paho.client.mqttv3.MqttException;
 import org.springframework.aop.framework.AopProxyUtils;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.BeansException;
@@ -15,24 +39,44 @@ import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.integration.channel.DirectChannel;
 import org.springframework.integration.mqtt.core.MqttPahoClientFactory;
+import org.springframework.integration.mqtt.event.MqttConnectionFailedEvent;
+import org.springframework.integration.mqtt.event.MqttSubscribedEvent;
+import org.springframework.integration.mqtt.inbound.AbstractMqttMessageDrivenChannelAdapter;
 import org.springframework.integration.mqtt.inbound.MqttPahoMessageDrivenChannelAdapter;
+import org.springframework.integration.mqtt.outbound.AbstractMqttMessageHandler;
 import org.springframework.integration.mqtt.outbound.MqttPahoMessageHandler;
 import org.springframework.integration.mqtt.support.DefaultPahoMessageConverter;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.MessagingException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
 
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
 
 /**
  * <p>
@@ -46,7 +90,17 @@ import java.util.concurrent.ConcurrentHashMap;
 public class MqttClientConfiguration implements BeanPostProcessor,
         ApplicationListener<ContextRefreshedEvent>,
         DisposableBean,
-        BeanFactoryAware {
+        BeanFactoryAware,
+        ApplicationEventPublisherAware {
+
+    private static final long DISPATCH_SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    // 未配置投递超时时，补发等待确认的最长时间
+    private static final long SPOOL_DELIVERY_TIMEOUT_MILLIS = 30000;
+
+    // Paho v5 客户端是可选依赖，只有 protocol-version 为 5 的客户端需要
+    private static final boolean MQTTV5_PRESENT = ClassUtils.isPresent(
+            "org.eclipse.paho.mqttv5.client.MqttAsyncClient", MqttClientConfiguration.class.getClassLoader());
 
     private final MqttProperties mqttProperties;
     private final MqttClientFactory mqttClientFactory;
@@ -55,15 +109,21 @@ public class MqttClientConfiguration implements BeanPostProcessor,
     @Autowired
     private ThreadPoolTaskScheduler mqttTaskScheduler;
 
+    @Autowired(required = false)
+    private SslContextRegistry sslContextRegistry;
+
+    @Autowired(required = false)
+    private MqttPayloadCodecs payloadCodecs;
+
     // 存储客户端工厂
     private final Map<String, MqttPahoClientFactory> clientFactories = new ConcurrentHashMap<>();
 
     // 存储MQTT出站处理器
     @Getter
-    private final Map<String, MqttPahoMessageHandler> outboundHandlers = new ConcurrentHashMap<>();
+    private final Map<String, AbstractMqttMessageHandler> outboundHandlers = new ConcurrentHashMap<>();
 
     // 存储MQTT入站适配器
-    private final Map<String, MqttPahoMessageDrivenChannelAdapter> inboundAdapters = new ConcurrentHashMap<>();
+    private final Map<String, AbstractMqttMessageDrivenChannelAdapter> inboundAdapters = new ConcurrentHashMap<>();
 
     // 存储消息通道
     private final Map<String, DirectChannel> channels = new ConcurrentHashMap<>();
@@ -71,8 +131,51 @@ public class MqttClientConfiguration implements BeanPostProcessor,
     // 存储订阅信息
     private final Map<String, List<SubscriptionInfo>> subscriptions = new ConcurrentHashMap<>();
 
+    // 存储主题路由器
+    private final Map<String, MqttTopicRouter<SubscriptionInfo>> routers = new ConcurrentHashMap<>();
+
+    // 存储入站消息派发器
+    private final Map<String, MqttInboundDispatcher> dispatchers = new ConcurrentHashMap<>();
+
+    // 存储出站连接池
+    @Getter
+    private final Map<String, MqttOutboundPool> outboundPools = new ConcurrentHashMap<>();
+
+    // 存储离线出站缓存
+    @Getter
+    private final Map<String, MqttOutboundSpool> outboundSpools = new ConcurrentHashMap<>();
+
+    // 存储载荷编码链
+    @Getter
+    private final Map<String, MqttCodecChain> codecChains = new ConcurrentHashMap<>();
+
+    // 派发执行器
+    private MqttDispatchExecutors dispatchExecutors = new MqttDispatchExecutors(null);
+
+    // 订阅方法载荷转换器
+    private MqttPayloadDecoders payloadDecoders = new MqttPayloadDecoders(null);
+
+    private BeanFactory beanFactory;
+
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private MqttMetrics metrics = MqttMetrics.NOOP;
+
+    // 订阅连接重连协调器，未启用时为null
+    @Getter
+    private MqttReconnectCoordinator reconnectCoordinator;
+
     private boolean initialized = false;
 
+    // 运行时增删订阅与启动时处理订阅互斥
+    private final Object subscriptionLock = new Object();
+
+    // 启动时的订阅已处理，之后的增删直接作用于订阅连接
+    private boolean subscriptionsProcessed = false;
+
+    // 客户端的默认派发线程池
+    private final Map<String, Executor> clientExecutors = new ConcurrentHashMap<>();
+
     @Autowired
     public MqttClientConfiguration(MqttProperties mqttProperties,
                                    MqttClientFactory mqttClientFactory,
@@ -84,6 +187,14 @@ public class MqttClientConfiguration implements BeanPostProcessor,
 
     @Override
     public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+        this.dispatchExecutors = new MqttDispatchExecutors(beanFactory);
+        this.payloadDecoders = new MqttPayloadDecoders(beanFactory);
+    }
+
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+        this.applicationEventPublisher = applicationEventPublisher;
     }
 
     @Override
@@ -114,17 +225,48 @@ public class MqttClientConfiguration implements BeanPostProcessor,
     }
 
     private void registerSubscription(Object bean, Method method, MqttSubscribe mqttSubscribe) {
-        String topic = mqttSubscribe.topic().isEmpty() ? mqttSubscribe.value() : mqttSubscribe.topic();
-        Assert.hasText(topic, "Topic must be specified in @MqttSubscribe annotation");
+        String template = mqttSubscribe.topic().isEmpty() ? mqttSubscribe.value() : mqttSubscribe.topic();
+        Assert.hasText(template, "Topic must be specified in @MqttSubscribe annotation");
+        // 路径变量层级替换为 + 后订阅
+        TopicTemplate topicTemplate = TopicTemplate.parse(template);
+        String topic = topicTemplate.getFilter();
 
         String clientName = mqttSubscribe.client();
         int qos = mqttSubscribe.qos();
 
+        // 共享订阅组可以通过 group 属性或 $share 前缀指定
+        String group = topicTemplate.getGroup();
+        if (!mqttSubscribe.group().isEmpty()) {
+            TopicTemplate.validateGroup(mqttSubscribe.group());
+            Assert.isTrue(group == null || group.equals(mqttSubscribe.group()),
+                    () -> "Conflicting shared subscription groups in @MqttSubscribe: " + method);
+            group = mqttSubscribe.group();
+        }
+
+        if (mqttSubscribe.batchSize() > 0) {
+            Assert.isTrue(method.getParameterCount() > 0 && method.getParameterTypes()[0].isAssignableFrom(List.class),
+                    () -> "Batch @MqttSubscribe method must accept a List as its first parameter: " + method);
+            Assert.isTrue(mqttSubscribe.batchTimeoutMs() > 0, "batchTimeoutMs must be positive");
+        }
+
         log.info("Registering MQTT subscription: topic={}, qos={}, client={}, method={}.{}",
                 topic, qos, clientName, bean.getClass().getSimpleName(), method.getName());
 
         // 将订阅信息存储起来，等待context刷新后统一处理
-        SubscriptionInfo subscriptionInfo = new SubscriptionInfo(bean, method, topic, qos);
+        SubscriptionInfo subscriptionInfo = SubscriptionInfo.builder()
+                .bean(bean)
+                .method(method)
+                .topic(topic)
+                .qos(qos)
+                .group(group)
+                .invoker(MqttSubscriptionInvoker.compile(
+                        bean, method, topicTemplate.getVariables(), mqttSubscribe.batchSize() > 0))
+                .concurrency(mqttSubscribe.concurrency())
+                .executorName(mqttSubscribe.executor())
+                .batchSize(mqttSubscribe.batchSize())
+                .batchTimeoutMs(mqttSubscribe.batchTimeoutMs())
+                .dedup(mqttSubscribe.dedup())
+                .build();
         subscriptions.computeIfAbsent(clientName, k -> new ArrayList<>()).add(subscriptionInfo);
     }
 
@@ -134,36 +276,173 @@ public class MqttClientConfiguration implements BeanPostProcessor,
             return;
         }
 
+        ThreadPoolTaskExecutor startupExecutor = createStartupExecutor();
         try {
-            // 初始化所有MQTT客户端
-            initializeMqttClients();
+            // 存在 MeterRegistry 时自动启用指标
+            if (beanFactory != null) {
+                metrics = beanFactory.getBeanProvider(MqttMetrics.class).getIfAvailable(() -> MqttMetrics.NOOP);
+            }
+
+            // 订阅连接的重连由协调器统一调度，避免 Broker 重启后所有客户端同时重连
+            if (mqttProperties.getReconnect().isEnabled()) {
+                reconnectCoordinator = new MqttReconnectCoordinator(mqttProperties.getReconnect(), mqttTaskScheduler);
+            }
+
+            // 所有客户端共用一个启动时限，启动耗时约为最慢的客户端而不是所有客户端之和
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(mqttProperties.getStartupTimeout());
+
+            // 并行初始化所有MQTT客户端
+            initializeMqttClients(startupExecutor, deadline);
+
+            // 处理所有订阅，订阅连接并行启动
+            Map<String, Future<?>> adapterStarts = processSubscriptions(startupExecutor);
+
+            // 注册在途消息数等指标，有订阅连接的客户端已在创建订阅连接时注册
+            for (Map.Entry<String, MqttOutboundPool> entry : outboundPools.entrySet()) {
+                if (!inboundAdapters.containsKey(entry.getKey())) {
+                    metrics.bindClient(entry.getKey(), entry.getValue(), null);
+                }
+            }
+            for (Map.Entry<String, MqttOutboundSpool> entry : outboundSpools.entrySet()) {
+                metrics.bindSpool(entry.getKey(), entry.getValue());
+            }
 
-            // 处理所有订阅
-            processSubscriptions();
+            awaitAdapterStarts(adapterStarts, deadline);
+
+            // 证书文件变化时重新加载，已建立的出站连接逐个重连
+            registerSslRollovers();
 
             initialized = true;
             log.info("MQTT clients initialized successfully");
         } catch (Exception e) {
             log.error("Failed to initialize MQTT clients", e);
             throw new RuntimeException("Failed to initialize MQTT clients", e);
+        } finally {
+            // 不中断仍在连接的任务，超时的订阅连接在后台继续
+            startupExecutor.shutdown();
+        }
+    }
+
+    private void registerSslRollovers() {
+        if (sslContextRegistry == null) {
+            return;
+        }
+        for (Map.Entry<String, MqttProperties.ClientConfig> entry : getClientConfigs().entrySet()) {
+            SslProperties ssl = entry.getValue().getSsl();
+            if (!ssl.isEnabled() || ssl.getReloadInterval() <= 0) {
+                continue;
+            }
+            MqttOutboundPool pool = outboundPools.get(entry.getKey());
+            if (pool != null) {
+                for (MqttOutboundConnection connection : pool.getConnections()) {
+                    sslContextRegistry.registerRollover(ssl, connection::reconnect);
+                }
+            }
         }
+        sslContextRegistry.startWatching(mqttTaskScheduler);
     }
 
-    private void initializeMqttClients() throws Exception {
-        // 初始化默认客户端
-        initializeMqttClient("default", mqttProperties.getDefaultClient());
+    /**
+     * 注册订阅连接的派发指标、重连退避指标和证书更新后的重连动作。
+     * 启动时创建的订阅连接与运行时首次订阅才创建的订阅连接都在这里注册
+     */
+    private void bindInbound(String clientName, MqttProperties.ClientConfig config,
+                             AbstractMqttMessageDrivenChannelAdapter adapter) {
+        MqttOutboundPool pool = outboundPools.get(clientName);
+        if (pool != null) {
+            metrics.bindClient(clientName, pool, dispatchers.get(clientName));
+        }
+        if (reconnectCoordinator != null) {
+            metrics.bindReconnect(reconnectCoordinator, Collections.singleton(clientName));
+        }
 
-        // 初始化其他客户端
-        for (Map.Entry<String, MqttProperties.ClientConfig> entry : mqttProperties.getClients().entrySet()) {
-            initializeMqttClient(entry.getKey(), entry.getValue());
+        SslProperties ssl = config.getSsl();
+        if (sslContextRegistry != null && ssl.isEnabled() && ssl.getReloadInterval() > 0) {
+            sslContextRegistry.registerRollover(ssl, () -> {
+                // 未启动的懒加载适配器首次连接时会使用新证书
+                if (adapter.isRunning()) {
+                    adapter.stop();
+                    adapter.start();
+                }
+            });
+        }
+    }
+
+    private ThreadPoolTaskExecutor createStartupExecutor() {
+        int clientCount = mqttProperties.getClients().size() + 1;
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, Math.min(mqttProperties.getStartupParallelism(), clientCount)));
+        executor.setMaxPoolSize(executor.getCorePoolSize());
+        executor.setThreadNamePrefix("mqtt-startup-");
+        executor.setDaemon(true);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    private void initializeMqttClients(ThreadPoolTaskExecutor executor, long deadline) throws Exception {
+        Map<String, MqttProperties.ClientConfig> configs = new LinkedHashMap<>();
+        // 默认客户端
+        configs.put("default", mqttProperties.getDefaultClient());
+        // 其他客户端
+        configs.putAll(mqttProperties.getClients());
+
+        Map<String, Future<?>> futures = new LinkedHashMap<>();
+        for (Map.Entry<String, MqttProperties.ClientConfig> entry : configs.entrySet()) {
+            futures.put(entry.getKey(), executor.submit(() -> {
+                initializeMqttClient(entry.getKey(), entry.getValue());
+                return null;
+            }));
+        }
+
+        for (Map.Entry<String, Future<?>> entry : futures.entrySet()) {
+            try {
+                entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            } catch (TimeoutException e) {
+                throw new IllegalStateException("MQTT client [" + entry.getKey() +
+                        "] was not initialized within " + mqttProperties.getStartupTimeout() + "ms");
+            }
+        }
+    }
+
+    // 等待订阅连接启动，超过启动时限的客户端在后台继续连接，不阻塞应用启动
+    private void awaitAdapterStarts(Map<String, Future<?>> adapterStarts, long deadline) throws InterruptedException {
+        List<String> pending = new ArrayList<>();
+        for (Map.Entry<String, Future<?>> entry : adapterStarts.entrySet()) {
+            try {
+                entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                log.warn("Failed to start MQTT subscription adapter for client: {}", entry.getKey(), e.getCause());
+            } catch (TimeoutException e) {
+                pending.add(entry.getKey());
+            }
+        }
+        if (!pending.isEmpty()) {
+            log.warn("MQTT clients {} did not connect within {}ms, continuing in the background",
+                    pending, mqttProperties.getStartupTimeout());
         }
     }
 
     private void initializeMqttClient(String clientName, MqttProperties.ClientConfig config) throws Exception {
+        int protocolVersion = config.getProtocolVersion();
+        Assert.isTrue(protocolVersion == 3 || protocolVersion == 5,
+                () -> "Unsupported MQTT protocol version for client [" + clientName + "]: " + protocolVersion);
+        Assert.state(protocolVersion != 5 || MQTTV5_PRESENT, () -> "MQTT client [" + clientName +
+                "] uses protocol version 5, add org.eclipse.paho:org.eclipse.paho.mqttv5.client to the classpath");
+
         // 创建MQTT客户端工厂
         MqttPahoClientFactory clientFactory = mqttClientFactory.createClientFactory(config);
         clientFactories.put(clientName, clientFactory);
 
+        // 创建载荷编码链，配置错误时启动失败
+        if (config.getCodec().isEnabled()) {
+            MqttPayloadCodecs codecs = payloadCodecs != null ? payloadCodecs :
+                    new MqttPayloadCodecs(Collections.emptyList());
+            codecChains.put(clientName, codecs.createChain(config.getCodec()));
+        }
+
         // 创建入站通道
         DirectChannel inboundChannel = new DirectChannel();
         channels.put(clientName + "-inbound", inboundChannel);
@@ -172,148 +451,493 @@ public class MqttClientConfiguration implements BeanPostProcessor,
         DirectChannel outboundChannel = new DirectChannel();
         channels.put(clientName + "-outbound", outboundChannel);
 
-        // 创建出站处理器
-        MqttPahoMessageHandler messageHandler = new MqttPahoMessageHandler(
-                config.getClientId() + "-outbound", clientFactory);
-        messageHandler.setAsync(true);
+        // 创建出站连接，连接池中的每个连接使用派生的客户端ID
+        int poolSize = Math.max(1, config.getPoolSize());
+        List<MqttOutboundConnection> connections = new ArrayList<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            String clientId = config.getClientId() + "-outbound" + (poolSize > 1 ? "-" + i : "");
+            connections.add(createOutboundConnection(clientName, clientId, clientFactory, config));
+        }
+        outboundHandlers.put(clientName, connections.get(0).getMessageHandler());
+        MqttOutboundPool pool = new MqttOutboundPool(connections, MqttConnectionSelector.of(config.getPoolStrategy()));
+        outboundPools.put(clientName, pool);
+
+        // 创建离线出站缓存，恢复上次未补发的消息
+        if (config.getSpool().isEnabled()) {
+            MqttOutboundSpool spool = createOutboundSpool(clientName, pool, config);
+            spool.start();
+            outboundSpools.put(clientName, spool);
+        }
+
+        log.debug("Initialized MQTT client: {}", clientName);
+    }
+
+    private MqttOutboundConnection createOutboundConnection(String clientName,
+                                                            String clientId,
+                                                            MqttPahoClientFactory clientFactory,
+                                                            MqttProperties.ClientConfig config) throws Exception {
+        AbstractMqttMessageHandler messageHandler;
+        if (config.getProtocolVersion() == 5) {
+            messageHandler = new Mqttv5ClientFactory(sslContextRegistry, mqttProperties.getReconnect())
+                    .createMessageHandler(clientId, config);
+        } else {
+            MqttPahoMessageHandler pahoMessageHandler = new MqttPahoMessageHandler(clientId, clientFactory);
+            pahoMessageHandler.setAsync(true);
+            pahoMessageHandler.setAsyncEvents(true);
+            messageHandler = pahoMessageHandler;
+        }
         if (config.getDefaultTopic() != null) {
             messageHandler.setDefaultTopic(config.getDefaultTopic());
         }
         messageHandler.setDefaultQos(config.getDefaultQos());
-        outboundHandlers.put(clientName, messageHandler);
 
-        log.debug("Initialized MQTT client: {}", clientName);
+        // 通过投递跟踪器接收发送/投递完成事件，用于完成异步发送的Future
+        MqttDeliveryTracker deliveryTracker = new MqttDeliveryTracker(clientEventPublisher(clientName));
+        messageHandler.setApplicationEventPublisher(deliveryTracker);
+        if (beanFactory != null) {
+            messageHandler.setBeanFactory(beanFactory);
+        }
+        messageHandler.afterPropertiesSet();
+        return new MqttOutboundConnection(messageHandler, deliveryTracker);
     }
 
-    private void processSubscriptions() {
-        // 为每个客户端创建订阅适配器
-        for (Map.Entry<String, List<SubscriptionInfo>> entry : subscriptions.entrySet()) {
-            String clientName = entry.getKey();
-            List<SubscriptionInfo> clientSubscriptions = entry.getValue();
+    private MqttOutboundSpool createOutboundSpool(String clientName,
+                                                  MqttOutboundPool pool,
+                                                  MqttProperties.ClientConfig config) throws Exception {
+        long deliveryTimeout = config.getDeliveryTimeout() > 0 ?
+                config.getDeliveryTimeout() : SPOOL_DELIVERY_TIMEOUT_MILLIS;
+        return new MqttOutboundSpool(clientName, config.getSpool(),
+                message -> pool.select(message.getHeaders().get(MqttHeaders.TOPIC, String.class))
+                        .sendTracked(message)
+                        .orTimeout(deliveryTimeout, TimeUnit.MILLISECONDS),
+                config.getMaxInflight() * pool.size(),
+                config.getDefaultQos(),
+                applicationEventPublisher);
+    }
 
-            if (clientSubscriptions.isEmpty()) {
-                continue;
+    // 统计连接失败事件并转发给应用上下文，连接断开后出站消息转入离线缓存
+    private ApplicationEventPublisher clientEventPublisher(String clientName) {
+        return event -> {
+            if (event instanceof MqttConnectionFailedEvent) {
+                metrics.connectionFailed(clientName);
+                MqttOutboundSpool spool = outboundSpools.get(clientName);
+                if (spool != null) {
+                    spool.markDisconnected();
+                }
+            } else if (event instanceof MqttSubscribedEvent && reconnectCoordinator != null) {
+                reconnectCoordinator.connected(clientName);
+            }
+            if (applicationEventPublisher != null) {
+                applicationEventPublisher.publishEvent(event);
             }
+        };
+    }
 
-            // 获取客户端配置
-            MqttProperties.ClientConfig config = clientName.equals("default") ?
-                    mqttProperties.getDefaultClient() : mqttProperties.getClients().get(clientName);
+    private Map<String, Future<?>> processSubscriptions(ThreadPoolTaskExecutor executor) {
+        Map<String, Future<?>> adapterStarts = new LinkedHashMap<>();
+        synchronized (subscriptionLock) {
+            // 为每个客户端创建订阅适配器
+            for (Map.Entry<String, List<SubscriptionInfo>> entry : subscriptions.entrySet()) {
+                String clientName = entry.getKey();
+                List<SubscriptionInfo> clientSubscriptions = entry.getValue();
 
-            if (config == null) {
-                log.warn("No configuration found for MQTT client: {}, skipping subscriptions", clientName);
-                continue;
-            }
+                if (clientSubscriptions.isEmpty()) {
+                    continue;
+                }
 
-            // 获取客户端工厂
-            MqttPahoClientFactory clientFactory = clientFactories.get(clientName);
-            if (clientFactory == null) {
-                log.warn("No factory found for MQTT client: {}, skipping subscriptions", clientName);
-                continue;
+                // 获取客户端配置
+                MqttProperties.ClientConfig config = clientConfig(clientName);
+                if (config == null) {
+                    log.warn("No configuration found for MQTT client: {}, skipping subscriptions", clientName);
+                    continue;
+                }
+
+                AbstractMqttMessageDrivenChannelAdapter adapter = createInbound(clientName, config, clientSubscriptions);
+                if (adapter == null) {
+                    continue;
+                }
+                bindInbound(clientName, config, adapter);
+
+                // 启动适配器，懒加载客户端在首次发送消息时启动
+                if (config.isLazy()) {
+                    outboundPools.get(clientName).setConnectAction(
+                            () -> mqttTaskScheduler.execute(() -> connect(clientName)));
+                    log.info("Deferred MQTT subscription adapter for lazy client: {} with topics: {}",
+                            clientName, String.join(", ", adapter.getTopic()));
+                } else {
+                    adapterStarts.put(clientName, executor.submit(() -> connect(clientName)));
+                }
             }
+            subscriptionsProcessed = true;
+        }
+        return adapterStarts;
+    }
 
-            // 获取入站通道
-            DirectChannel inboundChannel = channels.get(clientName + "-inbound");
+    // 创建客户端的入站适配器、路由器和派发器，适配器尚未启动；无法创建时返回null
+    private AbstractMqttMessageDrivenChannelAdapter createInbound(String clientName,
+                                                                  MqttProperties.ClientConfig config,
+                                                                  List<SubscriptionInfo> clientSubscriptions) {
+        // 获取客户端工厂
+        MqttPahoClientFactory clientFactory = clientFactories.get(clientName);
+        if (clientFactory == null) {
+            log.warn("No factory found for MQTT client: {}, skipping subscriptions", clientName);
+            return null;
+        }
 
-            // 创建入站适配器
-            String[] topics = clientSubscriptions.stream()
-                    .map(SubscriptionInfo::getTopic)
-                    .distinct()
-                    .toArray(String[]::new);
+        // 获取入站通道
+        DirectChannel inboundChannel = channels.get(clientName + "-inbound");
 
-            int[] qos = clientSubscriptions.stream()
-                    .map(SubscriptionInfo::getQos)
-                    .mapToInt(Integer::intValue)
-                    .toArray();
+        // 创建入站适配器，共享订阅以 $share/{group}/{filter} 订阅，本地仍按原过滤器路由
+        String sharedGroup = config.getSharedGroup();
+        if (StringUtils.hasLength(sharedGroup)) {
+            TopicTemplate.validateGroup(sharedGroup);
+        }
+        // 重叠的过滤器合并为最小覆盖集，每条消息只投递一次，QoS取被覆盖订阅中的最高值
+        Map<String, Integer> brokerFilters = brokerFilters(clientSubscriptions, sharedGroup);
+        String[] topics = brokerFilters.keySet().toArray(new String[0]);
+        int[] qos = brokerFilters.values().stream().mapToInt(Integer::intValue).toArray();
 
-            MqttPahoMessageDrivenChannelAdapter adapter = new MqttPahoMessageDrivenChannelAdapter(
+        AbstractMqttMessageDrivenChannelAdapter adapter;
+        if (config.getProtocolVersion() == 5) {
+            try {
+                adapter = new Mqttv5ClientFactory(sslContextRegistry, mqttProperties.getReconnect())
+                        .createChannelAdapter(config.getClientId() + "-inbound", config, topics);
+            } catch (Exception e) {
+                log.warn("Failed to create MQTT 5 subscription adapter for client: {}, skipping subscriptions",
+                        clientName, e);
+                return null;
+            }
+        } else {
+            MqttPahoMessageDrivenChannelAdapter pahoAdapter = new MqttPahoMessageDrivenChannelAdapter(
                     config.getClientId() + "-inbound", clientFactory, topics);
-            adapter.setQos(qos);
-            adapter.setConverter(new DefaultPahoMessageConverter());
-            adapter.setOutputChannel(inboundChannel);
-            adapter.setCompletionTimeout(5000);
-            adapter.setTaskScheduler(mqttTaskScheduler);
-
-            // 启动适配器
-            adapter.start();
-            inboundAdapters.put(clientName, adapter);
-
-            // 添加消息处理器
-            inboundChannel.subscribe(message -> {
-                String topic = (String) message.getHeaders().get("mqtt_receivedTopic");
-
-                // 调用默认处理器
-                defaultMqttMessageHandler.handleMessage(message, topic, clientName);
-
-                // 调用特定的订阅方法
-                clientSubscriptions.stream()
-                        .filter(subscription -> {
-                            assert topic != null;
-                            return topicMatches(subscription.getTopic(), topic);
-                        })
-                        .forEach(subscription -> {
-                            try {
-                                ReflectionUtils.makeAccessible(subscription.getMethod());
-                                if (subscription.getMethod().getParameterCount() == 1) {
-                                    subscription.getMethod().invoke(subscription.getBean(), message.getPayload());
-                                } else if (subscription.getMethod().getParameterCount() == 2) {
-                                    subscription.getMethod().invoke(subscription.getBean(),
-                                            message.getPayload(), topic);
-                                } else if (subscription.getMethod().getParameterCount() == 3) {
-                                    subscription.getMethod().invoke(subscription.getBean(),
-                                            message.getPayload(), topic, clientName);
-                                } else {
-                                    subscription.getMethod().invoke(subscription.getBean());
-                                }
-                            } catch (Exception e) {
-                                log.error("Error invoking subscription method: {}",
-                                        subscription.getMethod().getName(), e);
-                            }
-                        });
-            });
+            // 载荷保持为原始字节，由各订阅方法按参数类型转换
+            DefaultPahoMessageConverter converter = new DefaultPahoMessageConverter();
+            converter.setPayloadAsBytes(true);
+            pahoAdapter.setConverter(converter);
+            adapter = pahoAdapter;
+        }
+        adapter.setQos(qos);
+        adapter.setOutputChannel(inboundChannel);
+        adapter.setCompletionTimeout(config.getCompletionTimeout());
+        adapter.setTaskScheduler(reconnectCoordinator != null ?
+                reconnectCoordinator.schedulerFor(clientName) : mqttTaskScheduler);
+        adapter.setApplicationEventPublisher(clientEventPublisher(clientName));
+        if (beanFactory != null) {
+            adapter.setBeanFactory(beanFactory);
+        }
+        adapter.afterPropertiesSet();
+
+        // 构建主题路由器，每条消息只需一次前缀树查找（重复主题直接命中缓存）
+        MqttTopicRouter<SubscriptionInfo> router = new MqttTopicRouter<>(
+                clientSubscriptions, SubscriptionInfo::getTopic, config.getRouteCacheSize());
+        routers.put(clientName, router);
+
+        // 解析派发执行器，启用有序分区时由分区线程执行，不再使用客户端线程池
+        if (config.getDispatch().getPartitions() <= 0) {
+            Executor clientExecutor = dispatchExecutors.createClientExecutor(clientName, config.getDispatch());
+            if (clientExecutor != null) {
+                clientExecutors.put(clientName, clientExecutor);
+            }
+        }
+        for (SubscriptionInfo subscription : clientSubscriptions) {
+            prepareSubscription(clientName, config, subscription);
+        }
 
-            log.info("Started MQTT subscription adapter for client: {} with topics: {}",
-                    clientName, String.join(", ", topics));
+        // 添加消息处理器（在启动适配器之前订阅，避免保留消息到达时通道没有订阅者）
+        MqttInboundDispatcher dispatcher = new MqttInboundDispatcher(
+                clientName, router, defaultMqttMessageHandler, config.getDispatch(), config.getBuffer(), metrics);
+        dispatcher.setCodecChain(codecChains.get(clientName));
+        if (config.getDedup().isEnabled() || clientSubscriptions.stream().anyMatch(SubscriptionInfo::isDedup)) {
+            dispatcher.setDuplicateFilter(createDuplicateFilter(config.getDedup()));
         }
+        dispatcher.start();
+        dispatchers.put(clientName, dispatcher);
+        inboundChannel.subscribe(dispatcher);
+
+        inboundAdapters.put(clientName, adapter);
+        return adapter;
     }
 
-    private boolean topicMatches(String subscription, String actualTopic) {
-        // 将主题分割为段
-        String[] subParts = subscription.split("/");
-        String[] topicParts = actualTopic.split("/");
+    private MqttDuplicateFilter createDuplicateFilter(DedupProperties dedup) {
+        MqttDedupKeyExtractor keyExtractor = null;
+        if (dedup.getKey() == DedupProperties.DedupKey.EXTRACTOR) {
+            Assert.hasText(dedup.getKeyExtractor(), "dedup.key-extractor must be set when dedup.key is EXTRACTOR");
+            Assert.state(beanFactory != null, "BeanFactory is required to resolve dedup.key-extractor");
+            keyExtractor = beanFactory.getBean(dedup.getKeyExtractor(), MqttDedupKeyExtractor.class);
+        }
+        return new MqttDuplicateFilter(dedup, keyExtractor);
+    }
+
+    // 为订阅选择载荷转换器和派发执行器，批量订阅创建消息收集器
+    private void prepareSubscription(String clientName, MqttProperties.ClientConfig config,
+                                     SubscriptionInfo subscription) {
+        subscription.setPayloadDecoder(
+                payloadDecoders.forParameter(subscription.getMethod(),
+                        subscription.getInvoker().getPayloadParameterIndex(), subscription.getBatchSize() > 0));
+        subscription.setExecutor(dispatchExecutors.resolveExecutor(
+                clientName, subscription, config.getDispatch(), clientExecutors.get(clientName)));
+        if (subscription.getBatchSize() > 0) {
+            subscription.setBatchAccumulator(
+                    new MqttBatchAccumulator(subscription, clientName, mqttTaskScheduler, metrics));
+        }
+    }
 
-        // 如果订阅主题以 # 结尾，并且前面的所有部分都匹配，则匹配
-        if (subParts.length > 0 && subParts[subParts.length - 1].equals("#")) {
-            if (topicParts.length < subParts.length - 1) {
-                return false;
+    /**
+     * 运行时添加订阅，不重建入站适配器也不重连：先替换路由器，再通过适配器向 Broker 订阅新的过滤器，
+     * 新过滤器已被 Broker 上的过滤器覆盖时只更新本地路由。客户端还没有订阅连接时创建并启动。
+     * 客户端初始化之前添加的订阅在初始化时与注解订阅一起处理
+     *
+     * @param clientName 客户端名称
+     * @param subscription 订阅信息
+     * @throws IllegalArgumentException 客户端不存在
+     * @throws IllegalStateException 无法创建订阅连接
+     */
+    public void addSubscription(String clientName, SubscriptionInfo subscription) {
+        MqttProperties.ClientConfig config = clientConfig(clientName);
+        Assert.notNull(config, () -> "No configuration found for MQTT client: " + clientName);
+        synchronized (subscriptionLock) {
+            if (!subscriptionsProcessed) {
+                subscriptions.computeIfAbsent(clientName, k -> new ArrayList<>()).add(subscription);
+                return;
             }
 
-            for (int i = 0; i < subParts.length - 1; i++) {
-                if (!subParts[i].equals("+") && !subParts[i].equals(topicParts[i])) {
-                    return false;
+            // 写时复制：订阅列表和路由器整体替换，派发线程读取时无需加锁
+            List<SubscriptionInfo> current = subscriptions.getOrDefault(clientName, Collections.emptyList());
+            List<SubscriptionInfo> updated = new ArrayList<>(current.size() + 1);
+            updated.addAll(current);
+            updated.add(subscription);
+
+            AbstractMqttMessageDrivenChannelAdapter adapter = inboundAdapters.get(clientName);
+            if (adapter == null) {
+                adapter = createInbound(clientName, config, updated);
+                if (adapter == null) {
+                    throw new IllegalStateException("Cannot create MQTT subscription adapter for client: " + clientName);
                 }
+                bindInbound(clientName, config, adapter);
+                subscriptions.put(clientName, updated);
+                connect(clientName);
+                return;
+            }
+
+            prepareSubscription(clientName, config, subscription);
+            MqttInboundDispatcher dispatcher = dispatchers.get(clientName);
+            MqttTopicRouter<SubscriptionInfo> previousRouter = dispatcher.getRouter();
+            MqttTopicRouter<SubscriptionInfo> router = new MqttTopicRouter<>(
+                    updated, SubscriptionInfo::getTopic, config.getRouteCacheSize());
+            dispatcher.setRouter(router);
+
+            try {
+                syncBrokerFilters(clientName, adapter, brokerFilters(updated, config.getSharedGroup()));
+            } catch (RuntimeException e) {
+                dispatcher.setRouter(previousRouter);
+                closeBatchAccumulator(subscription);
+                throw e;
             }
-            return true;
+            routers.put(clientName, router);
+            subscriptions.put(clientName, updated);
+            log.info("Added MQTT subscription: topic={}, qos={}, client={}",
+                    brokerFilter(subscription, config.getSharedGroup()), subscription.getQos(), clientName);
         }
+    }
 
-        // 如果段数不同且不是 # 结尾，则不匹配
-        if (subParts.length != topicParts.length) {
+    /**
+     * 运行时移除订阅。先按剩余订阅重新合并 Broker 过滤器并取消不再需要的过滤器，再替换路由器，
+     * 已收到的消息仍派发给被移除的订阅；批量订阅中剩余的消息在移除时提交
+     *
+     * @param subscription 订阅信息
+     * @return 订阅存在并已移除时为true
+     */
+    public boolean removeSubscription(SubscriptionInfo subscription) {
+        synchronized (subscriptionLock) {
+            for (Map.Entry<String, List<SubscriptionInfo>> entry : subscriptions.entrySet()) {
+                if (entry.getValue().stream().anyMatch(existing -> existing == subscription)) {
+                    removeSubscriptions(entry.getKey(), existing -> existing == subscription);
+                    return true;
+                }
+            }
             return false;
         }
+    }
+
+    /**
+     * 运行时移除客户端在指定过滤器上的所有订阅，包括注解订阅
+     *
+     * @param clientName 客户端名称
+     * @param topic 订阅时使用的过滤器（不含共享订阅前缀）
+     * @return 移除的订阅数
+     */
+    public int removeSubscriptions(String clientName, String topic) {
+        synchronized (subscriptionLock) {
+            return removeSubscriptions(clientName, existing -> existing.getTopic().equals(topic));
+        }
+    }
+
+    private int removeSubscriptions(String clientName, Predicate<SubscriptionInfo> selector) {
+        List<SubscriptionInfo> current = subscriptions.getOrDefault(clientName, Collections.emptyList());
+        List<SubscriptionInfo> removed = new ArrayList<>();
+        List<SubscriptionInfo> updated = new ArrayList<>(current.size());
+        for (SubscriptionInfo existing : current) {
+            (selector.test(existing) ? removed : updated).add(existing);
+        }
+        if (removed.isEmpty()) {
+            return 0;
+        }
+        if (!subscriptionsProcessed) {
+            subscriptions.put(clientName, updated);
+            return removed.size();
+        }
+
+        MqttProperties.ClientConfig config = clientConfig(clientName);
+        AbstractMqttMessageDrivenChannelAdapter adapter = inboundAdapters.get(clientName);
+        if (adapter != null) {
+            syncBrokerFilters(clientName, adapter, brokerFilters(updated, config.getSharedGroup()));
+        }
+
+        MqttInboundDispatcher dispatcher = dispatchers.get(clientName);
+        if (dispatcher != null) {
+            MqttTopicRouter<SubscriptionInfo> router = new MqttTopicRouter<>(
+                    updated, SubscriptionInfo::getTopic, config.getRouteCacheSize());
+            dispatcher.setRouter(router);
+            routers.put(clientName, router);
+        }
+        subscriptions.put(clientName, updated);
+        removed.forEach(this::closeBatchAccumulator);
+        log.info("Removed {} MQTT subscription(s) from client: {}", removed.size(), clientName);
+        return removed.size();
+    }
+
+    /**
+     * 获取客户端当前的订阅
+     *
+     * @param clientName 客户端名称
+     * @return 订阅列表的只读快照
+     */
+    public List<SubscriptionInfo> getSubscriptions(String clientName) {
+        return Collections.unmodifiableList(subscriptions.getOrDefault(clientName, Collections.emptyList()));
+    }
+
+    private void closeBatchAccumulator(SubscriptionInfo subscription) {
+        if (subscription.getBatchAccumulator() != null) {
+            subscription.getBatchAccumulator().close();
+        }
+    }
 
-        // 检查每个段是否匹配
-        for (int i = 0; i < subParts.length; i++) {
-            if (!subParts[i].equals("+") && !subParts[i].equals(topicParts[i])) {
-                return false;
+    /**
+     * 让适配器在 Broker 上的订阅与目标过滤器一致。先订阅新增的过滤器，再取消不再需要的过滤器，
+     * 新的覆盖过滤器生效之前旧的过滤器仍然有效，切换过程中不会漏收消息（可能短暂重复）。
+     * QoS 提高时不取消订阅，直接以新的QoS重新订阅该过滤器；降低时保持原QoS
+     */
+    private void syncBrokerFilters(String clientName, AbstractMqttMessageDrivenChannelAdapter adapter,
+                                   Map<String, Integer> target) {
+        String[] currentTopics = adapter.getTopic();
+        int[] currentQos = adapter.getQos();
+        Map<String, Integer> current = new HashMap<>();
+        for (int i = 0; i < currentTopics.length; i++) {
+            current.put(currentTopics[i], currentQos[i]);
+        }
+
+        for (Map.Entry<String, Integer> entry : target.entrySet()) {
+            Integer qos = current.get(entry.getKey());
+            if (qos == null) {
+                adapter.addTopic(entry.getKey(), entry.getValue());
+            } else if (entry.getValue() > qos) {
+                upgradeQos(clientName, adapter, entry.getKey(), entry.getValue());
             }
         }
+        for (String filter : current.keySet()) {
+            if (target.containsKey(filter)) {
+                continue;
+            }
+            try {
+                adapter.removeTopic(filter);
+            } catch (RuntimeException e) {
+                // 过滤器已从适配器中移除，重连后不会再订阅
+                log.warn("Failed to unsubscribe topic [{}] for client: {}", filter, clientName, e);
+            }
+        }
+    }
+
+    /**
+     * 提高已订阅过滤器的QoS。SUBSCRIBE 一个已存在的过滤器时 Broker 替换原订阅而不中断投递，
+     * 因此直接在订阅连接上重新订阅，而不是先 removeTopic 再 addTopic（两者之间的消息会丢失）；
+     * 随后更新适配器的过滤器表，重连时按新的QoS订阅。适配器没有公开底层客户端，通过反射获取；
+     * 客户端未连接时只更新过滤器表，连接时按新的QoS订阅。
+     * 无法获取底层客户端时不能原地重新订阅，而适配器不允许重复添加同一过滤器，
+     * 只能先 removeTopic 再 addTopic，两者之间到达的消息可能丢失，因此记录警告
+     */
+    private void upgradeQos(String clientName, AbstractMqttMessageDrivenChannelAdapter adapter,
+                            String filter, int qos) {
+        MqttProperties.ClientConfig config = clientConfig(clientName);
+        boolean resubscribed;
+        try {
+            if (adapter instanceof MqttPahoMessageDrivenChannelAdapter) {
+                resubscribed = resubscribe((MqttPahoMessageDrivenChannelAdapter) adapter, filter, qos);
+            } else if (config.getProtocolVersion() == 5) {
+                resubscribed = Mqttv5ClientFactory.resubscribe(adapter, filter, qos, config.getCompletionTimeout());
+            } else {
+                resubscribed = false;
+            }
+        } catch (Exception e) {
+            throw new MessagingException("Failed to upgrade QoS of topic [" + filter + "] to " + qos, e);
+        }
+
+        if (!resubscribed) {
+            log.warn("Cannot access the MQTT client of the subscription adapter for client: {}, " +
+                    "re-subscribing topic [{}] with qos {} by unsubscribing it first", clientName, filter, qos);
+            adapter.removeTopic(filter);
+            adapter.addTopic(filter, qos);
+            return;
+        }
+
+        String[] topics = adapter.getTopic();
+        int[] topicQos = adapter.getQos();
+        for (int i = 0; i < topics.length; i++) {
+            if (topics[i].equals(filter)) {
+                topicQos[i] = qos;
+            }
+        }
+        adapter.setQos(topicQos);
+    }
 
+    // 已重新订阅或客户端未连接时为true，无法获取底层客户端时为false
+    private static boolean resubscribe(MqttPahoMessageDrivenChannelAdapter adapter, String filter, int qos)
+            throws MqttException {
+        Field field = ReflectionUtils.findField(adapter.getClass(), "client", IMqttClient.class);
+        if (field == null) {
+            return false;
+        }
+        ReflectionUtils.makeAccessible(field);
+        IMqttClient client = (IMqttClient) ReflectionUtils.getField(field, adapter);
+        if (client != null && client.isConnected()) {
+            client.subscribe(filter, qos);
+        }
         return true;
     }
 
+    // 客户端订阅合并后的 Broker 过滤器及其QoS
+    private static Map<String, Integer> brokerFilters(List<SubscriptionInfo> clientSubscriptions, String sharedGroup) {
+        Map<String, Integer> filterQos = new LinkedHashMap<>();
+        for (SubscriptionInfo subscription : clientSubscriptions) {
+            filterQos.merge(brokerFilter(subscription, sharedGroup), subscription.getQos(), Math::max);
+        }
+        return TopicFilterConsolidator.consolidate(filterQos);
+    }
+
+    // 订阅在 Broker 上使用的过滤器，共享订阅带 $share/{group}/ 前缀
+    private static String brokerFilter(SubscriptionInfo subscription, String sharedGroup) {
+        return TopicTemplate.sharedFilter(
+                subscription.getGroup() != null ? subscription.getGroup() : sharedGroup, subscription.getTopic());
+    }
+
+    private MqttProperties.ClientConfig clientConfig(String clientName) {
+        return clientName.equals("default") ?
+                mqttProperties.getDefaultClient() : mqttProperties.getClients().get(clientName);
+    }
+
     @Override
     public void destroy() throws Exception {
         // 关闭所有入站适配器
-        for (MqttPahoMessageDrivenChannelAdapter adapter : inboundAdapters.values()) {
+        for (AbstractMqttMessageDrivenChannelAdapter adapter : inboundAdapters.values()) {
             try {
                 adapter.stop();
             } catch (Exception e) {
@@ -321,30 +945,79 @@ public class MqttClientConfiguration implements BeanPostProcessor,
             }
         }
 
+        // 等待分区中的消息处理完成并关闭派发线程池
+        for (MqttInboundDispatcher dispatcher : dispatchers.values()) {
+            dispatcher.stop(DISPATCH_SHUTDOWN_TIMEOUT_MILLIS);
+        }
+
+        // 提交批量订阅中剩余的消息
+        for (List<SubscriptionInfo> clientSubscriptions : subscriptions.values()) {
+            for (SubscriptionInfo subscription : clientSubscriptions) {
+                if (subscription.getBatchAccumulator() != null) {
+                    subscription.getBatchAccumulator().close();
+                }
+            }
+        }
+        dispatchExecutors.shutdown();
+
+        // 刷入并关闭离线缓存，未补发的消息在下次启动时继续补发
+        for (MqttOutboundSpool spool : outboundSpools.values()) {
+            spool.stop();
+        }
+
         log.info("MQTT clients destroyed");
     }
 
+    /**
+     * 启动客户端的订阅连接，已启动时不做任何操作。懒加载客户端只订阅不发送时可以主动调用
+     *
+     * @param clientName 客户端名称
+     */
+    public void connect(String clientName) {
+        AbstractMqttMessageDrivenChannelAdapter adapter = inboundAdapters.get(clientName);
+        if (adapter == null || adapter.isRunning()) {
+            return;
+        }
+        adapter.start();
+        log.info("Started MQTT subscription adapter for client: {} with topics: {}",
+                clientName, String.join(", ", adapter.getTopic()));
+    }
+
+    /**
+     * 获取客户端的连接工厂，响应式订阅等额外连接共用同一工厂
+     *
+     * @param clientName 客户端名称
+     * @return 连接工厂，客户端尚未初始化时为null
+     */
+    public MqttPahoClientFactory getClientFactory(String clientName) {
+        return clientFactories.get(clientName);
+    }
+
+    /**
+     * 获取客户端各有序派发分区的排队深度
+     *
+     * @param clientName 客户端名称
+     * @return 分区排队深度，客户端没有订阅或未启用分区时为空数组
+     */
+    public int[] getLaneDepths(String clientName) {
+        MqttInboundDispatcher dispatcher = dispatchers.get(clientName);
+        return dispatcher == null ? new int[0] : dispatcher.getLaneDepths();
+    }
+
+    /**
+     * 获取客户端的入站消息派发器，可用于读取丢弃、合并计数
+     *
+     * @param clientName 客户端名称
+     * @return 入站消息派发器，客户端没有订阅时为null
+     */
+    public MqttInboundDispatcher getInboundDispatcher(String clientName) {
+        return dispatchers.get(clientName);
+    }
+
     public Map<String, MqttProperties.ClientConfig> getClientConfigs() {
         Map<String, MqttProperties.ClientConfig> configs = new HashMap<>();
         configs.put("default", mqttProperties.getDefaultClient());
         configs.putAll(mqttProperties.getClients());
         return configs;
     }
-
-    // 订阅信息内部类
-    @Getter
-    private static class SubscriptionInfo {
-        private final Object bean;
-        private final Method method;
-        private final String topic;
-        private final int qos;
-
-        public SubscriptionInfo(Object bean, Method method, String topic, int qos) {
-            this.bean = bean;
-            this.method = method;
-            this.topic = topic;
-            this.qos = qos;
-        }
-
-    }
-}
\ No newline at end of file
+}
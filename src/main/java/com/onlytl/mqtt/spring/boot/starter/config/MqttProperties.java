@@ -5,7 +5,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -30,6 +32,22 @@ public class MqttProperties {
     @NestedConfigurationProperty
     private MqttSchedulerConfig threadPool = new MqttSchedulerConfig();
 
+    /**
+     * 启动阶段等待所有客户端初始化和订阅连接完成的总时长（毫秒），超时后未完成的订阅连接在后台继续
+     */
+    private long startupTimeout = 30000;
+
+    /**
+     * 启动阶段并行初始化客户端的线程数
+     */
+    private int startupParallelism = 8;
+
+    /**
+     * 订阅连接断开后的重连配置
+     */
+    @NestedConfigurationProperty
+    private ReconnectProperties reconnect = new ReconnectProperties();
+
     /**
      * 默认客户端配置
      */
@@ -53,6 +71,11 @@ public class MqttProperties {
          */
         private String clientId = "mqtt-client-" + System.currentTimeMillis();
 
+        /**
+         * MQTT协议版本，3 使用 Paho v3 客户端（MQTT 3.1.1），5 使用 Paho v5 客户端，需要引入 org.eclipse.paho.mqttv5.client
+         */
+        private int protocolVersion = 3;
+
         /**
          * 用户名
          */
@@ -73,6 +96,16 @@ public class MqttProperties {
          */
         private int connectionTimeout = 30;
 
+        /**
+         * 订阅连接和订阅操作的完成超时时间（毫秒）
+         */
+        private long completionTimeout = 5000;
+
+        /**
+         * 懒加载：启动时不建立连接，首次发送消息时再启动订阅连接
+         */
+        private boolean lazy = false;
+
         /**
          * 保持连接心跳时间（秒）
          */
@@ -93,10 +126,147 @@ public class MqttProperties {
          */
         private String defaultTopic;
 
+        /**
+         * 异步发送等待投递确认的超时时间（毫秒），0表示不超时
+         */
+        private long deliveryTimeout = 30000;
+
+        /**
+         * 单个连接同时等待确认的最大消息数，同时作为批量发送的窗口大小
+         */
+        private int maxInflight = 10;
+
+        /**
+         * 出站连接数，大于1时使用派生的客户端ID建立多个发布连接
+         */
+        private int poolSize = 1;
+
+        /**
+         * 出站连接的选择策略
+         */
+        private PoolStrategy poolStrategy = PoolStrategy.ROUND_ROBIN;
+
+        /**
+         * 默认共享订阅组，设置后未指定 group 的订阅以 $share/{group}/{filter} 订阅，
+         * 由 Broker 在同组的多个节点之间分配消息
+         */
+        private String sharedGroup;
+
+        /**
+         * 响应式订阅的接收窗口：已收到但下游尚未请求的最大消息数，窗口已满时暂停从连接读取消息
+         */
+        private int receiveWindow = 256;
+
+        /**
+         * QoS 1/2 在途消息的持久化方式
+         */
+        private PersistenceMode persistence = PersistenceMode.FILE;
+
+        /**
+         * 持久化文件目录，FILE 模式未设置时使用工作目录，MMAP 模式未设置时使用 mqtt-persistence
+         */
+        private String persistenceDirectory;
+
+        /**
+         * MMAP 模式下每个连接的日志文件初始大小（字节），存活数据超过时压缩后扩容
+         */
+        private int persistenceLogSize = 8 * 1024 * 1024;
+
+        /**
+         * MQTT 5：会话过期时间（秒），连接断开后 Broker 保留会话和离线消息的时长，未设置时由 clean-session 决定
+         */
+        private Long sessionExpiryInterval;
+
+        /**
+         * MQTT 5：接收最大值，Broker 向本客户端同时下发的未确认 QoS 1/2 消息数上限，未设置时为协议默认值 65535
+         */
+        private Integer receiveMaximum;
+
+        /**
+         * MQTT 5：本客户端接受的入站主题别名数，0表示不接受。出站主题别名由 Broker 在 CONNACK 中给出的上限决定，
+         * 客户端自动为重复发布的主题分配别名
+         */
+        private int topicAliasMaximum = 0;
+
+        /**
+         * MQTT 5：作为用户属性（User Property）发送的消息头名称，支持 * 通配符，如 trace-*。
+         * 收到的用户属性总是映射为消息头
+         */
+        private List<String> userPropertyHeaders = new ArrayList<>();
+
+        /**
+         * 主题路由缓存的最大主题数，0表示不缓存
+         */
+        private int routeCacheSize = 10000;
+
+        /**
+         * 入站消息派发配置
+         */
+        @NestedConfigurationProperty
+        private DispatchProperties dispatch = new DispatchProperties();
+
+        /**
+         * 入站缓冲区配置
+         */
+        @NestedConfigurationProperty
+        private BufferProperties buffer = new BufferProperties();
+
+        /**
+         * 入站消息去重配置
+         */
+        @NestedConfigurationProperty
+        private DedupProperties dedup = new DedupProperties();
+
+        /**
+         * 离线出站缓存配置
+         */
+        @NestedConfigurationProperty
+        private SpoolProperties spool = new SpoolProperties();
+
+        /**
+         * 载荷编码（压缩）配置
+         */
+        @NestedConfigurationProperty
+        private CodecProperties codec = new CodecProperties();
+
         /**
          * SSL配置
          */
         @NestedConfigurationProperty
         private SslProperties ssl = new SslProperties();
     }
+
+    public enum PoolStrategy {
+        /**
+         * 依次轮询各连接
+         */
+        ROUND_ROBIN,
+
+        /**
+         * 选择等待确认消息最少的连接
+         */
+        LEAST_INFLIGHT,
+
+        /**
+         * 按主题哈希选择连接，同一主题的消息保持顺序
+         */
+        TOPIC_HASH
+    }
+
+    public enum PersistenceMode {
+        /**
+         * 保存在内存中，进程退出后在途消息丢失
+         */
+        MEMORY,
+
+        /**
+         * 追加写入内存映射日志，定期压缩，重启后恢复在途消息
+         */
+        MMAP,
+
+        /**
+         * Paho 默认的文件持久化，每条在途消息一个文件
+         */
+        FILE
+    }
 }
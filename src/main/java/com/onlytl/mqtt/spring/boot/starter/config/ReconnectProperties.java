@@ -0,0 +1,41 @@
+package com.onlytl.mqtt.spring.boot.starter.config;
+
+
+import lombok.Data;
+
+/**
+ * <p>
+ * ReconnectProperties
+ * </p >
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Data
+public class ReconnectProperties {
+
+    /**
+     * 是否由重连协调器调度订阅连接的重连，关闭时使用 Spring Integration 的固定间隔重连
+     */
+    private boolean enabled = true;
+
+    /**
+     * 首次重连的最大等待时间（毫秒），实际等待时间在 0 到该值之间随机
+     */
+    private long initialInterval = 1000;
+
+    /**
+     * 每次失败后等待上限的倍数
+     */
+    private double multiplier = 2.0;
+
+    /**
+     * 等待上限的最大值（毫秒）
+     */
+    private long maxInterval = 60000;
+
+    /**
+     * 整个应用同时进行的连接和重新订阅数
+     */
+    private int maxConcurrent = 4;
+}
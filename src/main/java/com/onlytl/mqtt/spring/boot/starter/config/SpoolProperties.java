@@ -0,0 +1,83 @@
+package com.onlytl.mqtt.spring.boot.starter.config;
+
+
+import lombok.Data;
+
+/**
+ * <p>
+ * SpoolProperties
+ * </p >
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Data
+public class SpoolProperties {
+
+    /**
+     * 是否启用离线出站缓存：连接断开时发送的消息写入磁盘，恢复后按顺序补发
+     */
+    private boolean enabled = false;
+
+    /**
+     * 缓存文件目录
+     */
+    private String directory = "mqtt-spool";
+
+    /**
+     * 单个分段文件的最大字节数
+     */
+    private long segmentSize = 16 * 1024 * 1024;
+
+    /**
+     * 缓存的最大字节数，超过时按 dropPolicy 处理
+     */
+    private long maxSize = 256 * 1024 * 1024;
+
+    /**
+     * 高水位（占 maxSize 的比例），超过时发布 MqttSpoolWatermarkEvent
+     */
+    private double highWatermark = 0.8;
+
+    /**
+     * 低水位（占 maxSize 的比例），超过高水位后回落到此值以下时再次发布事件
+     */
+    private double lowWatermark = 0.5;
+
+    /**
+     * 缓存已满时的处理策略
+     */
+    private DropPolicy dropPolicy = DropPolicy.REJECT;
+
+    /**
+     * 补发速率（条/秒），0表示不限速；同时等待确认的消息数不超过客户端的 in-flight 窗口
+     */
+    private int drainRate = 0;
+
+    /**
+     * 写缓冲刷入文件的间隔（毫秒），进程崩溃时可能丢失此间隔内写入的消息
+     */
+    private long flushInterval = 200;
+
+    /**
+     * 补发失败后的重试间隔（毫秒）
+     */
+    private long retryInterval = 1000;
+
+    public enum DropPolicy {
+        /**
+         * 拒绝新消息，发送方法抛出异常
+         */
+        REJECT,
+
+        /**
+         * 丢弃新消息
+         */
+        DROP_NEWEST,
+
+        /**
+         * 丢弃最早的分段文件
+         */
+        DROP_OLDEST
+    }
+}
@@ -74,6 +74,16 @@ public class SslProperties {
      */
     private boolean verifyHostname = true;
 
+    /**
+     * 检查证书文件是否变化的间隔（毫秒），0表示不检查；变化后重新加载证书
+     */
+    private long reloadInterval = 0;
+
+    /**
+     * 重新加载证书后，已建立的连接逐个重连的间隔（毫秒），每次另加不超过一半间隔的随机抖动
+     */
+    private long rolloverInterval = 5000;
+
     public enum CertType {
         /**
          * PEM格式证书
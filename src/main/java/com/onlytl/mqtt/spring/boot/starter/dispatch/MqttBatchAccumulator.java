@@ -0,0 +1,207 @@
+package com.onlytl.mqtt.spring.boot.starter.dispatch;
+
+
+import com.onlytl.mqtt.spring.boot.starter.metrics.MqttMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ResolvableType;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * MqttBatchAccumulator
+ * </p >
+ * 批量订阅的消息收集器：达到批次大小或等待超时后把整批消息交给订阅方法。
+ * 超时提交由 MQTT 任务调度器驱动。提交的批次进入订阅自己的队列，同一时刻只有一个任务在派发执行器中
+ * 依次取出并调用，因此同一订阅的批次按提交顺序串行执行，不会占用多个线程等待。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Slf4j
+public class MqttBatchAccumulator {
+
+    private final SubscriptionInfo subscription;
+    private final String clientName;
+    private final TaskScheduler taskScheduler;
+    private final boolean messageElements;
+    private final MqttMetrics metrics;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // 已提交、等待调用的批次
+    private final Queue<List<Object>> pending = new ConcurrentLinkedQueue<>();
+
+    // 是否已有任务在取出并调用批次，同一订阅的批次只由一个任务串行调用
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private List<Object> batch;
+    private ScheduledFuture<?> timeoutFuture;
+
+    public MqttBatchAccumulator(SubscriptionInfo subscription, String clientName, TaskScheduler taskScheduler) {
+        this(subscription, clientName, taskScheduler, MqttMetrics.NOOP);
+    }
+
+    public MqttBatchAccumulator(SubscriptionInfo subscription, String clientName, TaskScheduler taskScheduler,
+                                MqttMetrics metrics) {
+        this.subscription = subscription;
+        this.clientName = clientName;
+        this.taskScheduler = taskScheduler;
+        this.metrics = metrics;
+        this.messageElements = isMessageList(subscription.getMethod());
+        this.batch = new ArrayList<>(subscription.getBatchSize());
+    }
+
+    /**
+     * 加入一条消息，批次已满时立即提交
+     *
+     * @param message 消息
+     */
+    public void add(Message<?> message) {
+        Object element;
+        try {
+            Object payload = subscription.decodePayload(message.getPayload());
+            element = !messageElements ? payload : payload == message.getPayload() ?
+                    message : new GenericMessage<>(payload, message.getHeaders());
+        } catch (Exception e) {
+            log.error("Cannot convert payload for batch subscription method: {}", subscription.getMethod().getName(), e);
+            return;
+        }
+
+        List<Object> full = null;
+        lock.lock();
+        try {
+            batch.add(element);
+            if (batch.size() >= subscription.getBatchSize()) {
+                full = takeBatch();
+            } else if (batch.size() == 1) {
+                timeoutFuture = taskScheduler.schedule(this::flushOnTimeout,
+                        Instant.now().plus(Duration.ofMillis(subscription.getBatchTimeoutMs())));
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (full != null) {
+            submit(full);
+        }
+    }
+
+    /**
+     * 取消超时任务并提交剩余消息。剩余消息排在已提交的批次之后，
+     * 没有任务正在调用批次时在当前线程调用，否则由正在执行的任务调用
+     */
+    public void close() {
+        List<Object> remaining;
+        lock.lock();
+        try {
+            remaining = batch.isEmpty() ? null : takeBatch();
+        } finally {
+            lock.unlock();
+        }
+        if (remaining != null) {
+            pending.add(remaining);
+        }
+        if (!pending.isEmpty() && draining.compareAndSet(false, true)) {
+            drain();
+        }
+    }
+
+    private void flushOnTimeout() {
+        List<Object> pending;
+        lock.lock();
+        try {
+            pending = batch.isEmpty() ? null : takeBatch();
+        } finally {
+            lock.unlock();
+        }
+        if (pending != null) {
+            submit(pending);
+        }
+    }
+
+    // 在持有锁的情况下取出当前批次并取消超时任务
+    private List<Object> takeBatch() {
+        List<Object> taken = batch;
+        batch = new ArrayList<>(subscription.getBatchSize());
+        if (timeoutFuture != null) {
+            timeoutFuture.cancel(false);
+            timeoutFuture = null;
+        }
+        return taken;
+    }
+
+    // 批次入队，没有任务在调用批次时启动一个；没有派发执行器时在当前线程调用
+    private void submit(List<Object> elements) {
+        pending.add(elements);
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        Executor executor = subscription.getExecutor();
+        if (executor == null) {
+            drain();
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            int rejected = 0;
+            List<Object> dropped;
+            while ((dropped = pending.poll()) != null) {
+                rejected += dropped.size();
+            }
+            draining.set(false);
+            log.error("Dispatch executor rejected {} batched messages for subscription method: {}",
+                    rejected, subscription.getMethod().getName(), e);
+        }
+    }
+
+    // 依次调用队列中的批次；退出前再检查一次，避免释放标记时刚入队的批次无人调用
+    private void drain() {
+        do {
+            List<Object> elements;
+            while ((elements = pending.poll()) != null) {
+                invoke(elements);
+            }
+            draining.set(false);
+        } while (!pending.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    private void invoke(List<Object> elements) {
+        boolean timed = metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0L;
+        boolean success = false;
+        try {
+            subscription.getInvoker().invoke(elements, subscription.getTopic(), clientName);
+            success = true;
+        } catch (Throwable e) {
+            log.error("Error invoking batch subscription method: {}", subscription.getMethod().getName(), e);
+        } finally {
+            if (timed) {
+                metrics.handlerExecuted(clientName, subscription.getTopic(), System.nanoTime() - start, success);
+            }
+        }
+    }
+
+    private static boolean isMessageList(Method method) {
+        if (method.getParameterCount() == 0) {
+            return false;
+        }
+        Class<?> elementType = ResolvableType.forMethodParameter(method, 0).asCollection().resolveGeneric(0);
+        return elementType != null && Message.class.isAssignableFrom(elementType);
+    }
+}
@@ -0,0 +1,26 @@
+package com.onlytl.mqtt.spring.boot.starter.dispatch;
+
+
+import org.springframework.messaging.Message;
+
+/**
+ * <p>
+ * MqttDedupKeyExtractor
+ * </p >
+ * 自定义的消息去重键，例如载荷中的业务单号。通过 dedup.key-extractor 指定 Bean 名称
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@FunctionalInterface
+public interface MqttDedupKeyExtractor {
+
+    /**
+     * 提取去重键
+     *
+     * @param message 消息，载荷为解码后的原始字节
+     * @param topic 主题
+     * @return 去重键，为null时该消息不去重
+     */
+    Object extractKey(Message<?> message, String topic);
+}
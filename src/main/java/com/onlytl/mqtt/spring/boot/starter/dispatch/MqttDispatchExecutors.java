@@ -0,0 +1,125 @@
+package com.onlytl.mqtt.spring.boot.starter.dispatch;
+
+
+import com.onlytl.mqtt.spring.boot.starter.config.DispatchProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * <p>
+ * MqttDispatchExecutors
+ * </p >
+ * 解析并管理订阅方法的派发执行器
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Slf4j
+public class MqttDispatchExecutors {
+
+    private final BeanFactory beanFactory;
+
+    // 由本类创建、需要在关闭时释放的线程池
+    private final List<ThreadPoolTaskExecutor> managedPools = new CopyOnWriteArrayList<>();
+    private final List<ExecutorService> managedServices = new CopyOnWriteArrayList<>();
+
+    public MqttDispatchExecutors(BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    /**
+     * 创建客户端级别的派发执行器
+     *
+     * @param clientName 客户端名称
+     * @param dispatch 派发配置
+     * @return 派发执行器，为null表示在MQTT回调线程中执行
+     */
+    public Executor createClientExecutor(String clientName, DispatchProperties dispatch) {
+        if (dispatch.isVirtualThreads()) {
+            ExecutorService virtualThreadExecutor = newVirtualThreadExecutor();
+            if (virtualThreadExecutor != null) {
+                managedServices.add(virtualThreadExecutor);
+                log.info("Dispatching MQTT messages of client [{}] on virtual threads", clientName);
+                return virtualThreadExecutor;
+            }
+            log.warn("Virtual threads are not supported by this JVM, client [{}] falls back to the dispatch pool",
+                    clientName);
+        }
+
+        if (dispatch.getPoolSize() <= 0) {
+            return null;
+        }
+        return createPool("mqtt-" + clientName + "-dispatch-", dispatch.getPoolSize(), dispatch.getQueueCapacity());
+    }
+
+    /**
+     * 解析订阅方法的派发执行器
+     *
+     * @param clientName 客户端名称
+     * @param subscription 订阅信息
+     * @param dispatch 派发配置
+     * @param clientExecutor 客户端级别的派发执行器
+     * @return 派发执行器，为null表示在MQTT回调线程中执行
+     */
+    public Executor resolveExecutor(String clientName, SubscriptionInfo subscription,
+                                    DispatchProperties dispatch, Executor clientExecutor) {
+        if (StringUtils.hasText(subscription.getExecutorName())) {
+            Assert.state(beanFactory != null, "BeanFactory is required to resolve executor beans");
+            return beanFactory.getBean(subscription.getExecutorName(), Executor.class);
+        }
+        if (subscription.getConcurrency() > 0) {
+            return createPool("mqtt-" + clientName + "-" + subscription.getMethod().getName() + "-",
+                    subscription.getConcurrency(), dispatch.getQueueCapacity());
+        }
+        return clientExecutor;
+    }
+
+    /**
+     * 关闭所有由本类创建的线程池，等待已提交的任务执行完成
+     */
+    public void shutdown() {
+        for (ThreadPoolTaskExecutor pool : managedPools) {
+            pool.shutdown();
+        }
+        for (ExecutorService service : managedServices) {
+            service.shutdown();
+        }
+        managedPools.clear();
+        managedServices.clear();
+    }
+
+    private Executor createPool(String threadNamePrefix, int poolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        // 队列满时由提交线程执行，把压力反馈给上游而不是无限堆积
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        managedPools.add(executor);
+        return executor;
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
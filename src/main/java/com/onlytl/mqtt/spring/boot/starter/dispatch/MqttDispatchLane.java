@@ -0,0 +1,100 @@
+package com.onlytl.mqtt.spring.boot.starter.dispatch;
+
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * MqttDispatchLane
+ * </p >
+ * 单线程派发分区，分区内的消息严格按入队顺序处理
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Slf4j
+public class MqttDispatchLane {
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final MqttInboundQueue queue;
+    private final Consumer<Message<?>> consumer;
+    private final Thread worker;
+
+    private volatile boolean running = true;
+
+    public MqttDispatchLane(String name, MqttInboundQueue queue, Consumer<Message<?>> consumer) {
+        this.queue = queue;
+        this.consumer = consumer;
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+    }
+
+    public void start() {
+        worker.start();
+    }
+
+    /**
+     * 消息入队
+     *
+     * @param message 消息
+     * @return 消息是否被接收
+     */
+    public boolean offer(Message<?> message) {
+        return queue.offer(message);
+    }
+
+    /**
+     * 当前排队的消息数
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public MqttInboundQueue getQueue() {
+        return queue;
+    }
+
+    /**
+     * 停止分区，等待已入队的消息处理完成
+     *
+     * @param timeoutMillis 最长等待时间
+     */
+    public void stop(long timeoutMillis) {
+        running = false;
+        try {
+            worker.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            log.warn("Dispatch lane [{}] did not drain within {} ms, {} messages discarded",
+                    worker.getName(), timeoutMillis, queue.size());
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            Message<?> message;
+            try {
+                message = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (message == null) {
+                continue;
+            }
+            try {
+                consumer.accept(message);
+            } catch (Throwable e) {
+                log.error("Error dispatching MQTT message in lane [{}]", worker.getName(), e);
+            }
+        }
+    }
+}
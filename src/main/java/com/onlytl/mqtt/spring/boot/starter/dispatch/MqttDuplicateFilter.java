@@ -0,0 +1,145 @@
+package com.onlytl.mqtt.spring.boot.starter.dispatch;
+
+
+import com.onlytl.mqtt.spring.boot.starter.config.DedupProperties;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * <p>
+ * MqttDuplicateFilter
+ * </p >
+ * 入站消息去重：按配置计算64位消息指纹，在 {@link MqttFingerprintCache} 中查询保留时间内是否出现过。
+ * MESSAGE_ID 方式记录每条QoS 1/2消息的主题、报文ID和载荷哈希，只有带重发标记的消息才查询。
+ * 报文ID在会话内复用，新消息首次传输被收到时覆盖旧指纹；首次传输在断线中丢失、只收到重发时，
+ * 仅凭主题和报文ID会与保留时间内复用同一ID的旧消息混淆，因此指纹包含载荷，内容不同的消息不会被误判为重复。
+ * 保留时间内同一主题复用同一报文ID、且载荷完全相同的消息仍会被视为重复。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class MqttDuplicateFilter {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final DedupProperties.DedupKey type;
+    private final String header;
+    private final MqttDedupKeyExtractor keyExtractor;
+    private final boolean clientWide;
+    private final MqttFingerprintCache cache;
+
+    /**
+     * @param dedup 去重配置
+     * @param keyExtractor 自定义指纹提取器，只有 EXTRACTOR 方式需要
+     */
+    public MqttDuplicateFilter(DedupProperties dedup, MqttDedupKeyExtractor keyExtractor) {
+        this.type = dedup.getKey();
+        this.header = dedup.getHeader();
+        this.keyExtractor = keyExtractor;
+        this.clientWide = dedup.isEnabled();
+        Assert.isTrue(type != DedupProperties.DedupKey.HEADER || StringUtils.hasText(header),
+                "dedup.header must be set when dedup.key is HEADER");
+        Assert.isTrue(type != DedupProperties.DedupKey.EXTRACTOR || keyExtractor != null,
+                "dedup.key-extractor must be set when dedup.key is EXTRACTOR");
+        this.cache = new MqttFingerprintCache(dedup.getCapacity(), dedup.getTtl());
+    }
+
+    /**
+     * 判断消息是否重复，并记录消息指纹
+     *
+     * @param message 消息，载荷已解码
+     * @param topic 主题
+     * @return 重复时为true
+     */
+    public boolean isDuplicate(Message<?> message, String topic) {
+        MessageHeaders headers = message.getHeaders();
+        switch (type) {
+            case PAYLOAD:
+                return cache.checkAndPut(hashPayload(hash(FNV_OFFSET, topic), message.getPayload()));
+            case HEADER:
+                return checkKey(topic, headers.get(header));
+            case EXTRACTOR:
+                return checkKey(topic, keyExtractor.extractKey(message, topic));
+            case MESSAGE_ID:
+            default:
+                Integer id = headers.get(MqttHeaders.ID, Integer.class);
+                // QoS 0 消息没有报文ID，也不会重发
+                if (id == null || id == 0) {
+                    return false;
+                }
+                // 报文ID会复用，加入载荷哈希，复用ID的新消息与旧消息内容不同时指纹不同
+                long fingerprint = hashPayload((hash(FNV_OFFSET, topic) ^ id) * FNV_PRIME, message.getPayload());
+                if (Boolean.TRUE.equals(headers.get(MqttHeaders.DUPLICATE, Boolean.class))) {
+                    return cache.checkAndPut(fingerprint);
+                }
+                cache.put(fingerprint);
+                return false;
+        }
+    }
+
+    /**
+     * 是否对客户端的所有消息去重，为false时只对声明了 dedup 的订阅方法去重
+     */
+    public boolean isClientWide() {
+        return clientWide;
+    }
+
+    /**
+     * 命中的重复消息总数
+     */
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    /**
+     * 未过期就被淘汰的指纹总数
+     */
+    public long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+
+    private boolean checkKey(String topic, Object key) {
+        if (key == null) {
+            return false;
+        }
+        long h = hash(FNV_OFFSET, topic);
+        return cache.checkAndPut(key instanceof byte[] ? hashPayload(h, key) : mix(hash(h, key.toString())));
+    }
+
+    private static long hashPayload(long seed, Object payload) {
+        if (payload instanceof byte[]) {
+            long h = seed;
+            for (byte b : (byte[]) payload) {
+                h = (h ^ (b & 0xFF)) * FNV_PRIME;
+            }
+            return mix(h);
+        }
+        return mix(hash(seed, String.valueOf(payload)));
+    }
+
+    // FNV-1a，按字符计算，不创建字节数组
+    private static long hash(long seed, String value) {
+        long h = seed;
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                h = (h ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        // 分隔主题与键，避免拼接后相同
+        return (h ^ 0xFF) * FNV_PRIME;
+    }
+
+    // 64位哈希的终混，使低位和高位都均匀分布
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,125 @@
+package com.onlytl.mqtt.spring.boot.starter.dispatch;
+
+
+import org.springframework.util.Assert;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * MqttFingerprintCache
+ * </p >
+ * 有界、按时间过期的消息指纹缓存。指纹按哈希值分配到固定的槽位组（每组4个槽位），
+ * 槽位组满时淘汰其中最早过期的指纹，内存占用在创建时确定，不随消息量增长。
+ * 槽位组按哈希值分段加锁，每次访问只锁住一个分段并扫描4个槽位，不分配对象。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class MqttFingerprintCache {
+
+    private static final int WAYS = 4;
+
+    private static final int MAX_STRIPES = 64;
+
+    // 0 表示空槽位
+    private final long[] fingerprints;
+    private final long[] expiresAt;
+    private final Object[] locks;
+    private final int bucketMask;
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity 最多保留的指纹数，向上取整为4的2次幂倍
+     * @param ttlMillis 指纹保留时间（毫秒）
+     */
+    public MqttFingerprintCache(int capacity, long ttlMillis) {
+        Assert.isTrue(capacity > 0, "Dedup capacity must be positive");
+        Assert.isTrue(ttlMillis > 0, "Dedup ttl must be positive");
+        int buckets = Integer.highestOneBit(Math.max(1, (capacity + WAYS - 1) / WAYS));
+        if (buckets * WAYS < capacity) {
+            buckets <<= 1;
+        }
+        this.fingerprints = new long[buckets * WAYS];
+        this.expiresAt = new long[buckets * WAYS];
+        this.locks = new Object[Math.min(MAX_STRIPES, buckets)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        this.bucketMask = buckets - 1;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    /**
+     * 查询指纹，未命中时记录
+     *
+     * @param fingerprint 消息指纹
+     * @return 指纹在保留时间内出现过时为true
+     */
+    public boolean checkAndPut(long fingerprint) {
+        return access(fingerprint, true);
+    }
+
+    /**
+     * 记录指纹，已存在时重新计算保留时间
+     *
+     * @param fingerprint 消息指纹
+     */
+    public void put(long fingerprint) {
+        access(fingerprint, false);
+    }
+
+    /**
+     * 命中的重复消息总数
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * 未过期就被淘汰的指纹总数，持续增长说明容量不足以覆盖保留时间内的消息量
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int getCapacity() {
+        return fingerprints.length;
+    }
+
+    private boolean access(long fingerprint, boolean check) {
+        long key = fingerprint == 0 ? 1 : fingerprint;
+        int bucket = (int) (key ^ (key >>> 32)) & bucketMask;
+        int base = bucket * WAYS;
+        long now = System.nanoTime();
+        synchronized (locks[bucket & (locks.length - 1)]) {
+            int victim = base;
+            long victimRemaining = Long.MAX_VALUE;
+            for (int i = base; i < base + WAYS; i++) {
+                if (fingerprints[i] == key) {
+                    if (check && expiresAt[i] - now > 0) {
+                        hits.increment();
+                        return true;
+                    }
+                    expiresAt[i] = now + ttlNanos;
+                    return false;
+                }
+                // 空槽位和已过期的槽位优先，其次是最早过期的槽位
+                long remaining = fingerprints[i] == 0 ? Long.MIN_VALUE : expiresAt[i] - now;
+                if (remaining < victimRemaining) {
+                    victim = i;
+                    victimRemaining = remaining;
+                }
+            }
+            if (fingerprints[victim] != 0 && victimRemaining > 0) {
+                evictions.increment();
+            }
+            fingerprints[victim] = key;
+            expiresAt[victim] = now + ttlNanos;
+            return false;
+        }
+    }
+}
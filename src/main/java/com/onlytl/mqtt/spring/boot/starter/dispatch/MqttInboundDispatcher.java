@@ -0,0 +1,300 @@
+package com.onlytl.mqtt.spring.boot.starter.dispatch;
+
+
+import com.onlytl.mqtt.spring.boot.starter.codec.MqttCodecChain;
+import com.onlytl.mqtt.spring.boot.starter.config.BufferProperties;
+import com.onlytl.mqtt.spring.boot.starter.config.DispatchProperties;
+import com.onlytl.mqtt.spring.boot.starter.handler.DefaultMqttMessageHandler;
+import com.onlytl.mqtt.spring.boot.starter.handler.MqttMessageHandler;
+import com.onlytl.mqtt.spring.boot.starter.metrics.MqttMetrics;
+import com.onlytl.mqtt.spring.boot.starter.router.MqttTopicRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.GenericMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * <p>
+ * MqttInboundDispatcher
+ * </p >
+ * 客户端入站消息派发器：按主题路由到订阅方法，并在订阅方法各自的执行器中调用。
+ * 配置了有序分区或入站缓冲区时，消息先按分区键进入对应的单线程分区，再在分区线程中路由和调用，
+ * MQTT回调线程只负责入队。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Slf4j
+public class MqttInboundDispatcher implements MessageHandler {
+
+    private final String clientName;
+    // 运行时增删订阅时整体替换，每条消息只读取一次
+    private volatile MqttTopicRouter<SubscriptionInfo> router;
+    private final MqttMessageHandler defaultMqttMessageHandler;
+    private final MqttMetrics metrics;
+
+    // 默认的全局处理器不做任何处理，不需要解码字符串
+    private final boolean textForDefaultHandler;
+
+    // 有序派发分区，未启用分区时为null
+    private final MqttDispatchLane[] lanes;
+    private final MqttPartitionKeyExtractor partitionKeyExtractor;
+
+    // 载荷编码链，未启用编码时为null
+    private volatile MqttCodecChain codecChain;
+
+    // 重复消息过滤器，客户端和订阅方法都未启用去重时为null
+    private volatile MqttDuplicateFilter duplicateFilter;
+
+    public MqttInboundDispatcher(String clientName,
+                                 MqttTopicRouter<SubscriptionInfo> router,
+                                 MqttMessageHandler defaultMqttMessageHandler,
+                                 DispatchProperties dispatch,
+                                 BufferProperties buffer) {
+        this(clientName, router, defaultMqttMessageHandler, dispatch, buffer, MqttMetrics.NOOP);
+    }
+
+    public MqttInboundDispatcher(String clientName,
+                                 MqttTopicRouter<SubscriptionInfo> router,
+                                 MqttMessageHandler defaultMqttMessageHandler,
+                                 DispatchProperties dispatch,
+                                 BufferProperties buffer,
+                                 MqttMetrics metrics) {
+        this.clientName = clientName;
+        this.router = router;
+        this.defaultMqttMessageHandler = defaultMqttMessageHandler;
+        this.metrics = metrics;
+        this.textForDefaultHandler = defaultMqttMessageHandler.getClass() != DefaultMqttMessageHandler.class;
+
+        if (dispatch.getPartitions() > 0 || buffer.getCapacity() > 0) {
+            this.partitionKeyExtractor = new MqttPartitionKeyExtractor(dispatch);
+            this.lanes = new MqttDispatchLane[Math.max(1, dispatch.getPartitions())];
+            // 缓冲区容量平均分配到各分区
+            int laneCapacity = (buffer.getCapacity() + lanes.length - 1) / lanes.length;
+            for (int i = 0; i < lanes.length; i++) {
+                MqttInboundQueue queue = buffer.getCapacity() > 0 ?
+                        new MqttInboundQueue(laneCapacity, buffer.getOverflowPolicy(), buffer.getBlockTimeout()) :
+                        new MqttInboundQueue();
+                lanes[i] = new MqttDispatchLane("mqtt-" + clientName + "-lane-" + i, queue, this::dispatch);
+            }
+        } else {
+            this.partitionKeyExtractor = null;
+            this.lanes = null;
+        }
+    }
+
+    public void start() {
+        if (lanes != null) {
+            for (MqttDispatchLane lane : lanes) {
+                lane.start();
+            }
+        }
+    }
+
+    /**
+     * 停止派发，等待分区中已入队的消息处理完成
+     *
+     * @param timeoutMillis 每个分区的最长等待时间
+     */
+    public void stop(long timeoutMillis) {
+        if (lanes != null) {
+            for (MqttDispatchLane lane : lanes) {
+                lane.stop(timeoutMillis);
+            }
+        }
+    }
+
+    @Override
+    public void handleMessage(Message<?> message) {
+        metrics.messageReceived(clientName);
+        if (lanes == null) {
+            dispatch(message);
+            return;
+        }
+
+        MqttDispatchLane lane = lanes[0];
+        if (lanes.length > 1) {
+            String topic = message.getHeaders().get(MqttHeaders.RECEIVED_TOPIC, String.class);
+            int hash = partitionKeyExtractor.hash(message, topic);
+            lane = lanes[Math.floorMod(hash ^ (hash >>> 16), lanes.length)];
+        }
+        if (!lane.offer(message) && log.isDebugEnabled()) {
+            log.debug("Inbound buffer of client [{}] is full, dropped message on topic [{}]",
+                    clientName, message.getHeaders().get(MqttHeaders.RECEIVED_TOPIC));
+        }
+    }
+
+    /**
+     * 设置载荷编码链，编码过的载荷在路由和调用订阅方法之前解码，每条消息只解码一次
+     *
+     * @param codecChain 载荷编码链
+     */
+    public void setCodecChain(MqttCodecChain codecChain) {
+        this.codecChain = codecChain;
+    }
+
+    /**
+     * 设置重复消息过滤器。过滤器对客户端生效时重复消息直接丢弃，否则只跳过声明了 dedup 的订阅方法
+     *
+     * @param duplicateFilter 重复消息过滤器
+     */
+    public void setDuplicateFilter(MqttDuplicateFilter duplicateFilter) {
+        this.duplicateFilter = duplicateFilter;
+    }
+
+    public MqttDuplicateFilter getDuplicateFilter() {
+        return duplicateFilter;
+    }
+
+    /**
+     * 替换主题路由器。新路由器包含完整的订阅列表，替换后派发的消息使用新路由器，
+     * 分区中已入队的消息不受影响，仍会在派发时路由
+     *
+     * @param router 主题路由器
+     */
+    public void setRouter(MqttTopicRouter<SubscriptionInfo> router) {
+        this.router = router;
+    }
+
+    public MqttTopicRouter<SubscriptionInfo> getRouter() {
+        return router;
+    }
+
+    /**
+     * 因入站缓冲区已满被丢弃的消息总数
+     */
+    public long getDroppedCount() {
+        long dropped = 0;
+        if (lanes != null) {
+            for (MqttDispatchLane lane : lanes) {
+                dropped += lane.getQueue().getDroppedCount();
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * 被同主题新消息合并掉的消息总数
+     */
+    public long getConflatedCount() {
+        long conflated = 0;
+        if (lanes != null) {
+            for (MqttDispatchLane lane : lanes) {
+                conflated += lane.getQueue().getConflatedCount();
+            }
+        }
+        return conflated;
+    }
+
+    /**
+     * 各分区当前排队的消息数，用于发现热点分区
+     *
+     * @return 分区排队深度，未启用分区时为空数组
+     */
+    public int[] getLaneDepths() {
+        if (lanes == null) {
+            return new int[0];
+        }
+        int[] depths = new int[lanes.length];
+        for (int i = 0; i < lanes.length; i++) {
+            depths[i] = lanes[i].getQueueDepth();
+        }
+        return depths;
+    }
+
+    private void dispatch(Message<?> received) {
+        String topic = received.getHeaders().get(MqttHeaders.RECEIVED_TOPIC, String.class);
+        Message<?> message = decode(received, topic);
+
+        // 在解码之后计算指纹，编码与否不影响去重；只对客户端整体去重时才对每条消息计算
+        MqttDuplicateFilter duplicateFilter = this.duplicateFilter;
+        boolean clientWide = duplicateFilter != null && duplicateFilter.isClientWide();
+        if (clientWide && duplicateFilter.isDuplicate(message, topic)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Skipped duplicate message on topic [{}] for client [{}]", topic, clientName);
+            }
+            return;
+        }
+
+        // 调用默认处理器，自定义处理器仍然收到字符串载荷
+        if (textForDefaultHandler && message.getPayload() instanceof byte[]) {
+            defaultMqttMessageHandler.handleMessage(new GenericMessage<>(
+                    new String((byte[]) message.getPayload(), StandardCharsets.UTF_8), message.getHeaders()),
+                    topic, clientName);
+        } else {
+            defaultMqttMessageHandler.handleMessage(message, topic, clientName);
+        }
+
+        // 调用特定的订阅方法，匹配到开启去重的订阅时才计算指纹，每条消息最多计算一次
+        Boolean duplicate = null;
+        for (SubscriptionInfo subscription : router.route(topic)) {
+            if (subscription.isDedup() && duplicateFilter != null && !clientWide) {
+                if (duplicate == null) {
+                    duplicate = duplicateFilter.isDuplicate(message, topic);
+                }
+                if (duplicate) {
+                    continue;
+                }
+            }
+            MqttBatchAccumulator batchAccumulator = subscription.getBatchAccumulator();
+            if (batchAccumulator != null) {
+                batchAccumulator.add(message);
+                continue;
+            }
+
+            Executor executor = subscription.getExecutor();
+            if (executor == null) {
+                invoke(subscription, message, topic);
+                continue;
+            }
+            try {
+                executor.execute(() -> invoke(subscription, message, topic));
+            } catch (RejectedExecutionException e) {
+                log.error("Dispatch executor rejected message on topic [{}] for subscription method: {}",
+                        topic, subscription.getMethod().getName(), e);
+            }
+        }
+    }
+
+    // 在分区线程（未启用分区时为MQTT回调线程）中解码，只解码编码链覆盖的主题，解码失败时按原始载荷处理
+    private Message<?> decode(Message<?> message, String topic) {
+        MqttCodecChain codecChain = this.codecChain;
+        if (codecChain == null || !(message.getPayload() instanceof byte[])) {
+            return message;
+        }
+        byte[] payload = (byte[]) message.getPayload();
+        try {
+            byte[] decoded = codecChain.decode(topic, payload);
+            return decoded == payload ? message : new GenericMessage<>(decoded, message.getHeaders());
+        } catch (RuntimeException e) {
+            log.warn("Failed to decode payload on topic [{}] with client [{}], delivering it unchanged",
+                    topic, clientName, e);
+            return message;
+        }
+    }
+
+    private void invoke(SubscriptionInfo subscription, Message<?> message, String topic) {
+        boolean timed = metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0L;
+        boolean success = false;
+        try {
+            subscription.getInvoker().invoke(subscription.decodePayload(message.getPayload()), message, topic, clientName);
+            success = true;
+        } catch (Throwable e) {
+            log.error("Error invoking subscription method: {}", subscription.getMethod().getName(), e);
+        } finally {
+            if (timed) {
+                metrics.handlerExecuted(clientName, subscription.getTopic(), System.nanoTime() - start, success);
+            }
+        }
+    }
+
+    public String getClientName() {
+        return clientName;
+    }
+}
@@ -0,0 +1,191 @@
+package com.onlytl.mqtt.spring.boot.starter.dispatch;
+
+
+import com.onlytl.mqtt.spring.boot.starter.config.BufferProperties;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.Message;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * MqttInboundQueue
+ * </p >
+ * 派发分区使用的有界入站队列，队列已满时按 {@link BufferProperties.OverflowPolicy} 处理，
+ * 并统计丢弃与合并的消息数
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class MqttInboundQueue {
+
+    private final int capacity;
+    private final BufferProperties.OverflowPolicy policy;
+    private final long blockTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+    // CONFLATE 策略下，主题 -> 待处理条目
+    private final Map<String, Entry> pendingByTopic;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+
+    /**
+     * 创建无界队列
+     */
+    public MqttInboundQueue() {
+        this(Integer.MAX_VALUE, BufferProperties.OverflowPolicy.BLOCK, 0);
+    }
+
+    public MqttInboundQueue(int capacity, BufferProperties.OverflowPolicy policy, long blockTimeoutMillis) {
+        this.capacity = capacity;
+        this.policy = policy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+        this.pendingByTopic = policy == BufferProperties.OverflowPolicy.CONFLATE ? new HashMap<>() : null;
+    }
+
+    /**
+     * 消息入队
+     *
+     * @param message 消息
+     * @return 消息是否被接收（合并到已有条目也视为接收）
+     */
+    public boolean offer(Message<?> message) {
+        lock.lock();
+        try {
+            String topic = null;
+            if (pendingByTopic != null) {
+                topic = message.getHeaders().get(MqttHeaders.RECEIVED_TOPIC, String.class);
+                Entry pending = pendingByTopic.get(topic);
+                if (pending != null) {
+                    pending.message = message;
+                    conflated.increment();
+                    return true;
+                }
+            }
+
+            if (entries.size() >= capacity && !makeRoom()) {
+                dropped.increment();
+                return false;
+            }
+
+            Entry entry = new Entry(topic, message);
+            entries.addLast(entry);
+            if (pendingByTopic != null) {
+                pendingByTopic.put(topic, entry);
+            }
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取出最早入队的消息
+     *
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     * @return 消息，超时返回null
+     * @throws InterruptedException 等待时被中断
+     */
+    public Message<?> poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (entries.isEmpty()) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            Entry entry = entries.pollFirst();
+            if (pendingByTopic != null) {
+                pendingByTopic.remove(entry.topic);
+            }
+            notFull.signal();
+            return entry.message;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 因缓冲区已满被丢弃的消息数
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * 被同主题新消息合并掉的消息数
+     */
+    public long getConflatedCount() {
+        return conflated.sum();
+    }
+
+    // 在持有锁的情况下为新消息腾出空间，返回false表示应丢弃新消息
+    private boolean makeRoom() {
+        switch (policy) {
+            case DROP_OLDEST:
+            case CONFLATE:
+                Entry oldest = entries.pollFirst();
+                if (pendingByTopic != null) {
+                    pendingByTopic.remove(oldest.topic);
+                }
+                dropped.increment();
+                return true;
+            case BLOCK:
+                long nanos = blockTimeoutNanos;
+                try {
+                    while (entries.size() >= capacity) {
+                        if (nanos <= 0) {
+                            return false;
+                        }
+                        nanos = notFull.awaitNanos(nanos);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                return true;
+            case DROP_NEWEST:
+            default:
+                return false;
+        }
+    }
+
+    private static final class Entry {
+        private final String topic;
+        private Message<?> message;
+
+        private Entry(String topic, Message<?> message) {
+            this.topic = topic;
+            this.message = message;
+        }
+    }
+}
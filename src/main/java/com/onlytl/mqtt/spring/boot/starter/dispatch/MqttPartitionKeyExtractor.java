@@ -0,0 +1,80 @@
+package com.onlytl.mqtt.spring.boot.starter.dispatch;
+
+
+import com.onlytl.mqtt.spring.boot.starter.config.DispatchProperties;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * <p>
+ * MqttPartitionKeyExtractor
+ * </p >
+ * 计算消息分区键的哈希值，主题层级直接在原字符串上计算，不创建子串
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class MqttPartitionKeyExtractor {
+
+    private final DispatchProperties.PartitionKey type;
+    private final int segment;
+    private final String header;
+
+    public MqttPartitionKeyExtractor(DispatchProperties dispatch) {
+        this.type = dispatch.getPartitionKey();
+        this.segment = dispatch.getPartitionSegment();
+        this.header = dispatch.getPartitionHeader();
+        Assert.isTrue(type != DispatchProperties.PartitionKey.HEADER || StringUtils.hasText(header),
+                "partition-header must be set when partition-key is HEADER");
+        Assert.isTrue(segment >= 0, "partition-segment must not be negative");
+    }
+
+    /**
+     * 计算分区键哈希值
+     *
+     * @param message 消息
+     * @param topic 主题
+     * @return 分区键哈希值，缺少分区键时返回0
+     */
+    public int hash(Message<?> message, String topic) {
+        switch (type) {
+            case TOPIC_SEGMENT:
+                return topic == null ? 0 : segmentHash(topic, segment);
+            case HEADER:
+                Object value = message.getHeaders().get(header);
+                return value == null ? 0 : value.hashCode();
+            case TOPIC:
+            default:
+                return topic == null ? 0 : topic.hashCode();
+        }
+    }
+
+    /**
+     * 计算主题中指定层级的哈希值，层级不存在时返回0
+     *
+     * @param topic 主题
+     * @param index 层级下标
+     * @return 哈希值
+     */
+    static int segmentHash(String topic, int index) {
+        int start = 0;
+        for (int i = 0; i < index; i++) {
+            int slash = topic.indexOf('/', start);
+            if (slash < 0) {
+                return 0;
+            }
+            start = slash + 1;
+        }
+        int end = topic.indexOf('/', start);
+        if (end < 0) {
+            end = topic.length();
+        }
+
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + topic.charAt(i);
+        }
+        return h;
+    }
+}
@@ -0,0 +1,101 @@
+package com.onlytl.mqtt.spring.boot.starter.dispatch;
+
+
+import com.onlytl.mqtt.spring.boot.starter.config.MqttClientConfiguration;
+import com.onlytl.mqtt.spring.boot.starter.handler.MqttMessageHandler;
+import com.onlytl.mqtt.spring.boot.starter.handler.MqttSubscriptionInvoker;
+import com.onlytl.mqtt.spring.boot.starter.router.TopicTemplate;
+import org.springframework.util.Assert;
+
+import java.util.List;
+
+/**
+ * <p>
+ * MqttSubscriptionRegistry
+ * </p >
+ * 运行时订阅注册表，在不重启应用、不重建订阅连接的情况下增删订阅。
+ * 新订阅通过订阅连接的 addTopic 向 Broker 订阅，本地路由器以写时复制的方式整体替换，
+ * 正在派发和已入队的消息不受影响。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class MqttSubscriptionRegistry {
+
+    private static final String DEFAULT_CLIENT = "default";
+
+    private final MqttClientConfiguration mqttClientConfiguration;
+
+    public MqttSubscriptionRegistry(MqttClientConfiguration mqttClientConfiguration) {
+        this.mqttClientConfiguration = mqttClientConfiguration;
+    }
+
+    /**
+     * 使用默认客户端订阅
+     *
+     * @param topic 主题过滤器，可以使用 $share/{group}/ 前缀
+     * @param qos QoS等级
+     * @param handler 消息回调，载荷为字符串
+     * @return 订阅信息，用于取消订阅
+     */
+    public SubscriptionInfo subscribe(String topic, int qos, MqttMessageHandler handler) {
+        return subscribe(topic, qos, handler, DEFAULT_CLIENT);
+    }
+
+    /**
+     * 订阅主题，回调在客户端配置的派发执行器中调用
+     *
+     * @param topic 主题过滤器，可以使用 $share/{group}/ 前缀
+     * @param qos QoS等级
+     * @param handler 消息回调，载荷为字符串
+     * @param clientName 客户端名称
+     * @return 订阅信息，用于取消订阅
+     */
+    public SubscriptionInfo subscribe(String topic, int qos, MqttMessageHandler handler, String clientName) {
+        Assert.hasText(topic, "Topic must not be empty");
+        Assert.isTrue(qos >= 0 && qos <= 2, "QoS must be 0, 1 or 2");
+        TopicTemplate topicTemplate = TopicTemplate.parse(topic);
+        MqttSubscriptionInvoker invoker = MqttSubscriptionInvoker.forHandler(handler);
+        SubscriptionInfo subscription = SubscriptionInfo.builder()
+                .bean(handler)
+                .method(invoker.getMethod())
+                .invoker(invoker)
+                .topic(topicTemplate.getFilter())
+                .group(topicTemplate.getGroup())
+                .qos(qos)
+                .build();
+        mqttClientConfiguration.addSubscription(clientName, subscription);
+        return subscription;
+    }
+
+    /**
+     * 取消订阅
+     *
+     * @param subscription {@link #subscribe} 返回的订阅信息
+     * @return 订阅存在并已移除时为true
+     */
+    public boolean unsubscribe(SubscriptionInfo subscription) {
+        return mqttClientConfiguration.removeSubscription(subscription);
+    }
+
+    /**
+     * 取消客户端在指定过滤器上的所有订阅，包括 @MqttSubscribe 注解订阅
+     *
+     * @param topic 主题过滤器（不含共享订阅前缀）
+     * @param clientName 客户端名称
+     * @return 移除的订阅数
+     */
+    public int unsubscribe(String topic, String clientName) {
+        return mqttClientConfiguration.removeSubscriptions(clientName, topic);
+    }
+
+    /**
+     * 获取客户端当前的订阅
+     *
+     * @param clientName 客户端名称
+     * @return 订阅列表
+     */
+    public List<SubscriptionInfo> getSubscriptions(String clientName) {
+        return mqttClientConfiguration.getSubscriptions(clientName);
+    }
+}
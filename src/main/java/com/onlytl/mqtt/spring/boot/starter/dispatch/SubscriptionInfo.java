@@ -0,0 +1,90 @@
+package com.onlytl.mqtt.spring.boot.starter.dispatch;
+
+
+import com.onlytl.mqtt.spring.boot.starter.handler.MqttPayloadDecoder;
+import com.onlytl.mqtt.spring.boot.starter.handler.MqttSubscriptionInvoker;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>
+ * SubscriptionInfo
+ * </p >
+ * 订阅信息，注册阶段由 @MqttSubscribe 注解生成
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Getter
+@Builder
+public class SubscriptionInfo {
+    private final Object bean;
+    private final Method method;
+    private final String topic;
+    private final int qos;
+
+    /**
+     * 共享订阅组，为null时使用客户端配置的默认组
+     */
+    private final String group;
+    private final MqttSubscriptionInvoker invoker;
+
+    /**
+     * 专用派发线程数
+     */
+    private final int concurrency;
+
+    /**
+     * 指定的派发 Executor Bean 名称
+     */
+    private final String executorName;
+
+    /**
+     * 批量模式的最大批次大小，0表示逐条调用
+     */
+    private final int batchSize;
+
+    /**
+     * 批量模式的最长等待时间（毫秒）
+     */
+    private final long batchTimeoutMs;
+
+    /**
+     * 是否跳过重复消息
+     */
+    private final boolean dedup;
+
+    /**
+     * 批量模式下的消息收集器，上下文刷新后创建
+     */
+    @Setter
+    private volatile MqttBatchAccumulator batchAccumulator;
+
+    /**
+     * 载荷转换器，按订阅方法的参数类型选择，为null时直接传入原始载荷
+     */
+    @Setter
+    private volatile MqttPayloadDecoder payloadDecoder;
+
+    /**
+     * 上下文刷新后解析出的派发执行器，为null时在当前线程执行
+     */
+    @Setter
+    private volatile Executor executor;
+
+    /**
+     * 把原始载荷转换为订阅方法需要的类型
+     *
+     * @param payload 原始载荷
+     * @return 转换后的载荷
+     * @throws Exception 载荷无法转换
+     */
+    public Object decodePayload(Object payload) throws Exception {
+        MqttPayloadDecoder decoder = payloadDecoder;
+        return decoder == null ? payload : decoder.decode(payload);
+    }
+}
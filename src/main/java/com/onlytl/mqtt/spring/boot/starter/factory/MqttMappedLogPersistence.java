@@ -0,0 +1,354 @@
+package com.onlytl.mqtt.spring.boot.starter.factory;
+
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import org.eclipse.paho.client.mqttv3.MqttPersistable;
+import org.eclipse.paho.client.mqttv3.MqttPersistenceException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * MqttMappedLogPersistence
+ * </p >
+ * 基于内存映射文件的追加写日志持久化，每个客户端连接一个日志文件。
+ * 写入只是一次内存拷贝，不为每条消息创建文件；读取直接使用内存中的索引。
+ * 废弃记录超过日志容量一半或剩余空间不足时，把存活记录写入新文件后原子替换。
+ * <p>
+ * 记录格式：长度(4) + CRC32(4) + 类型(1) + 键长度(2) + 键 + 值，最后一条记录后写入长度0作为结束标记。
+ * 写入进入操作系统页缓存，进程崩溃后可恢复；只在压缩和关闭时刷盘，断电时可能丢失最近的记录。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Slf4j
+public class MqttMappedLogPersistence implements MqttClientPersistence {
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    // 长度 + CRC32
+    private static final int RECORD_HEADER_LENGTH = 8;
+
+    // 类型 + 键长度
+    private static final int BODY_HEADER_LENGTH = 3;
+
+    private static final int END_MARKER_LENGTH = 4;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final Path directory;
+    private final int initialCapacity;
+
+    // 存活记录：键 -> 头部与载荷拼接后的字节
+    private final Map<String, byte[]> entries = new HashMap<>();
+
+    private Path file;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    // 已被覆盖或删除的记录字节数
+    private long deadBytes;
+
+    public MqttMappedLogPersistence(Path directory, int initialCapacity) {
+        this.directory = directory;
+        this.initialCapacity = Math.max(4096, initialCapacity);
+    }
+
+    @Override
+    public synchronized void open(String clientId, String serverURI) throws MqttPersistenceException {
+        try {
+            Files.createDirectories(directory);
+            file = directory.resolve(fileName(clientId, serverURI));
+            long existing = Files.exists(file) ? Files.size(file) : 0;
+            map(file, (int) Math.max(initialCapacity, existing), false);
+            recover();
+        } catch (IOException e) {
+            throw new MqttPersistenceException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws MqttPersistenceException {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new MqttPersistenceException(e);
+        } finally {
+            buffer = null;
+            channel = null;
+            entries.clear();
+        }
+    }
+
+    @Override
+    public synchronized void put(String key, MqttPersistable persistable) throws MqttPersistenceException {
+        checkOpen();
+        byte[] value = concat(persistable);
+        byte[] previous = entries.put(key, value);
+        if (previous != null) {
+            deadBytes += recordLength(key, previous.length);
+        }
+        append(PUT, key, value);
+    }
+
+    @Override
+    public synchronized MqttPersistable get(String key) throws MqttPersistenceException {
+        checkOpen();
+        byte[] value = entries.get(key);
+        return value == null ? null : new StoredPersistable(value);
+    }
+
+    @Override
+    public synchronized void remove(String key) throws MqttPersistenceException {
+        checkOpen();
+        byte[] previous = entries.remove(key);
+        if (previous == null) {
+            return;
+        }
+        // 删除标记本身也是废弃记录
+        deadBytes += recordLength(key, previous.length) + recordLength(key, 0);
+        append(REMOVE, key, EMPTY);
+    }
+
+    @Override
+    public synchronized Enumeration<String> keys() throws MqttPersistenceException {
+        checkOpen();
+        return Collections.enumeration(new ArrayList<>(entries.keySet()));
+    }
+
+    @Override
+    public synchronized void clear() throws MqttPersistenceException {
+        checkOpen();
+        entries.clear();
+        deadBytes = 0;
+        buffer.position(0);
+        buffer.putInt(0, 0);
+    }
+
+    @Override
+    public synchronized boolean containsKey(String key) throws MqttPersistenceException {
+        checkOpen();
+        return entries.containsKey(key);
+    }
+
+    /**
+     * 日志文件的当前容量（字节）
+     */
+    synchronized int getCapacity() {
+        return buffer == null ? 0 : buffer.capacity();
+    }
+
+    private void recover() {
+        int position = 0;
+        int limit = buffer.capacity();
+        CRC32 crc = new CRC32();
+        while (position + RECORD_HEADER_LENGTH <= limit) {
+            int length = buffer.getInt(position);
+            if (length < BODY_HEADER_LENGTH || length > limit - position - RECORD_HEADER_LENGTH) {
+                break;
+            }
+            byte[] body = new byte[length];
+            buffer.position(position + RECORD_HEADER_LENGTH);
+            buffer.get(body);
+            crc.reset();
+            crc.update(body, 0, length);
+            // 未写完整的记录（进程在写入过程中退出）
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+
+            int keyLength = ((body[1] & 0xFF) << 8) | (body[2] & 0xFF);
+            String key = new String(body, BODY_HEADER_LENGTH, keyLength, StandardCharsets.UTF_8);
+            int valueOffset = BODY_HEADER_LENGTH + keyLength;
+            byte[] previous;
+            if (body[0] == PUT) {
+                byte[] value = new byte[length - valueOffset];
+                System.arraycopy(body, valueOffset, value, 0, value.length);
+                previous = entries.put(key, value);
+            } else {
+                previous = entries.remove(key);
+                deadBytes += RECORD_HEADER_LENGTH + length;
+            }
+            if (previous != null) {
+                deadBytes += recordLength(key, previous.length);
+            }
+            position += RECORD_HEADER_LENGTH + length;
+        }
+
+        buffer.position(position);
+        writeEndMarker();
+        if (!entries.isEmpty()) {
+            log.info("Recovered {} in-flight MQTT messages from {}", entries.size(), file);
+        }
+    }
+
+    private void append(byte type, String key, byte[] value) throws MqttPersistenceException {
+        if (buffer.remaining() < recordLength(key, value.length) + END_MARKER_LENGTH) {
+            // 压缩后的日志由内存索引重建，已经包含本次修改
+            compact();
+            return;
+        }
+        writeRecord(type, key, value);
+        writeEndMarker();
+
+        if (deadBytes > buffer.capacity() / 2) {
+            compact();
+        }
+    }
+
+    // 把存活记录写入新文件并原子替换，必要时扩容
+    private void compact() throws MqttPersistenceException {
+        long live = END_MARKER_LENGTH;
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+            live += recordLength(entry.getKey(), entry.getValue().length);
+        }
+        long capacity = buffer.capacity();
+        while (capacity < live * 2) {
+            capacity *= 2;
+        }
+        if (capacity > Integer.MAX_VALUE) {
+            throw new MqttPersistenceException(new IOException("MQTT persistence log exceeds 2GB: " + file));
+        }
+
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        FileChannel previousChannel = channel;
+        try {
+            map(compacted, (int) capacity, true);
+            deadBytes = 0;
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                writeRecord(PUT, entry.getKey(), entry.getValue());
+            }
+            writeEndMarker();
+            buffer.force();
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            previousChannel.close();
+        } catch (IOException e) {
+            throw new MqttPersistenceException(e);
+        }
+        log.debug("Compacted MQTT persistence log {}: {} live entries, capacity {}", file, entries.size(), capacity);
+    }
+
+    private void writeRecord(byte type, String key, byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int length = BODY_HEADER_LENGTH + keyBytes.length + value.length;
+        byte[] body = new byte[length];
+        body[0] = type;
+        body[1] = (byte) (keyBytes.length >>> 8);
+        body[2] = (byte) keyBytes.length;
+        System.arraycopy(keyBytes, 0, body, BODY_HEADER_LENGTH, keyBytes.length);
+        System.arraycopy(value, 0, body, BODY_HEADER_LENGTH + keyBytes.length, value.length);
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, length);
+
+        buffer.putInt(length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(body);
+    }
+
+    // 在当前位置写入结束标记，不移动写入位置
+    private void writeEndMarker() {
+        if (buffer.remaining() >= END_MARKER_LENGTH) {
+            buffer.putInt(buffer.position(), 0);
+        }
+    }
+
+    private void map(Path path, int capacity, boolean truncate) throws IOException {
+        FileChannel fileChannel = truncate ?
+                FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE) :
+                FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel = fileChannel;
+        buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private void checkOpen() throws MqttPersistenceException {
+        if (buffer == null) {
+            throw new MqttPersistenceException();
+        }
+    }
+
+    private static int recordLength(String key, int valueLength) {
+        return RECORD_HEADER_LENGTH + BODY_HEADER_LENGTH + key.length() + valueLength;
+    }
+
+    private static byte[] concat(MqttPersistable persistable) throws MqttPersistenceException {
+        int headerLength = persistable.getHeaderLength();
+        int payloadLength = persistable.getPayloadBytes() == null ? 0 : persistable.getPayloadLength();
+        byte[] value = new byte[headerLength + payloadLength];
+        System.arraycopy(persistable.getHeaderBytes(), persistable.getHeaderOffset(), value, 0, headerLength);
+        if (payloadLength > 0) {
+            System.arraycopy(persistable.getPayloadBytes(), persistable.getPayloadOffset(),
+                    value, headerLength, payloadLength);
+        }
+        return value;
+    }
+
+    // 与 Paho 文件持久化相同的命名方式，去掉路径中不允许的字符
+    private static String fileName(String clientId, String serverURI) {
+        StringBuilder name = new StringBuilder(clientId.length() + serverURI.length() + 5);
+        String raw = clientId + "-" + serverURI;
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            name.append(Character.isLetterOrDigit(c) || c == '-' || c == '.' ? c : '_');
+        }
+        return name.append(".log").toString();
+    }
+
+    // 头部与载荷已拼接存放，载荷部分为空
+    private static final class StoredPersistable implements MqttPersistable {
+        private final byte[] data;
+
+        private StoredPersistable(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public byte[] getHeaderBytes() {
+            return data;
+        }
+
+        @Override
+        public int getHeaderLength() {
+            return data.length;
+        }
+
+        @Override
+        public int getHeaderOffset() {
+            return 0;
+        }
+
+        @Override
+        public byte[] getPayloadBytes() {
+            return EMPTY;
+        }
+
+        @Override
+        public int getPayloadLength() {
+            return 0;
+        }
+
+        @Override
+        public int getPayloadOffset() {
+            return 0;
+        }
+    }
+}
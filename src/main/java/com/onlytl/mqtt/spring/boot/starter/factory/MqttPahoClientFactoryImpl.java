@@ -2,12 +2,16 @@ package com.onlytl.mqtt.spring.boot.starter.factory;
 
 
 import com.onlytl.mqtt.spring.boot.starter.config.MqttProperties;
-import com.onlytl.mqtt.spring.boot.starter.ssl.SslContextBuilder;
+import com.onlytl.mqtt.spring.boot.starter.ssl.SslContextRegistry;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.eclipse.paho.client.mqttv3.persist.MqttDefaultFilePersistence;
 import org.springframework.integration.mqtt.core.DefaultMqttPahoClientFactory;
 import org.springframework.integration.mqtt.core.MqttPahoClientFactory;
 
-import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * <p>
@@ -19,9 +23,24 @@ import javax.net.ssl.SSLContext;
  */
 public class MqttPahoClientFactoryImpl implements MqttClientFactory {
 
+    private static final String DEFAULT_MMAP_DIRECTORY = "mqtt-persistence";
+
+    private final SslContextRegistry sslContextRegistry;
+
+    public MqttPahoClientFactoryImpl() {
+        this(new SslContextRegistry());
+    }
+
+    /**
+     * @param sslContextRegistry SSL上下文注册表，证书配置相同的客户端共享上下文
+     */
+    public MqttPahoClientFactoryImpl(SslContextRegistry sslContextRegistry) {
+        this.sslContextRegistry = sslContextRegistry;
+    }
+
     @Override
     public MqttPahoClientFactory createClientFactory(MqttProperties.ClientConfig clientConfig) throws Exception {
-        DefaultMqttPahoClientFactory factory = new DefaultMqttPahoClientFactory();
+        DefaultMqttPahoClientFactory factory = createPahoClientFactory(clientConfig);
         MqttConnectOptions options = new MqttConnectOptions();
 
         // 设置基本连接属性
@@ -36,16 +55,34 @@ public class MqttPahoClientFactoryImpl implements MqttClientFactory {
         options.setConnectionTimeout(clientConfig.getConnectionTimeout());
         options.setKeepAliveInterval(clientConfig.getKeepAliveInterval());
         options.setAutomaticReconnect(clientConfig.isAutomaticReconnect());
+        options.setMaxInflight(clientConfig.getMaxInflight());
 
-        // 配置SSL（如果启用）
+        // 配置SSL（如果启用），证书配置相同的客户端共享同一个上下文
         if (clientConfig.getSsl().isEnabled()) {
-            SSLContext sslContext = new SslContextBuilder(clientConfig.getSsl()).build();
-            if (sslContext != null) {
-                options.setSocketFactory(sslContext.getSocketFactory());
+            SSLSocketFactory socketFactory = sslContextRegistry.getSocketFactory(clientConfig.getSsl());
+            if (socketFactory != null) {
+                options.setSocketFactory(socketFactory);
             }
         }
 
         factory.setConnectionOptions(options);
         return factory;
     }
+
+    // 按持久化方式创建工厂，FILE 模式未指定目录时保持 Paho 的默认行为
+    private static DefaultMqttPahoClientFactory createPahoClientFactory(MqttProperties.ClientConfig clientConfig) {
+        String directory = clientConfig.getPersistenceDirectory();
+        switch (clientConfig.getPersistence()) {
+            case MEMORY:
+                return new PersistentMqttPahoClientFactory(MemoryPersistence::new);
+            case MMAP:
+                Path logDirectory = Paths.get(directory != null ? directory : DEFAULT_MMAP_DIRECTORY);
+                int logSize = clientConfig.getPersistenceLogSize();
+                return new PersistentMqttPahoClientFactory(() -> new MqttMappedLogPersistence(logDirectory, logSize));
+            case FILE:
+            default:
+                return directory == null ? new DefaultMqttPahoClientFactory() :
+                        new PersistentMqttPahoClientFactory(() -> new MqttDefaultFilePersistence(directory));
+        }
+    }
 }
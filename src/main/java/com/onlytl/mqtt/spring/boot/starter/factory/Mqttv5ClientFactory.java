@@ -0,0 +1,187 @@
+package com.onlytl.mqtt.spring.boot.starter.factory;
+
+
+import com.onlytl.mqtt.spring.boot.starter.config.MqttProperties;
+import com.onlytl.mqtt.spring.boot.starter.config.ReconnectProperties;
+import com.onlytl.mqtt.spring.boot.starter.ssl.SslContextRegistry;
+import org.eclipse.paho.mqttv5.client.IMqttAsyncClient;
+import org.eclipse.paho.mqttv5.client.MqttClientPersistence;
+import org.eclipse.paho.mqttv5.client.MqttConnectionOptions;
+import org.eclipse.paho.mqttv5.client.persist.MemoryPersistence;
+import org.eclipse.paho.mqttv5.client.persist.MqttDefaultFilePersistence;
+import org.eclipse.paho.mqttv5.common.MqttException;
+import org.springframework.integration.mqtt.inbound.AbstractMqttMessageDrivenChannelAdapter;
+import org.springframework.integration.mqtt.inbound.Mqttv5PahoMessageDrivenChannelAdapter;
+import org.springframework.integration.mqtt.outbound.AbstractMqttMessageHandler;
+import org.springframework.integration.mqtt.outbound.Mqttv5PahoMessageHandler;
+import org.springframework.integration.mqtt.support.MqttHeaderMapper;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.util.ReflectionUtils;
+
+import javax.net.ssl.SSLSocketFactory;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * Mqttv5ClientFactory
+ * </p >
+ * 创建 protocol-version 为 5 的客户端使用的 Paho v5 出站处理器和订阅适配器。
+ * 只有配置了 MQTT 5 的客户端才会加载该类，未引入 org.eclipse.paho.mqttv5.client 时 v3 客户端不受影响。
+ * MMAP 持久化只实现了 v3 的持久化接口，MQTT 5 客户端只支持 MEMORY 和 FILE。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class Mqttv5ClientFactory {
+
+    private final SslContextRegistry sslContextRegistry;
+    private final ReconnectProperties reconnectProperties;
+
+    /**
+     * @param sslContextRegistry SSL上下文注册表，与 v3 客户端共享，证书重新加载时同样生效；为null时单独创建
+     * @param reconnectProperties 重连配置，用作 Paho 自动重连的最小和最大等待时间
+     */
+    public Mqttv5ClientFactory(SslContextRegistry sslContextRegistry, ReconnectProperties reconnectProperties) {
+        this.sslContextRegistry = sslContextRegistry != null ? sslContextRegistry : new SslContextRegistry();
+        this.reconnectProperties = reconnectProperties;
+    }
+
+    /**
+     * 创建出站处理器，异步发布并发送投递事件，由调用方设置事件发布器后初始化
+     *
+     * @param clientId 客户端ID
+     * @param clientConfig 客户端配置
+     * @return 出站处理器
+     */
+    public AbstractMqttMessageHandler createMessageHandler(String clientId, MqttProperties.ClientConfig clientConfig)
+            throws Exception {
+        Mqttv5PahoMessageHandler messageHandler = new Mqttv5PahoMessageHandler(
+                createConnectionOptions(clientConfig), clientId);
+        messageHandler.setPersistence(createPersistence(clientConfig));
+        messageHandler.setHeaderMapper(createHeaderMapper(clientConfig));
+        // 与 v3 的 DefaultPahoMessageConverter 一致，只发送 String 和 byte[] 载荷，不依赖上下文中的转换器
+        messageHandler.setConverter(new ByteArrayMessageConverter());
+        messageHandler.setAsync(true);
+        messageHandler.setAsyncEvents(true);
+        return messageHandler;
+    }
+
+    /**
+     * 创建订阅适配器，载荷保持为原始字节，收到的用户属性映射为消息头。
+     * 连接断开后由 Paho 自动重连并在连接恢复时重新订阅，不经过重连协调器
+     *
+     * @param clientId 客户端ID
+     * @param clientConfig 客户端配置
+     * @param topics 订阅过滤器
+     * @return 订阅适配器
+     */
+    public AbstractMqttMessageDrivenChannelAdapter createChannelAdapter(String clientId,
+                                                                        MqttProperties.ClientConfig clientConfig,
+                                                                        String... topics) throws Exception {
+        Mqttv5PahoMessageDrivenChannelAdapter adapter = new Mqttv5PahoMessageDrivenChannelAdapter(
+                createConnectionOptions(clientConfig), clientId, topics);
+        adapter.setPersistence(createPersistence(clientConfig));
+        adapter.setHeaderMapper(createHeaderMapper(clientConfig));
+        adapter.setMessageConverter(new ByteArrayMessageConverter());
+        return adapter;
+    }
+
+    /**
+     * 在订阅适配器已连接的客户端上重新订阅过滤器，Broker 用新的QoS替换原订阅，投递不会中断。
+     * 适配器没有公开底层客户端，通过反射获取；未连接时不做任何事，连接时按适配器的过滤器表订阅
+     *
+     * @param adapter 由 {@link #createChannelAdapter} 创建的订阅适配器
+     * @param filter 已订阅的过滤器
+     * @param qos 新的QoS
+     * @param completionTimeout 等待 SUBACK 的超时时间（毫秒）
+     * @return 已重新订阅或客户端未连接时为true，此时可以直接更新适配器的过滤器表；
+     * 无法获取底层客户端时为false
+     * @throws MqttException 订阅失败
+     */
+    public static boolean resubscribe(AbstractMqttMessageDrivenChannelAdapter adapter, String filter, int qos,
+                                      long completionTimeout) throws MqttException {
+        Field field = ReflectionUtils.findField(adapter.getClass(), "mqttClient", IMqttAsyncClient.class);
+        if (field == null) {
+            return false;
+        }
+        ReflectionUtils.makeAccessible(field);
+        IMqttAsyncClient client = (IMqttAsyncClient) ReflectionUtils.getField(field, adapter);
+        if (client != null && client.isConnected()) {
+            client.subscribe(filter, qos).waitForCompletion(completionTimeout);
+        }
+        return true;
+    }
+
+    MqttConnectionOptions createConnectionOptions(MqttProperties.ClientConfig clientConfig) throws Exception {
+        MqttConnectionOptions options = new MqttConnectionOptions();
+
+        // 设置基本连接属性
+        options.setServerURIs(new String[]{clientConfig.getServerUri()});
+        if (clientConfig.getUsername() != null) {
+            options.setUserName(clientConfig.getUsername());
+        }
+        if (clientConfig.getPassword() != null) {
+            options.setPassword(clientConfig.getPassword().getBytes(StandardCharsets.UTF_8));
+        }
+        options.setCleanStart(clientConfig.isCleanSession());
+        options.setConnectionTimeout(clientConfig.getConnectionTimeout());
+        options.setKeepAliveInterval(clientConfig.getKeepAliveInterval());
+
+        // 自动重连的等待时间按重连配置换算为秒
+        options.setAutomaticReconnect(clientConfig.isAutomaticReconnect());
+        int minDelay = (int) Math.max(1, reconnectProperties.getInitialInterval() / 1000);
+        int maxDelay = (int) Math.max(minDelay, reconnectProperties.getMaxInterval() / 1000);
+        options.setAutomaticReconnectDelay(minDelay, maxDelay);
+
+        // 会话过期、接收最大值和主题别名
+        if (clientConfig.getSessionExpiryInterval() != null) {
+            options.setSessionExpiryInterval(clientConfig.getSessionExpiryInterval());
+        }
+        if (clientConfig.getReceiveMaximum() != null) {
+            options.setReceiveMaximum(clientConfig.getReceiveMaximum());
+        }
+        if (clientConfig.getTopicAliasMaximum() > 0) {
+            options.setTopicAliasMaximum(clientConfig.getTopicAliasMaximum());
+        }
+
+        // 配置SSL（如果启用），证书配置相同的客户端共享同一个上下文
+        if (clientConfig.getSsl().isEnabled()) {
+            SSLSocketFactory socketFactory = sslContextRegistry.getSocketFactory(clientConfig.getSsl());
+            if (socketFactory != null) {
+                options.setSocketFactory(socketFactory);
+            }
+        }
+        return options;
+    }
+
+    // 出站除默认映射的消息头外，再把配置的消息头作为用户属性发送
+    static MqttHeaderMapper createHeaderMapper(MqttProperties.ClientConfig clientConfig) {
+        List<String> outboundHeaderNames = new ArrayList<>(Arrays.asList(MessageHeaders.CONTENT_TYPE,
+                MqttHeaders.MESSAGE_EXPIRY_INTERVAL, MqttHeaders.RESPONSE_TOPIC, MqttHeaders.CORRELATION_DATA));
+        outboundHeaderNames.addAll(clientConfig.getUserPropertyHeaders());
+
+        MqttHeaderMapper headerMapper = new MqttHeaderMapper();
+        headerMapper.setOutboundHeaderNames(outboundHeaderNames.toArray(new String[0]));
+        return headerMapper;
+    }
+
+    private static MqttClientPersistence createPersistence(MqttProperties.ClientConfig clientConfig) {
+        String directory = clientConfig.getPersistenceDirectory();
+        switch (clientConfig.getPersistence()) {
+            case MEMORY:
+                return new MemoryPersistence();
+            case MMAP:
+                throw new IllegalArgumentException(
+                        "MMAP persistence is not supported with MQTT protocol version 5, use MEMORY or FILE");
+            case FILE:
+            default:
+                return directory == null ? new MqttDefaultFilePersistence() : new MqttDefaultFilePersistence(directory);
+        }
+    }
+}
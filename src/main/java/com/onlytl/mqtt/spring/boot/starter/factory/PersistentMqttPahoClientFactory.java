@@ -0,0 +1,44 @@
+package com.onlytl.mqtt.spring.boot.starter.factory;
+
+
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttClient;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.springframework.integration.mqtt.core.DefaultMqttPahoClientFactory;
+
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * PersistentMqttPahoClientFactory
+ * </p >
+ * 为每个客户端实例创建独立的持久化对象。
+ * {@link DefaultMqttPahoClientFactory#setPersistence} 会让同一工厂创建的所有连接共用一个持久化实例，
+ * 出站连接池、入站适配器等多个连接的在途消息会互相覆盖。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class PersistentMqttPahoClientFactory extends DefaultMqttPahoClientFactory {
+
+    private static final String NO_URL_PROVIDED = "tcp://NO_URL_PROVIDED";
+
+    private final Supplier<MqttClientPersistence> persistenceSupplier;
+
+    public PersistentMqttPahoClientFactory(Supplier<MqttClientPersistence> persistenceSupplier) {
+        this.persistenceSupplier = persistenceSupplier;
+    }
+
+    @Override
+    public IMqttClient getClientInstance(String uri, String clientId) throws MqttException {
+        return new MqttClient(uri == null ? NO_URL_PROVIDED : uri, clientId, persistenceSupplier.get());
+    }
+
+    @Override
+    public IMqttAsyncClient getAsyncClientInstance(String uri, String clientId) throws MqttException {
+        return new MqttAsyncClient(uri == null ? NO_URL_PROVIDED : uri, clientId, persistenceSupplier.get());
+    }
+}
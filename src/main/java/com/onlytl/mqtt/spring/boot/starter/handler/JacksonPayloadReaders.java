@@ -0,0 +1,62 @@
+package com.onlytl.mqtt.spring.boot.starter.handler;
+
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.core.ResolvableType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * JacksonPayloadReaders
+ * </p >
+ * 按参数类型缓存 {@link ObjectReader}，载荷直接从字节反序列化，不经过字符串。
+ * 优先使用容器中的 ObjectMapper。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+final class JacksonPayloadReaders {
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<ResolvableType, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    JacksonPayloadReaders(BeanFactory beanFactory) {
+        this.objectMapper = beanFactory != null ?
+                beanFactory.getBeanProvider(ObjectMapper.class).getIfAvailable(ObjectMapper::new) :
+                new ObjectMapper();
+    }
+
+    MqttPayloadDecoder decoderFor(ResolvableType type) {
+        ObjectReader reader = readers.computeIfAbsent(type, t -> objectMapper.readerFor(toJavaType(t)));
+        return payload -> {
+            if (payload instanceof byte[]) {
+                return reader.readValue((byte[]) payload);
+            }
+            if (payload instanceof String) {
+                return reader.readValue(((String) payload).getBytes(StandardCharsets.UTF_8));
+            }
+            return payload;
+        };
+    }
+
+    // 按已解析的泛型参数构造 JavaType，例如 List<Reading>
+    private JavaType toJavaType(ResolvableType type) {
+        Class<?> rawType = type.resolve(Object.class);
+        ResolvableType[] generics = type.getGenerics();
+        if (generics.length == 0 || type.hasUnresolvableGenerics()) {
+            return objectMapper.getTypeFactory().constructType(rawType);
+        }
+        JavaType[] parameters = new JavaType[generics.length];
+        for (int i = 0; i < generics.length; i++) {
+            parameters[i] = toJavaType(generics[i]);
+        }
+        return objectMapper.getTypeFactory().constructParametricType(rawType, parameters);
+    }
+}
@@ -0,0 +1,24 @@
+package com.onlytl.mqtt.spring.boot.starter.handler;
+
+
+/**
+ * <p>
+ * MqttPayloadDecoder
+ * </p >
+ * 把入站消息的原始载荷转换为订阅方法声明的参数类型
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@FunctionalInterface
+public interface MqttPayloadDecoder {
+
+    /**
+     * 转换载荷
+     *
+     * @param payload 原始载荷，通常为 byte[]
+     * @return 订阅方法需要的载荷对象
+     * @throws Exception 载荷无法转换
+     */
+    Object decode(Object payload) throws Exception;
+}
@@ -0,0 +1,134 @@
+package com.onlytl.mqtt.spring.boot.starter.handler;
+
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.messaging.Message;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * <p>
+ * MqttPayloadDecoders
+ * </p >
+ * 按订阅方法的参数类型选择载荷转换方式：
+ * <ul>
+ *     <li>byte[]：直接传入原始字节，不做任何转换</li>
+ *     <li>ByteBuffer：包装为只读缓冲区，不复制</li>
+ *     <li>String、CharSequence、Object：按 UTF-8 解码为字符串</li>
+ *     <li>其他类型：使用 Jackson 从字节直接反序列化，每个类型的 ObjectReader 只创建一次</li>
+ * </ul>
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class MqttPayloadDecoders {
+
+    private static final boolean JACKSON_PRESENT = ClassUtils.isPresent(
+            "com.fasterxml.jackson.databind.ObjectMapper", MqttPayloadDecoders.class.getClassLoader());
+
+    /**
+     * 原始字节
+     */
+    public static final MqttPayloadDecoder BYTES = MqttPayloadDecoders::toBytes;
+
+    /**
+     * 只读 ByteBuffer
+     */
+    public static final MqttPayloadDecoder BYTE_BUFFER = payload -> payload instanceof byte[] ?
+            ByteBuffer.wrap((byte[]) payload).asReadOnlyBuffer() : payload;
+
+    /**
+     * UTF-8 字符串
+     */
+    public static final MqttPayloadDecoder TEXT = payload -> payload instanceof byte[] ?
+            new String((byte[]) payload, StandardCharsets.UTF_8) : payload;
+
+    private final BeanFactory beanFactory;
+
+    // 延迟创建，避免在没有使用对象参数时要求 Jackson
+    private volatile JacksonPayloadReaders jacksonReaders;
+
+    public MqttPayloadDecoders(BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    /**
+     * 为订阅方法的载荷参数选择转换器
+     *
+     * @param method 订阅方法
+     * @param batch 是否为批量订阅（载荷参数为 List）
+     * @return 载荷转换器，方法没有参数时为null
+     */
+    public MqttPayloadDecoder forMethod(Method method, boolean batch) {
+        return forParameter(method, method.getParameterCount() > 0 ? 0 : -1, batch);
+    }
+
+    /**
+     * 为订阅方法指定的载荷参数选择转换器
+     *
+     * @param method 订阅方法
+     * @param parameterIndex 载荷参数下标，-1表示没有载荷参数
+     * @param batch 是否为批量订阅（载荷参数为 List）
+     * @return 载荷转换器，没有载荷参数时为null
+     */
+    public MqttPayloadDecoder forParameter(Method method, int parameterIndex, boolean batch) {
+        if (parameterIndex < 0) {
+            return null;
+        }
+        ResolvableType type = ResolvableType.forMethodParameter(method, parameterIndex);
+        if (batch) {
+            type = type.as(Collection.class).getGeneric(0);
+        }
+        // Message<T> 参数按 T 转换载荷
+        if (Message.class.isAssignableFrom(type.toClass())) {
+            type = type.as(Message.class).getGeneric(0);
+        }
+        return forType(type);
+    }
+
+    /**
+     * 为指定类型选择转换器
+     *
+     * @param type 目标类型
+     * @return 载荷转换器
+     */
+    public MqttPayloadDecoder forType(ResolvableType type) {
+        Class<?> rawType = type.resolve(Object.class);
+        if (rawType == byte[].class) {
+            return BYTES;
+        }
+        if (rawType == ByteBuffer.class) {
+            return BYTE_BUFFER;
+        }
+        if (rawType == String.class || rawType == CharSequence.class || rawType == Object.class) {
+            return TEXT;
+        }
+        if (!JACKSON_PRESENT) {
+            throw new IllegalStateException("Jackson is required to convert MQTT payloads to " + type);
+        }
+        return jacksonReaders().decoderFor(type);
+    }
+
+    private JacksonPayloadReaders jacksonReaders() {
+        JacksonPayloadReaders readers = jacksonReaders;
+        if (readers == null) {
+            synchronized (this) {
+                readers = jacksonReaders;
+                if (readers == null) {
+                    readers = new JacksonPayloadReaders(beanFactory);
+                    jacksonReaders = readers;
+                }
+            }
+        }
+        return readers;
+    }
+
+    private static Object toBytes(Object payload) {
+        return payload instanceof String ? ((String) payload).getBytes(StandardCharsets.UTF_8) : payload;
+    }
+}
@@ -0,0 +1,313 @@
+package com.onlytl.mqtt.spring.boot.starter.handler;
+
+
+import com.onlytl.mqtt.spring.boot.starter.annotation.Topic;
+import com.onlytl.mqtt.spring.boot.starter.annotation.TopicVariable;
+import com.onlytl.mqtt.spring.boot.starter.router.TopicTemplate;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.handler.annotation.ValueConstants;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * <p>
+ * MqttSubscriptionInvoker
+ * </p >
+ * 在注册阶段把订阅方法编译为 {@link MethodHandle}，调用时不再做可访问性检查、参数个数判断和可变参数装箱。
+ * <p>
+ * 参数没有注解时按位置依次接收：消息内容、主题、客户端名称。
+ * 使用 {@link Payload}、{@link Topic}、{@link Header}、{@link TopicVariable} 注解或声明 {@link Message} 参数时，
+ * 每个参数在注册阶段解析为固定的取值函数，调用时按数组顺序取值。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public final class MqttSubscriptionInvoker {
+
+    private static final MethodType INVOKER_TYPE =
+            MethodType.methodType(void.class, Object.class, String.class, String.class);
+
+    private static final ConversionService CONVERSION_SERVICE = DefaultConversionService.getSharedInstance();
+
+    // Message 参数的取值函数，载荷经过转换时用转换后的载荷重新包装
+    private static final ArgumentResolver MESSAGE_RESOLVER = (payload, message, topic, clientName) ->
+            message == null || payload == message.getPayload() ?
+                    message : new GenericMessage<>(payload, message.getHeaders());
+
+    private final Method method;
+
+    // 按位置调用时签名为 (Object, String, String)void，否则为 (Object[])void
+    private final MethodHandle handle;
+
+    // 参数取值函数，按位置调用时为null
+    private final ArgumentResolver[] resolvers;
+
+    private final int payloadParameterIndex;
+
+    private MqttSubscriptionInvoker(Method method, MethodHandle handle, ArgumentResolver[] resolvers,
+                                    int payloadParameterIndex) {
+        this.method = method;
+        this.handle = handle;
+        this.resolvers = resolvers;
+        this.payloadParameterIndex = payloadParameterIndex;
+    }
+
+    /**
+     * 编译按位置接收参数的订阅方法
+     *
+     * @param bean 订阅方法所在的对象
+     * @param method 订阅方法
+     * @return 订阅方法调用器
+     */
+    public static MqttSubscriptionInvoker compile(Object bean, Method method) {
+        return compile(bean, method, Collections.emptyMap(), false);
+    }
+
+    /**
+     * 编译订阅方法
+     *
+     * @param bean 订阅方法所在的对象
+     * @param method 订阅方法
+     * @param topicVariables 订阅主题中的路径变量及其层级下标
+     * @param batch 是否为批量订阅，批量订阅不支持消息头和路径变量参数
+     * @return 订阅方法调用器
+     */
+    public static MqttSubscriptionInvoker compile(Object bean, Method method,
+                                                  Map<String, Integer> topicVariables, boolean batch) {
+        ReflectionUtils.makeAccessible(method);
+        MethodHandle target;
+        try {
+            target = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot compile @MqttSubscribe method: " + method, e);
+        }
+        if (!Modifier.isStatic(method.getModifiers())) {
+            target = target.bindTo(bean);
+        }
+
+        int parameterCount = method.getParameterCount();
+        if (!requiresResolvers(method, batch)) {
+            Assert.isTrue(parameterCount <= INVOKER_TYPE.parameterCount(),
+                    () -> "@MqttSubscribe method must declare at most 3 parameters (payload, topic, clientName): " + method);
+            target = MethodHandles.dropArguments(target, parameterCount,
+                    INVOKER_TYPE.parameterList().subList(parameterCount, INVOKER_TYPE.parameterCount()));
+            return new MqttSubscriptionInvoker(method, adapt(target, INVOKER_TYPE, method), null,
+                    parameterCount > 0 ? 0 : -1);
+        }
+
+        ArgumentResolver[] resolvers = new ArgumentResolver[parameterCount];
+        int payloadIndex = -1;
+        int messageIndex = -1;
+        // 未注解参数按位置占用：0 消息内容、1 主题、2 客户端名称
+        int position = hasPayloadAnnotation(method) ? 1 : 0;
+        for (int i = 0; i < parameterCount; i++) {
+            MethodParameter parameter = new MethodParameter(method, i);
+            parameter.initParameterNameDiscovery(new DefaultParameterNameDiscoverer());
+
+            if (parameter.hasParameterAnnotation(Payload.class)) {
+                Assert.isTrue(payloadIndex < 0, () -> "Only one @Payload parameter is allowed: " + method);
+                payloadIndex = i;
+                resolvers[i] = (payload, message, topic, clientName) -> payload;
+            } else if (parameter.hasParameterAnnotation(Topic.class)) {
+                resolvers[i] = (payload, message, topic, clientName) -> topic;
+            } else if (parameter.hasParameterAnnotation(Header.class)) {
+                Assert.isTrue(!batch, () -> "@Header is not supported by batch @MqttSubscribe methods: " + method);
+                resolvers[i] = headerResolver(parameter);
+            } else if (parameter.hasParameterAnnotation(TopicVariable.class)) {
+                Assert.isTrue(!batch, () -> "@TopicVariable is not supported by batch @MqttSubscribe methods: " + method);
+                resolvers[i] = topicVariableResolver(parameter, topicVariables);
+            } else if (!batch && Message.class.isAssignableFrom(parameter.getParameterType())) {
+                messageIndex = i;
+                resolvers[i] = MESSAGE_RESOLVER;
+            } else {
+                int slot = position++;
+                Assert.isTrue(slot < INVOKER_TYPE.parameterCount(),
+                        () -> "Cannot resolve parameter " + parameter.getParameterIndex() + " of @MqttSubscribe method, " +
+                                "annotate it with @Payload, @Topic, @Header or @TopicVariable: " + method);
+                if (slot == 0) {
+                    payloadIndex = i;
+                    resolvers[i] = (payload, message, topic, clientName) -> payload;
+                } else if (slot == 1) {
+                    resolvers[i] = (payload, message, topic, clientName) -> topic;
+                } else {
+                    resolvers[i] = (payload, message, topic, clientName) -> clientName;
+                }
+            }
+        }
+
+        MethodType genericType = MethodType.genericMethodType(parameterCount).changeReturnType(void.class);
+        MethodHandle spreader = adapt(target, genericType, method).asSpreader(Object[].class, parameterCount);
+        return new MqttSubscriptionInvoker(method, spreader, resolvers, payloadIndex >= 0 ? payloadIndex : messageIndex);
+    }
+
+    /**
+     * 把 {@link MqttMessageHandler} 回调包装为订阅方法调用器，用于运行时注册的订阅。
+     * 回调收到的消息载荷按 {@code Message<?>} 转换为字符串
+     *
+     * @param handler 消息回调
+     * @return 订阅方法调用器
+     */
+    public static MqttSubscriptionInvoker forHandler(MqttMessageHandler handler) {
+        Assert.notNull(handler, "MqttMessageHandler must not be null");
+        Method method = ReflectionUtils.findMethod(MqttMessageHandler.class, "handleMessage",
+                Message.class, String.class, String.class);
+        Assert.state(method != null, "MqttMessageHandler.handleMessage not found");
+        MethodHandle target;
+        try {
+            target = MethodHandles.publicLookup().unreflect(method).bindTo(handler);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot compile MqttMessageHandler: " + handler, e);
+        }
+        MethodType genericType = MethodType.genericMethodType(3).changeReturnType(void.class);
+        ArgumentResolver[] resolvers = {
+                MESSAGE_RESOLVER,
+                (payload, message, topic, clientName) -> topic,
+                (payload, message, topic, clientName) -> clientName
+        };
+        return new MqttSubscriptionInvoker(method, adapt(target, genericType, method).asSpreader(Object[].class, 3),
+                resolvers, 0);
+    }
+
+    /**
+     * 按位置调用订阅方法，没有消息头可用
+     *
+     * @param payload 消息内容
+     * @param topic 主题
+     * @param clientName 客户端名称
+     * @throws Throwable 订阅方法抛出的异常
+     */
+    public void invoke(Object payload, String topic, String clientName) throws Throwable {
+        invoke(payload, null, topic, clientName);
+    }
+
+    /**
+     * 调用订阅方法
+     *
+     * @param payload 转换后的消息内容
+     * @param message 原始消息，批量订阅时为null
+     * @param topic 主题
+     * @param clientName 客户端名称
+     * @throws Throwable 订阅方法抛出的异常
+     */
+    public void invoke(Object payload, Message<?> message, String topic, String clientName) throws Throwable {
+        if (resolvers == null) {
+            handle.invokeExact(payload, topic, clientName);
+            return;
+        }
+        Object[] args = new Object[resolvers.length];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = resolvers[i].resolve(payload, message, topic, clientName);
+        }
+        handle.invokeExact(args);
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * 接收消息内容的参数下标，用于选择载荷转换方式；没有此类参数时为-1
+     */
+    public int getPayloadParameterIndex() {
+        return payloadParameterIndex;
+    }
+
+    private static boolean requiresResolvers(Method method, boolean batch) {
+        for (int i = 0; i < method.getParameterCount(); i++) {
+            MethodParameter parameter = new MethodParameter(method, i);
+            if (parameter.hasParameterAnnotation(Payload.class) || parameter.hasParameterAnnotation(Topic.class)
+                    || parameter.hasParameterAnnotation(Header.class)
+                    || parameter.hasParameterAnnotation(TopicVariable.class)
+                    || (!batch && Message.class.isAssignableFrom(parameter.getParameterType()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasPayloadAnnotation(Method method) {
+        for (int i = 0; i < method.getParameterCount(); i++) {
+            if (new MethodParameter(method, i).hasParameterAnnotation(Payload.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ArgumentResolver headerResolver(MethodParameter parameter) {
+        Header header = parameter.getParameterAnnotation(Header.class);
+        // value 与 name 互为别名，直接读取注解时不会合并
+        String name = StringUtils.hasText(header.name()) ? header.name() :
+                StringUtils.hasText(header.value()) ? header.value() : parameter.getParameterName();
+        Assert.hasText(name, () -> "Header name cannot be determined for parameter " +
+                parameter.getParameterIndex() + " of method: " + parameter.getMethod());
+
+        TypeDescriptor targetType = new TypeDescriptor(parameter);
+        boolean hasDefault = !ValueConstants.DEFAULT_NONE.equals(header.defaultValue());
+        Object defaultValue = hasDefault ? convert(header.defaultValue(), targetType) : null;
+        boolean required = header.required() && !hasDefault;
+        return (payload, message, topic, clientName) -> {
+            Object value = message == null ? null : message.getHeaders().get(name);
+            if (value == null) {
+                if (required) {
+                    throw new IllegalStateException("Missing header '" + name + "' for method: " + parameter.getMethod());
+                }
+                return defaultValue;
+            }
+            return convert(value, targetType);
+        };
+    }
+
+    private static ArgumentResolver topicVariableResolver(MethodParameter parameter,
+                                                          Map<String, Integer> topicVariables) {
+        TopicVariable variable = parameter.getParameterAnnotation(TopicVariable.class);
+        String name = StringUtils.hasText(variable.value()) ? variable.value() : parameter.getParameterName();
+        Integer index = name == null ? null : topicVariables.get(name);
+        Assert.notNull(index, () -> "Topic variable '" + name + "' is not declared in the topic of method: " +
+                parameter.getMethod());
+
+        TypeDescriptor targetType = new TypeDescriptor(parameter);
+        int segment = index;
+        return (payload, message, topic, clientName) ->
+                topic == null ? null : convert(TopicTemplate.segment(topic, segment), targetType);
+    }
+
+    private static Object convert(Object value, TypeDescriptor targetType) {
+        if (value == null || ClassUtils.isAssignableValue(targetType.getType(), value)) {
+            return value;
+        }
+        return CONVERSION_SERVICE.convert(value, TypeDescriptor.forObject(value), targetType);
+    }
+
+    private static MethodHandle adapt(MethodHandle target, MethodType type, Method method) {
+        try {
+            return target.asType(type);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Cannot compile @MqttSubscribe method: " + method, e);
+        }
+    }
+
+    // 注册阶段为每个参数生成的取值函数
+    @FunctionalInterface
+    private interface ArgumentResolver {
+        Object resolve(Object payload, Message<?> message, String topic, String clientName);
+    }
+}
@@ -0,0 +1,230 @@
+package com.onlytl.mqtt.spring.boot.starter.metrics;
+
+
+import com.onlytl.mqtt.spring.boot.starter.dispatch.MqttDuplicateFilter;
+import com.onlytl.mqtt.spring.boot.starter.dispatch.MqttInboundDispatcher;
+import com.onlytl.mqtt.spring.boot.starter.reconnect.MqttReconnectCoordinator;
+import com.onlytl.mqtt.spring.boot.starter.spool.MqttOutboundSpool;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttOutboundPool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * MicrometerMqttMetrics
+ * </p >
+ * 基于 Micrometer 的指标实现。每个客户端、每个订阅过滤器的计量器只创建一次并缓存，
+ * 热路径上只有两次哈希查找，不拼接标签。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class MicrometerMqttMetrics implements MqttMetrics {
+
+    private static final String TAG_CLIENT = "client";
+    private static final String TAG_FILTER = "filter";
+
+    private final MeterRegistry registry;
+
+    private final Map<String, ClientMeters> clientMeters = new ConcurrentHashMap<>();
+
+    // 客户端名称 -> 订阅过滤器 -> 订阅方法执行计时器
+    private final Map<String, Map<String, HandlerTimers>> handlerTimers = new ConcurrentHashMap<>();
+
+    public MicrometerMqttMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void bindClient(String clientName, MqttOutboundPool outboundPool, MqttInboundDispatcher dispatcher) {
+        Gauge.builder("mqtt.inflight", outboundPool, MqttOutboundPool::getInFlightCount)
+                .description("Messages published and waiting for broker acknowledgement")
+                .tag(TAG_CLIENT, clientName)
+                .register(registry);
+
+        if (dispatcher != null) {
+            Gauge.builder("mqtt.queue.depth", dispatcher, MicrometerMqttMetrics::queueDepth)
+                    .description("Inbound messages buffered in dispatch lanes")
+                    .tag(TAG_CLIENT, clientName)
+                    .register(registry);
+            FunctionCounter.builder("mqtt.messages.dropped", dispatcher, MqttInboundDispatcher::getDroppedCount)
+                    .description("Inbound messages dropped because the buffer was full")
+                    .tag(TAG_CLIENT, clientName)
+                    .register(registry);
+
+            MqttDuplicateFilter duplicateFilter = dispatcher.getDuplicateFilter();
+            if (duplicateFilter != null) {
+                FunctionCounter.builder("mqtt.dedup.hits", duplicateFilter, MqttDuplicateFilter::getHitCount)
+                        .description("Inbound messages recognized as duplicates")
+                        .tag(TAG_CLIENT, clientName)
+                        .register(registry);
+                FunctionCounter.builder("mqtt.dedup.evictions", duplicateFilter, MqttDuplicateFilter::getEvictionCount)
+                        .description("Message fingerprints evicted before their ttl expired")
+                        .tag(TAG_CLIENT, clientName)
+                        .register(registry);
+            }
+        }
+    }
+
+    @Override
+    public void bindSpool(String clientName, MqttOutboundSpool spool) {
+        Gauge.builder("mqtt.spool.depth", spool, MqttOutboundSpool::getDepth)
+                .description("Outbound messages spooled on disk and waiting to be drained")
+                .tag(TAG_CLIENT, clientName)
+                .register(registry);
+        Gauge.builder("mqtt.spool.size", spool, MqttOutboundSpool::getSizeBytes)
+                .description("Bytes spooled on disk and waiting to be drained")
+                .baseUnit("bytes")
+                .tag(TAG_CLIENT, clientName)
+                .register(registry);
+        FunctionCounter.builder("mqtt.spool.drained", spool, MqttOutboundSpool::getDrainedCount)
+                .description("Spooled messages delivered after reconnecting")
+                .tag(TAG_CLIENT, clientName)
+                .register(registry);
+        FunctionCounter.builder("mqtt.spool.dropped", spool, MqttOutboundSpool::getDroppedCount)
+                .description("Outbound messages dropped because the spool was full")
+                .tag(TAG_CLIENT, clientName)
+                .register(registry);
+        FunctionCounter.builder("mqtt.spool.discarded", spool, MqttOutboundSpool::getDiscardedCount)
+                .description("Spooled messages discarded while draining because they cannot be delivered")
+                .tag(TAG_CLIENT, clientName)
+                .register(registry);
+    }
+
+    @Override
+    public void bindReconnect(MqttReconnectCoordinator coordinator, Collection<String> clientNames) {
+        Gauge.builder("mqtt.reconnect.pending", coordinator, MqttReconnectCoordinator::getPendingCount)
+                .description("Subscription reconnects waiting for their backoff delay or a connect slot")
+                .register(registry);
+        Gauge.builder("mqtt.reconnect.active", coordinator, MqttReconnectCoordinator::getActiveCount)
+                .description("Connects and resubscriptions in progress")
+                .register(registry);
+        FunctionCounter.builder("mqtt.reconnect.attempts", coordinator, MqttReconnectCoordinator::getTotalAttempts)
+                .description("Reconnect attempts executed")
+                .register(registry);
+        for (String clientName : clientNames) {
+            Gauge.builder("mqtt.reconnect.backoff", coordinator, c -> c.getAttempts(clientName))
+                    .description("Consecutive reconnect attempts since the last successful subscription")
+                    .tag(TAG_CLIENT, clientName)
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void messageSent(String clientName, boolean async, long durationNanos) {
+        ClientMeters meters = meters(clientName);
+        meters.sent.increment();
+        (async ? meters.asyncPublish : meters.syncPublish).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void messageFailed(String clientName) {
+        meters(clientName).failed.increment();
+    }
+
+    @Override
+    public void messageReceived(String clientName) {
+        meters(clientName).received.increment();
+    }
+
+    @Override
+    public void handlerExecuted(String clientName, String filter, long durationNanos, boolean success) {
+        Map<String, HandlerTimers> clientTimers = handlerTimers.get(clientName);
+        if (clientTimers == null) {
+            clientTimers = handlerTimers.computeIfAbsent(clientName, k -> new ConcurrentHashMap<>());
+        }
+        HandlerTimers timers = clientTimers.get(filter);
+        if (timers == null) {
+            timers = clientTimers.computeIfAbsent(filter, k -> new HandlerTimers(clientName, k));
+        }
+        (success ? timers.success : timers.error).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connectionFailed(String clientName) {
+        meters(clientName).connectionFailures.increment();
+    }
+
+    private ClientMeters meters(String clientName) {
+        ClientMeters meters = clientMeters.get(clientName);
+        return meters != null ? meters : clientMeters.computeIfAbsent(clientName, ClientMeters::new);
+    }
+
+    private static double queueDepth(MqttInboundDispatcher dispatcher) {
+        int depth = 0;
+        for (int laneDepth : dispatcher.getLaneDepths()) {
+            depth += laneDepth;
+        }
+        return depth;
+    }
+
+    private final class ClientMeters {
+        private final Counter sent;
+        private final Counter failed;
+        private final Counter received;
+        private final Counter connectionFailures;
+        private final Timer syncPublish;
+        private final Timer asyncPublish;
+
+        private ClientMeters(String clientName) {
+            this.sent = Counter.builder("mqtt.messages.sent")
+                    .description("Messages handed to the MQTT client")
+                    .tag(TAG_CLIENT, clientName)
+                    .register(registry);
+            this.failed = Counter.builder("mqtt.messages.failed")
+                    .description("Messages that failed to publish or were not acknowledged")
+                    .tag(TAG_CLIENT, clientName)
+                    .register(registry);
+            this.received = Counter.builder("mqtt.messages.received")
+                    .description("Messages received from the broker")
+                    .tag(TAG_CLIENT, clientName)
+                    .register(registry);
+            this.connectionFailures = Counter.builder("mqtt.connection.failures")
+                    .description("Lost or failed MQTT connections")
+                    .tag(TAG_CLIENT, clientName)
+                    .register(registry);
+            this.syncPublish = publishTimer(clientName, "sync");
+            this.asyncPublish = publishTimer(clientName, "async");
+        }
+
+        private Timer publishTimer(String clientName, String mode) {
+            return Timer.builder("mqtt.publish.latency")
+                    .description("Publish latency: hand-off time for send, acknowledgement time for sendAsync")
+                    .tag(TAG_CLIENT, clientName)
+                    .tag("mode", mode)
+                    .register(registry);
+        }
+    }
+
+    private final class HandlerTimers {
+        private final Timer success;
+        private final Timer error;
+
+        private HandlerTimers(String clientName, String filter) {
+            this.success = handlerTimer(clientName, filter, "success");
+            this.error = handlerTimer(clientName, filter, "error");
+        }
+
+        private Timer handlerTimer(String clientName, String filter, String outcome) {
+            return Timer.builder("mqtt.handler.execution")
+                    .description("Execution time of @MqttSubscribe methods")
+                    .tag(TAG_CLIENT, clientName)
+                    .tag(TAG_FILTER, filter)
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+    }
+}
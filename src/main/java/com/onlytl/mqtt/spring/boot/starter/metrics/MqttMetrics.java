@@ -0,0 +1,110 @@
+package com.onlytl.mqtt.spring.boot.starter.metrics;
+
+
+import com.onlytl.mqtt.spring.boot.starter.dispatch.MqttInboundDispatcher;
+import com.onlytl.mqtt.spring.boot.starter.reconnect.MqttReconnectCoordinator;
+import com.onlytl.mqtt.spring.boot.starter.spool.MqttOutboundSpool;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttOutboundPool;
+
+import java.util.Collection;
+
+/**
+ * <p>
+ * MqttMetrics
+ * </p >
+ * MQTT 收发与派发路径的指标记录接口。标签只使用客户端名称和订阅过滤器，不使用原始主题，
+ * 以保持低基数。默认实现不记录任何指标。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public interface MqttMetrics {
+
+    /**
+     * 不记录任何指标的实现
+     */
+    MqttMetrics NOOP = new MqttMetrics() {
+    };
+
+    /**
+     * 是否记录指标，为false时调用方可以跳过计时
+     */
+    default boolean isEnabled() {
+        return false;
+    }
+
+    /**
+     * 注册客户端的在途消息数、排队深度与丢弃计数等函数型指标。
+     * 客户端运行时首次订阅创建订阅连接时会再次调用并传入派发器，已注册的指标保持不变
+     *
+     * @param clientName 客户端名称
+     * @param outboundPool 出站连接池
+     * @param dispatcher 入站消息派发器，客户端没有订阅时为null
+     */
+    default void bindClient(String clientName, MqttOutboundPool outboundPool, MqttInboundDispatcher dispatcher) {
+    }
+
+    /**
+     * 注册客户端离线出站缓存的深度、字节数、补发与丢弃计数
+     *
+     * @param clientName 客户端名称
+     * @param spool 离线出站缓存
+     */
+    default void bindSpool(String clientName, MqttOutboundSpool spool) {
+    }
+
+    /**
+     * 注册重连协调器的等待数、进行数、重连总数，以及各客户端的连续重连次数。
+     * 每创建一个订阅连接调用一次，协调器的指标只注册一次
+     *
+     * @param coordinator 重连协调器
+     * @param clientNames 由协调器调度重连的客户端
+     */
+    default void bindReconnect(MqttReconnectCoordinator coordinator, Collection<String> clientNames) {
+    }
+
+    /**
+     * 消息发送成功
+     *
+     * @param clientName 客户端名称
+     * @param async 是否为等待投递确认的异步发送
+     * @param durationNanos 同步发送为交给客户端的耗时，异步发送为收到确认的耗时
+     */
+    default void messageSent(String clientName, boolean async, long durationNanos) {
+    }
+
+    /**
+     * 消息发送失败
+     *
+     * @param clientName 客户端名称
+     */
+    default void messageFailed(String clientName) {
+    }
+
+    /**
+     * 收到入站消息
+     *
+     * @param clientName 客户端名称
+     */
+    default void messageReceived(String clientName) {
+    }
+
+    /**
+     * 订阅方法执行完成
+     *
+     * @param clientName 客户端名称
+     * @param filter 订阅的主题过滤器
+     * @param durationNanos 执行耗时
+     * @param success 是否正常返回
+     */
+    default void handlerExecuted(String clientName, String filter, long durationNanos, boolean success) {
+    }
+
+    /**
+     * 连接断开或连接失败
+     *
+     * @param clientName 客户端名称
+     */
+    default void connectionFailed(String clientName) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.onlytl.mqtt.spring.boot.starter.reactive;
+
+
+import lombok.Getter;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * ReactiveMqttMessage
+ * </p >
+ * 响应式订阅收到的消息。QoS 1/2 消息在调用 {@link #ack()} 后才向 Broker 确认，
+ * 自动确认模式下消息交给下游时即确认。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public final class ReactiveMqttMessage {
+
+    @Getter
+    private final String topic;
+
+    private final MqttMessage message;
+
+    private final Runnable acknowledger;
+
+    private final AtomicBoolean acknowledged = new AtomicBoolean();
+
+    ReactiveMqttMessage(String topic, MqttMessage message, Runnable acknowledger) {
+        this.topic = topic;
+        this.message = message;
+        this.acknowledger = acknowledger;
+    }
+
+    public byte[] getPayload() {
+        return message.getPayload();
+    }
+
+    public String getPayloadAsString() {
+        return new String(message.getPayload(), StandardCharsets.UTF_8);
+    }
+
+    public int getQos() {
+        return message.getQos();
+    }
+
+    public boolean isRetained() {
+        return message.isRetained();
+    }
+
+    public boolean isDuplicate() {
+        return message.isDuplicate();
+    }
+
+    /**
+     * 向 Broker 确认消息，重复调用只确认一次
+     */
+    public void ack() {
+        if (acknowledged.compareAndSet(false, true)) {
+            acknowledger.run();
+        }
+    }
+
+    public boolean isAcknowledged() {
+        return acknowledged.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ReactiveMqttMessage{topic=" + topic + ", qos=" + message.getQos() + ", id=" + message.getId() + "}";
+    }
+}
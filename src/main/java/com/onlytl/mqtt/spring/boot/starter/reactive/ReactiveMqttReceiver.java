@@ -0,0 +1,189 @@
+package com.onlytl.mqtt.spring.boot.starter.reactive;
+
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttCallbackExtended;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * ReactiveMqttReceiver
+ * </p >
+ * 一个响应式订阅对应的接收连接。收到的消息先进入有界窗口，只在下游请求时发出；
+ * 窗口已满时阻塞 Paho 回调线程，连接不再读取新消息，未确认的 QoS 1/2 消息由 Broker 的 in-flight 限制暂停投递。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Slf4j
+final class ReactiveMqttReceiver implements MqttCallbackExtended {
+
+    private static final long OFFER_INTERVAL_MILLIS = 100;
+
+    private static final long DISCONNECT_TIMEOUT_MILLIS = 5000;
+
+    private final IMqttAsyncClient client;
+    private final MqttConnectOptions options;
+    private final String[] filters;
+    private final int[] qos;
+    private final boolean autoAck;
+    private final BlockingQueue<ReactiveMqttMessage> window;
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile FluxSink<ReactiveMqttMessage> sink;
+
+    private volatile boolean cancelled;
+
+    ReactiveMqttReceiver(IMqttAsyncClient client, MqttConnectOptions options,
+                         String[] filters, int qos, boolean autoAck, int windowSize) {
+        this.client = client;
+        this.options = options;
+        this.filters = filters;
+        this.qos = new int[filters.length];
+        Arrays.fill(this.qos, qos);
+        this.autoAck = autoAck;
+        this.window = new ArrayBlockingQueue<>(Math.max(1, windowSize));
+    }
+
+    /**
+     * 连接并订阅，消息通过 sink 发出
+     *
+     * @param sink 下游
+     */
+    void start(FluxSink<ReactiveMqttMessage> sink) {
+        this.sink = sink;
+        sink.onRequest(n -> drain());
+        sink.onDispose(this::close);
+
+        client.setCallback(this);
+        client.setManualAcks(true);
+        try {
+            client.connect(options, null, new IMqttActionListener() {
+                @Override
+                public void onSuccess(IMqttToken token) {
+                    subscribe();
+                }
+
+                @Override
+                public void onFailure(IMqttToken token, Throwable exception) {
+                    sink.error(exception);
+                }
+            });
+        } catch (MqttException e) {
+            sink.error(e);
+        }
+    }
+
+    @Override
+    public void connectComplete(boolean reconnect, String serverURI) {
+        // 自动重连后重新订阅，首次连接在 connect 回调中订阅
+        if (reconnect && !cancelled) {
+            subscribe();
+        }
+    }
+
+    @Override
+    public void connectionLost(Throwable cause) {
+        if (!options.isAutomaticReconnect()) {
+            sink.error(cause);
+        } else {
+            log.warn("Reactive MQTT receiver [{}] lost connection, reconnecting", client.getClientId(), cause);
+        }
+    }
+
+    @Override
+    public void messageArrived(String topic, MqttMessage message) throws Exception {
+        ReactiveMqttMessage received = new ReactiveMqttMessage(topic, message, () -> acknowledge(message));
+        // 窗口已满时阻塞回调线程，直到下游取走消息或订阅取消
+        while (!cancelled && !window.offer(received, OFFER_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+            drain();
+        }
+        drain();
+    }
+
+    @Override
+    public void deliveryComplete(IMqttDeliveryToken token) {
+    }
+
+    int getWindowDepth() {
+        return window.size();
+    }
+
+    private void subscribe() {
+        try {
+            client.subscribe(filters, qos, null, new IMqttActionListener() {
+                @Override
+                public void onSuccess(IMqttToken token) {
+                    log.debug("Reactive MQTT receiver [{}] subscribed to {}",
+                            client.getClientId(), String.join(", ", filters));
+                }
+
+                @Override
+                public void onFailure(IMqttToken token, Throwable exception) {
+                    sink.error(exception);
+                }
+            });
+        } catch (MqttException e) {
+            sink.error(e);
+        }
+    }
+
+    // 按下游的未满足请求数发出窗口中的消息，同一时刻只有一个线程发出
+    private void drain() {
+        FluxSink<ReactiveMqttMessage> sink = this.sink;
+        if (sink == null || wip.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            ReactiveMqttMessage message;
+            while (!cancelled && sink.requestedFromDownstream() > 0 && (message = window.poll()) != null) {
+                sink.next(message);
+                if (autoAck) {
+                    message.ack();
+                }
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+
+    private void acknowledge(MqttMessage message) {
+        if (message.getQos() == 0 || cancelled) {
+            return;
+        }
+        try {
+            client.messageArrivedComplete(message.getId(), message.getQos());
+        } catch (MqttException e) {
+            log.warn("Failed to acknowledge MQTT message {} on receiver [{}]", message.getId(), client.getClientId(), e);
+        }
+    }
+
+    private void close() {
+        cancelled = true;
+        window.clear();
+        // 取消可能发生在 Paho 回调线程中，断开连接交给其他线程执行
+        Schedulers.boundedElastic().schedule(() -> {
+            try {
+                if (client.isConnected()) {
+                    client.disconnectForcibly(DISCONNECT_TIMEOUT_MILLIS);
+                }
+                client.close();
+            } catch (MqttException e) {
+                log.debug("Error closing reactive MQTT receiver [{}]", client.getClientId(), e);
+            }
+        });
+    }
+}
@@ -0,0 +1,150 @@
+package com.onlytl.mqtt.spring.boot.starter.reactive;
+
+
+import com.onlytl.mqtt.spring.boot.starter.config.MqttClientConfiguration;
+import com.onlytl.mqtt.spring.boot.starter.config.MqttProperties;
+import com.onlytl.mqtt.spring.boot.starter.router.TopicTrie;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttOutboundMessage;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttOutboundPool;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttTemplate;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.reactivestreams.Publisher;
+import org.springframework.integration.mqtt.core.MqttPahoClientFactory;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * ReactiveMqttTemplate
+ * </p >
+ * 响应式发送与订阅。发送基于 {@link MqttTemplate#sendAsync} 的投递确认完成；
+ * 订阅为每个 Flux 建立独立的接收连接，按下游请求数从有界窗口中发出消息，
+ * 连接与主客户端共用同一个 {@link MqttPahoClientFactory}。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class ReactiveMqttTemplate {
+
+    private static final String DEFAULT_CLIENT = "default";
+
+    private final MqttTemplate mqttTemplate;
+    private final MqttClientConfiguration mqttClientConfiguration;
+
+    private final AtomicInteger receiverSequence = new AtomicInteger();
+
+    public ReactiveMqttTemplate(MqttTemplate mqttTemplate, MqttClientConfiguration mqttClientConfiguration) {
+        this.mqttTemplate = mqttTemplate;
+        this.mqttClientConfiguration = mqttClientConfiguration;
+    }
+
+    /**
+     * 使用默认客户端发送消息
+     *
+     * @param payload 消息内容
+     * @param topic 主题
+     * @return 收到投递确认时完成的 Mono，订阅时才发送
+     */
+    public Mono<Void> send(Object payload, String topic) {
+        return send(payload, topic, DEFAULT_CLIENT);
+    }
+
+    /**
+     * 发送消息
+     *
+     * @param payload 消息内容
+     * @param topic 主题
+     * @param clientName 客户端名称
+     * @return 收到投递确认时完成的 Mono，订阅时才发送
+     */
+    public Mono<Void> send(Object payload, String topic, String clientName) {
+        return Mono.defer(() -> Mono.fromFuture(mqttTemplate.sendAsync(payload, topic, clientName)));
+    }
+
+    /**
+     * 发送消息，并指定QoS
+     *
+     * @param payload 消息内容
+     * @param topic 主题
+     * @param qos QoS等级
+     * @param clientName 客户端名称
+     * @return 收到投递确认时完成的 Mono，订阅时才发送
+     */
+    public Mono<Void> send(Object payload, String topic, int qos, String clientName) {
+        return Mono.defer(() -> Mono.fromFuture(mqttTemplate.sendAsync(payload, topic, qos, clientName)));
+    }
+
+    /**
+     * 发送消息流，同时等待确认的消息数不超过客户端的 max-inflight（连接池为每个连接之和），
+     * 上游按确认进度被请求
+     *
+     * @param messages 消息流
+     * @param clientName 客户端名称
+     * @return 所有消息确认后完成，任一消息失败时以该异常结束
+     */
+    public Mono<Void> send(Publisher<MqttOutboundMessage> messages, String clientName) {
+        return Mono.defer(() -> {
+            MqttOutboundPool pool = mqttClientConfiguration.getOutboundPools().get(clientName);
+            Assert.notNull(pool, () -> "No MQTT client found with name: " + clientName);
+            int window = Math.max(1, getClientConfig(clientName).getMaxInflight() * pool.size());
+            return Flux.from(messages).flatMap(message -> message.getQos() == null ?
+                    send(message.getPayload(), message.getTopic(), clientName) :
+                    send(message.getPayload(), message.getTopic(), message.getQos(), clientName), window).then();
+        });
+    }
+
+    /**
+     * 使用默认客户端订阅，QoS 1，消息交给下游时自动确认
+     *
+     * @param filters 订阅过滤器
+     * @return 消息流，取消订阅时断开接收连接
+     */
+    public Flux<ReactiveMqttMessage> receive(String... filters) {
+        return receive(DEFAULT_CLIENT, 1, true, filters);
+    }
+
+    /**
+     * 订阅消息流。每次订阅返回的 Flux 都会建立一个独立的接收连接，客户端ID为 {@code <client-id>-reactive-<n>}。
+     * 已收到但下游尚未请求的消息最多为客户端的 receive-window 条，超过时暂停读取。
+     *
+     * @param clientName 客户端名称
+     * @param qos 订阅QoS
+     * @param autoAck 为true时消息交给下游即确认，否则由下游调用 {@link ReactiveMqttMessage#ack()}
+     * @param filters 订阅过滤器
+     * @return 消息流，取消订阅时断开接收连接
+     */
+    public Flux<ReactiveMqttMessage> receive(String clientName, int qos, boolean autoAck, String... filters) {
+        Assert.notEmpty(filters, "At least one topic filter must be specified");
+        for (String filter : filters) {
+            TopicTrie.validateFilter(filter);
+        }
+        Assert.isTrue(qos >= 0 && qos <= 2, "QoS must be 0, 1 or 2");
+
+        return Flux.create(sink -> {
+            MqttProperties.ClientConfig config = getClientConfig(clientName);
+            MqttPahoClientFactory clientFactory = mqttClientConfiguration.getClientFactory(clientName);
+            if (clientFactory == null) {
+                sink.error(new IllegalStateException("MQTT client is not initialized: " + clientName));
+                return;
+            }
+            String clientId = config.getClientId() + "-reactive-" + receiverSequence.incrementAndGet();
+            try {
+                IMqttAsyncClient client = clientFactory.getAsyncClientInstance(config.getServerUri(), clientId);
+                new ReactiveMqttReceiver(client, clientFactory.getConnectionOptions(),
+                        filters, qos, autoAck, config.getReceiveWindow()).start(sink);
+            } catch (MqttException e) {
+                sink.error(e);
+            }
+        });
+    }
+
+    private MqttProperties.ClientConfig getClientConfig(String clientName) {
+        MqttProperties.ClientConfig config = mqttClientConfiguration.getClientConfigs().get(clientName);
+        Assert.notNull(config, () -> "No MQTT client found with name: " + clientName);
+        return config;
+    }
+}
@@ -0,0 +1,61 @@
+package com.onlytl.mqtt.spring.boot.starter.reconnect;
+
+
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+
+import java.util.Date;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * <p>
+ * CoordinatedTaskScheduler
+ * </p >
+ * 订阅适配器使用的调度器。适配器只通过 {@link #schedule(Runnable, Date)} 安排连接断开后的重连，
+ * 该调用交给 {@link MqttReconnectCoordinator}，忽略适配器固定的恢复间隔；其他调用直接交给底层调度器。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+class CoordinatedTaskScheduler implements TaskScheduler {
+
+    private final MqttReconnectCoordinator coordinator;
+    private final String clientName;
+    private final TaskScheduler delegate;
+
+    CoordinatedTaskScheduler(MqttReconnectCoordinator coordinator, String clientName, TaskScheduler delegate) {
+        this.coordinator = coordinator;
+        this.clientName = clientName;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+        return coordinator.scheduleReconnect(clientName, task);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+        return delegate.schedule(task, trigger);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Date startTime, long period) {
+        return delegate.scheduleAtFixedRate(task, startTime, period);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period) {
+        return delegate.scheduleAtFixedRate(task, period);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Date startTime, long delay) {
+        return delegate.scheduleWithFixedDelay(task, startTime, delay);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay) {
+        return delegate.scheduleWithFixedDelay(task, delay);
+    }
+}
@@ -0,0 +1,192 @@
+package com.onlytl.mqtt.spring.boot.starter.reconnect;
+
+
+import com.onlytl.mqtt.spring.boot.starter.config.ReconnectProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * MqttReconnectCoordinator
+ * </p >
+ * 统一调度所有订阅连接的重连。每个客户端按指数退避计算等待上限，实际等待时间在 0 到上限之间均匀随机（full jitter），
+ * Broker 重启后各实例、各客户端的重连分散开；同时进行的连接和重新订阅不超过 maxConcurrent，
+ * 超出时稍后重试，不占用调度线程。订阅成功后该客户端的退避次数清零。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Slf4j
+public class MqttReconnectCoordinator {
+
+    private final ReconnectProperties properties;
+    private final TaskScheduler scheduler;
+    private final Semaphore permits;
+
+    // 客户端名称 -> 连续重连次数
+    private final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+
+    private final Set<ReconnectFuture> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong totalAttempts = new AtomicLong();
+
+    public MqttReconnectCoordinator(ReconnectProperties properties, TaskScheduler scheduler) {
+        this.properties = properties;
+        this.scheduler = scheduler;
+        this.permits = new Semaphore(Math.max(1, properties.getMaxConcurrent()));
+    }
+
+    /**
+     * 为客户端的订阅适配器创建调度器，适配器通过它安排的重连任务由协调器调度
+     *
+     * @param clientName 客户端名称
+     * @return 调度器，其他任务直接交给底层调度器
+     */
+    public TaskScheduler schedulerFor(String clientName) {
+        return new CoordinatedTaskScheduler(this, clientName, scheduler);
+    }
+
+    /**
+     * 安排一次重连
+     *
+     * @param clientName 客户端名称
+     * @param task 连接并重新订阅的任务
+     * @return 可取消的重连任务
+     */
+    public ScheduledFuture<?> scheduleReconnect(String clientName, Runnable task) {
+        int attempt = attempts.computeIfAbsent(clientName, k -> new AtomicInteger()).getAndIncrement();
+        long delay = backoff(attempt);
+        log.debug("Reconnecting MQTT client [{}] in {}ms (attempt {})", clientName, delay, attempt + 1);
+
+        ReconnectFuture future = new ReconnectFuture();
+        pending.add(future);
+        future.schedule(() -> run(clientName, task, future), delay);
+        return future;
+    }
+
+    /**
+     * 客户端已连接并完成订阅，退避次数清零
+     *
+     * @param clientName 客户端名称
+     */
+    public void connected(String clientName) {
+        AtomicInteger count = attempts.get(clientName);
+        if (count != null) {
+            count.set(0);
+        }
+    }
+
+    /**
+     * 客户端连续重连的次数，已连接时为0
+     */
+    public int getAttempts(String clientName) {
+        AtomicInteger count = attempts.get(clientName);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * 等待执行的重连数
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 正在进行的连接和重新订阅数
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * 已执行的重连总数
+     */
+    public long getTotalAttempts() {
+        return totalAttempts.get();
+    }
+
+    // 全量随机：在 [0, min(maxInterval, initialInterval * multiplier^attempt)] 之间均匀分布
+    long backoff(int attempt) {
+        double ceiling = properties.getInitialInterval() * Math.pow(properties.getMultiplier(), attempt);
+        long bound = (long) Math.min(properties.getMaxInterval(), ceiling);
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    private void run(String clientName, Runnable task, ReconnectFuture future) {
+        if (future.isCancelled()) {
+            return;
+        }
+        if (!permits.tryAcquire()) {
+            // 并发连接数已满，随机等待后再试
+            future.schedule(() -> run(clientName, task, future),
+                    ThreadLocalRandom.current().nextLong(Math.max(1, properties.getInitialInterval()) + 1));
+            return;
+        }
+        pending.remove(future);
+        active.incrementAndGet();
+        totalAttempts.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            active.decrementAndGet();
+            permits.release();
+            future.done();
+        }
+    }
+
+    // 重连可能因并发上限被多次推迟，对适配器只暴露一个可取消的任务
+    private final class ReconnectFuture extends CompletableFuture<Void> implements ScheduledFuture<Void> {
+
+        private volatile ScheduledFuture<?> current;
+
+        void schedule(Runnable task, long delayMillis) {
+            synchronized (this) {
+                if (!isCancelled()) {
+                    current = scheduler.schedule(task, Instant.now().plusMillis(delayMillis));
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            synchronized (this) {
+                if (!super.cancel(mayInterruptIfRunning)) {
+                    return false;
+                }
+                if (current != null) {
+                    current.cancel(mayInterruptIfRunning);
+                }
+            }
+            pending.remove(this);
+            return true;
+        }
+
+        void done() {
+            complete(null);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            ScheduledFuture<?> future = current;
+            return future == null ? 0 : future.getDelay(unit);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
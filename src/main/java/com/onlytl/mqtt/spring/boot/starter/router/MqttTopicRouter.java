@@ -0,0 +1,157 @@
+package com.onlytl.mqtt.spring.boot.starter.router;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * MqttTopicRouter
+ * </p >
+ * 基于 {@link TopicTrie} 的主题路由器，构建完成后不可变。
+ * 每个具体主题的匹配结果会缓存在有界缓存中，重复主题只需一次哈希查找。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class MqttTopicRouter<T> {
+
+    private final TopicTrie<Route<T>> trie = new TopicTrie<>();
+
+    // 具体主题 -> 匹配结果（按注册顺序）
+    private final Map<String, List<T>> routeCache = new ConcurrentHashMap<>();
+
+    private final int cacheSize;
+
+    /**
+     * 构建路由器
+     *
+     * @param targets 路由目标，按注册顺序排列
+     * @param filterExtractor 获取目标订阅过滤器的函数
+     * @param cacheSize 路由结果缓存的最大主题数，0表示不缓存
+     */
+    public MqttTopicRouter(List<T> targets, Function<T, String> filterExtractor, int cacheSize) {
+        this.cacheSize = cacheSize;
+        for (int i = 0; i < targets.size(); i++) {
+            T target = targets.get(i);
+            trie.insert(filterExtractor.apply(target), new Route<>(i, target));
+        }
+    }
+
+    /**
+     * 获取与主题匹配的所有目标
+     *
+     * @param topic 实际收到消息的主题
+     * @return 匹配的目标，按注册顺序排列
+     */
+    public List<T> route(String topic) {
+        if (topic == null || trie.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<T> cached = routeCache.get(topic);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<T> resolved = resolve(topic);
+        if (cacheSize > 0) {
+            if (routeCache.size() >= cacheSize) {
+                evictOne();
+            }
+            routeCache.put(topic, resolved);
+        }
+        return resolved;
+    }
+
+    public int getCachedTopicCount() {
+        return routeCache.size();
+    }
+
+    private List<T> resolve(String topic) {
+        List<Route<T>> matched = new ArrayList<>();
+        trie.match(topic, matched);
+        if (matched.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (matched.size() == 1) {
+            return Collections.singletonList(matched.get(0).target);
+        }
+
+        matched.sort(Comparator.comparingInt(route -> route.order));
+        List<T> targets = new ArrayList<>(matched.size());
+        for (Route<T> route : matched) {
+            targets.add(route.target);
+        }
+        return Collections.unmodifiableList(targets);
+    }
+
+    private void evictOne() {
+        Iterator<String> iterator = routeCache.keySet().iterator();
+        if (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 判断单个订阅过滤器是否匹配主题，不分割字符串
+     *
+     * @param filter 订阅过滤器
+     * @param topic 实际主题
+     * @return 是否匹配
+     */
+    public static boolean matches(String filter, String topic) {
+        int filterLength = filter.length();
+        int topicLength = topic.length();
+        if (!topic.isEmpty() && topic.charAt(0) == '$'
+                && filterLength > 0 && (filter.charAt(0) == '+' || filter.charAt(0) == '#')) {
+            return false;
+        }
+
+        int f = 0;
+        int t = 0;
+        while (f <= filterLength) {
+            int filterEnd = filter.indexOf('/', f);
+            if (filterEnd < 0) {
+                filterEnd = filterLength;
+            }
+            if (filterEnd - f == 1 && filter.charAt(f) == '#') {
+                return true;
+            }
+            if (t > topicLength) {
+                return false;
+            }
+
+            int topicEnd = topic.indexOf('/', t);
+            if (topicEnd < 0) {
+                topicEnd = topicLength;
+            }
+            boolean singleLevel = filterEnd - f == 1 && filter.charAt(f) == '+';
+            if (!singleLevel && (filterEnd - f != topicEnd - t
+                    || !filter.regionMatches(f, topic, t, filterEnd - f))) {
+                return false;
+            }
+
+            f = filterEnd + 1;
+            t = topicEnd + 1;
+        }
+        return t > topicLength;
+    }
+
+    private static final class Route<T> {
+        private final int order;
+        private final T target;
+
+        private Route(int order, T target) {
+            this.order = order;
+            this.target = target;
+        }
+    }
+}
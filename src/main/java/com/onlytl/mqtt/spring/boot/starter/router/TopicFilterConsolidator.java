@@ -0,0 +1,124 @@
+package com.onlytl.mqtt.spring.boot.starter.router;
+
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>
+ * TopicFilterConsolidator
+ * </p >
+ * 把客户端的订阅过滤器合并为最小覆盖集：被其他过滤器完全覆盖的过滤器（例如 {@code a/#} 覆盖 {@code a/+/c}）
+ * 不再向 Broker 订阅，覆盖它的过滤器取两者中较高的QoS。Broker 对重叠的订阅会把同一条消息投递多次，
+ * 合并后每条消息只投递一次，本地路由仍按原过滤器派发给所有匹配的订阅方法。
+ * 共享订阅只在同一组内合并，不同组之间、共享与非共享之间的投递语义不同，不互相覆盖。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public final class TopicFilterConsolidator {
+
+    private static final String SHARE_PREFIX = "$share/";
+
+    private TopicFilterConsolidator() {
+    }
+
+    /**
+     * 计算最小覆盖的订阅过滤器集合
+     *
+     * @param filterQos Broker 过滤器（可以带 $share/{group}/ 前缀）及其QoS，同一过滤器只出现一次
+     * @return 合并后的过滤器及其QoS，按首次出现的顺序
+     */
+    public static Map<String, Integer> consolidate(Map<String, Integer> filterQos) {
+        List<String> filters = new ArrayList<>(filterQos.keySet());
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (String filter : filters) {
+            if (!isCoveredByOther(filter, filters)) {
+                result.put(filter, filterQos.get(filter));
+            }
+        }
+        // 被覆盖的过滤器把QoS传给覆盖它的过滤器，覆盖关系可传递，因此直接比较最终保留的过滤器即可
+        for (Map.Entry<String, Integer> entry : filterQos.entrySet()) {
+            if (result.containsKey(entry.getKey())) {
+                continue;
+            }
+            for (Map.Entry<String, Integer> retained : result.entrySet()) {
+                if (covers(retained.getKey(), entry.getKey())) {
+                    retained.setValue(Math.max(retained.getValue(), entry.getValue()));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 判断过滤器 {@code outer} 匹配的主题是否包含 {@code inner} 匹配的所有主题，两者都可以带 $share/{group}/ 前缀
+     *
+     * @param outer 外层过滤器
+     * @param inner 内层过滤器
+     * @return 是否覆盖；共享组不同时为false
+     */
+    public static boolean covers(String outer, String inner) {
+        if (!Objects.equals(group(outer), group(inner))) {
+            return false;
+        }
+        String[] outerLevels = stripGroup(outer).split("/", -1);
+        String[] innerLevels = stripGroup(inner).split("/", -1);
+
+        // 以 + 或 # 开头的过滤器不匹配 $ 开头的主题
+        if (isWildcard(outerLevels[0]) && innerLevels[0].startsWith("$")) {
+            return false;
+        }
+        for (int i = 0; i < outerLevels.length; i++) {
+            String level = outerLevels[i];
+            if ("#".equals(level)) {
+                // # 同时匹配父级，inner 可以正好少一层
+                return innerLevels.length >= i;
+            }
+            if (i >= innerLevels.length) {
+                return false;
+            }
+            String innerLevel = innerLevels[i];
+            if ("#".equals(innerLevel)) {
+                return false;
+            }
+            if (!"+".equals(level) && !level.equals(innerLevel)) {
+                return false;
+            }
+        }
+        return outerLevels.length == innerLevels.length;
+    }
+
+    // 相同的过滤器不互相覆盖，已由调用方去重
+    private static boolean isCoveredByOther(String filter, List<String> filters) {
+        for (String other : filters) {
+            if (!other.equals(filter) && covers(other, filter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isWildcard(String level) {
+        return "+".equals(level) || "#".equals(level);
+    }
+
+    private static String group(String filter) {
+        if (!filter.startsWith(SHARE_PREFIX)) {
+            return null;
+        }
+        int slash = filter.indexOf('/', SHARE_PREFIX.length());
+        return slash < 0 ? null : filter.substring(SHARE_PREFIX.length(), slash);
+    }
+
+    private static String stripGroup(String filter) {
+        if (!filter.startsWith(SHARE_PREFIX)) {
+            return filter;
+        }
+        int slash = filter.indexOf('/', SHARE_PREFIX.length());
+        return slash < 0 ? filter : filter.substring(slash + 1);
+    }
+}
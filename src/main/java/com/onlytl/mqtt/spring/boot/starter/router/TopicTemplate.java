@@ -0,0 +1,162 @@
+package com.onlytl.mqtt.spring.boot.starter.router;
+
+
+import org.springframework.util.Assert;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * TopicTemplate
+ * </p >
+ * 带路径变量的订阅主题，例如 {@code sensors/{deviceId}/temp}。
+ * 注册时把变量层级替换为 {@code +} 作为实际的订阅过滤器，并记录每个变量所在的层级下标，
+ * 收到消息后按下标直接从主题中截取变量值，不使用正则也不分割字符串。
+ * 以 {@code $share/{group}/} 开头的共享订阅会拆分出组名，本地路由只使用后面的过滤器。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public final class TopicTemplate {
+
+    private static final String SHARE_PREFIX = "$share/";
+
+    private final String filter;
+
+    private final String group;
+
+    // 变量名 -> 层级下标，按声明顺序
+    private final Map<String, Integer> variables;
+
+    private TopicTemplate(String filter, String group, Map<String, Integer> variables) {
+        this.filter = filter;
+        this.group = group;
+        this.variables = variables;
+    }
+
+    /**
+     * 解析订阅主题
+     *
+     * @param template 订阅主题，变量必须独占一个层级，可以带 $share/{group}/ 前缀
+     * @return 解析结果，没有变量和共享前缀时过滤器与原主题相同
+     */
+    public static TopicTemplate parse(String template) {
+        Assert.hasLength(template, "Topic filter must not be empty");
+        if (template.startsWith(SHARE_PREFIX)) {
+            int slash = template.indexOf('/', SHARE_PREFIX.length());
+            Assert.isTrue(slash > 0, () -> "Shared subscription must be $share/{group}/{filter}: " + template);
+            String group = template.substring(SHARE_PREFIX.length(), slash);
+            validateGroup(group);
+            return parse(template.substring(slash + 1), group);
+        }
+        return parse(template, null);
+    }
+
+    private static TopicTemplate parse(String template, String group) {
+        Assert.hasLength(template, "Topic filter must not be empty");
+        if (template.indexOf('{') < 0) {
+            TopicTrie.validateFilter(template);
+            return new TopicTemplate(template, group, Collections.emptyMap());
+        }
+
+        StringBuilder filter = new StringBuilder(template.length());
+        Map<String, Integer> variables = new LinkedHashMap<>();
+        int start = 0;
+        int index = 0;
+        int length = template.length();
+        while (start <= length) {
+            int end = template.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (start > 0) {
+                filter.append('/');
+            }
+
+            if (end > start && template.charAt(start) == '{') {
+                Assert.isTrue(template.charAt(end - 1) == '}' && end - start > 2,
+                        () -> "Topic variable must occupy an entire topic level: " + template);
+                String name = template.substring(start + 1, end - 1);
+                Assert.isTrue(variables.put(name, index) == null,
+                        () -> "Duplicate topic variable '" + name + "' in: " + template);
+                filter.append('+');
+            } else {
+                filter.append(template, start, end);
+            }
+
+            start = end + 1;
+            index++;
+        }
+
+        String result = filter.toString();
+        Assert.isTrue(result.indexOf('{') < 0 && result.indexOf('}') < 0,
+                () -> "Topic variable must occupy an entire topic level: " + template);
+        TopicTrie.validateFilter(result);
+        return new TopicTemplate(result, group, Collections.unmodifiableMap(variables));
+    }
+
+    /**
+     * 生成发送给 Broker 的订阅过滤器
+     *
+     * @param group 共享订阅组，为空时不共享
+     * @param filter 订阅过滤器
+     * @return 共享订阅时为 $share/{group}/{filter}，否则为原过滤器
+     */
+    public static String sharedFilter(String group, String filter) {
+        return group == null || group.isEmpty() ? filter : SHARE_PREFIX + group + "/" + filter;
+    }
+
+    /**
+     * 校验共享订阅组名：不能为空，不能包含 /、+、#
+     *
+     * @param group 共享订阅组
+     */
+    public static void validateGroup(String group) {
+        Assert.hasLength(group, "Shared subscription group must not be empty");
+        Assert.isTrue(group.indexOf('/') < 0 && group.indexOf('+') < 0 && group.indexOf('#') < 0,
+                () -> "Shared subscription group must not contain '/', '+' or '#': " + group);
+    }
+
+    /**
+     * 截取主题中指定层级的内容
+     *
+     * @param topic 实际主题
+     * @param index 层级下标（从0开始）
+     * @return 层级内容，层级不存在时返回null
+     */
+    public static String segment(String topic, int index) {
+        int start = 0;
+        for (int i = 0; i < index; i++) {
+            int slash = topic.indexOf('/', start);
+            if (slash < 0) {
+                return null;
+            }
+            start = slash + 1;
+        }
+        int end = topic.indexOf('/', start);
+        return topic.substring(start, end < 0 ? topic.length() : end);
+    }
+
+    /**
+     * 本地路由使用的订阅过滤器，不含 $share 前缀
+     */
+    public String getFilter() {
+        return filter;
+    }
+
+    /**
+     * 主题中以 $share 前缀声明的共享订阅组，没有时为null
+     */
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * 路径变量及其层级下标
+     */
+    public Map<String, Integer> getVariables() {
+        return variables;
+    }
+}
@@ -0,0 +1,228 @@
+package com.onlytl.mqtt.spring.boot.starter.router;
+
+
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * TopicTrie
+ * </p >
+ * 按主题层级组织的订阅过滤器前缀树，支持 MQTT 通配符 {@code +} 与 {@code #}。
+ * 匹配时直接在原始主题字符串上按区间查找子节点，不做 split 也不创建子串。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class TopicTrie<T> {
+
+    private final Node<T> root = new Node<>();
+
+    private int size;
+
+    /**
+     * 插入订阅过滤器
+     *
+     * @param filter 订阅过滤器，例如 sensors/+/temp 或 sensors/#
+     * @param value 过滤器对应的值
+     */
+    public void insert(String filter, T value) {
+        validateFilter(filter);
+
+        Node<T> node = root;
+        int start = 0;
+        int length = filter.length();
+        while (true) {
+            int end = filter.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+
+            if (end - start == 1 && filter.charAt(start) == '#') {
+                node.multiLevelValues = append(node.multiLevelValues, value);
+                size++;
+                return;
+            }
+
+            if (end - start == 1 && filter.charAt(start) == '+') {
+                if (node.singleLevel == null) {
+                    node.singleLevel = new Node<>();
+                }
+                node = node.singleLevel;
+            } else {
+                node = node.getOrCreateChild(filter.substring(start, end));
+            }
+
+            if (end == length) {
+                break;
+            }
+            start = end + 1;
+        }
+
+        node.values = append(node.values, value);
+        size++;
+    }
+
+    /**
+     * 查找与主题匹配的所有值
+     *
+     * @param topic 实际收到消息的主题
+     * @param result 匹配结果的收集列表
+     */
+    public void match(String topic, List<T> result) {
+        // 以$开头的系统主题不能被首层通配符匹配
+        boolean systemTopic = !topic.isEmpty() && topic.charAt(0) == '$';
+        if (!systemTopic) {
+            result.addAll(root.multiLevelValues);
+        }
+
+        int end = segmentEnd(topic, 0);
+        Node<T> exact = root.findChild(topic, 0, end);
+        if (exact != null) {
+            collect(exact, topic, end + 1, result);
+        }
+        if (!systemTopic && root.singleLevel != null) {
+            collect(root.singleLevel, topic, end + 1, result);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 校验订阅过滤器格式：通配符必须独占一个层级，且 # 只能出现在最后
+     *
+     * @param filter 订阅过滤器
+     */
+    public static void validateFilter(String filter) {
+        Assert.hasLength(filter, "Topic filter must not be empty");
+        int length = filter.length();
+        for (int i = 0; i < length; i++) {
+            char c = filter.charAt(i);
+            if (c != '+' && c != '#') {
+                continue;
+            }
+            boolean wholeSegment = (i == 0 || filter.charAt(i - 1) == '/')
+                    && (i == length - 1 || filter.charAt(i + 1) == '/');
+            Assert.isTrue(wholeSegment, () -> "Wildcard must occupy an entire topic level: " + filter);
+            Assert.isTrue(c != '#' || i == length - 1, () -> "'#' must be the last character of filter: " + filter);
+        }
+    }
+
+    private void collect(Node<T> node, String topic, int start, List<T> result) {
+        // # 同时匹配父级本身以及所有子层级
+        result.addAll(node.multiLevelValues);
+
+        if (start > topic.length()) {
+            result.addAll(node.values);
+            return;
+        }
+
+        int end = segmentEnd(topic, start);
+        Node<T> exact = node.findChild(topic, start, end);
+        if (exact != null) {
+            collect(exact, topic, end + 1, result);
+        }
+        if (node.singleLevel != null) {
+            collect(node.singleLevel, topic, end + 1, result);
+        }
+    }
+
+    private static int segmentEnd(String topic, int start) {
+        int end = topic.indexOf('/', start);
+        return end < 0 ? topic.length() : end;
+    }
+
+    private static <T> List<T> append(List<T> values, T value) {
+        List<T> appended = new ArrayList<>(values.size() + 1);
+        appended.addAll(values);
+        appended.add(value);
+        return appended;
+    }
+
+    private static int hash(String s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    // 前缀树节点，子节点使用开放寻址表存放，查找时按主题区间计算哈希并比较
+    private static final class Node<T> {
+        private String[] keys = new String[0];
+        private Object[] children = new Object[0];
+        private int childCount;
+
+        private Node<T> singleLevel;
+        private List<T> values = Collections.emptyList();
+        private List<T> multiLevelValues = Collections.emptyList();
+
+        @SuppressWarnings("unchecked")
+        Node<T> findChild(String topic, int start, int end) {
+            if (childCount == 0) {
+                return null;
+            }
+            int length = end - start;
+            int mask = keys.length - 1;
+            int index = hash(topic, start, end) & mask;
+            while (true) {
+                String key = keys[index];
+                if (key == null) {
+                    return null;
+                }
+                if (key.length() == length && topic.regionMatches(start, key, 0, length)) {
+                    return (Node<T>) children[index];
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        Node<T> getOrCreateChild(String segment) {
+            Node<T> child = findChild(segment, 0, segment.length());
+            if (child != null) {
+                return child;
+            }
+            if ((childCount + 1) * 2 > keys.length) {
+                resize();
+            }
+            child = new Node<>();
+            put(segment, child);
+            return child;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void resize() {
+            String[] oldKeys = keys;
+            Object[] oldChildren = children;
+            int capacity = Math.max(4, oldKeys.length * 2);
+            keys = new String[capacity];
+            children = new Object[capacity];
+            childCount = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    put(oldKeys[i], (Node<T>) oldChildren[i]);
+                }
+            }
+        }
+
+        private void put(String segment, Node<T> child) {
+            int mask = keys.length - 1;
+            int index = hash(segment, 0, segment.length()) & mask;
+            while (keys[index] != null) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = segment;
+            children[index] = child;
+            childCount++;
+        }
+    }
+}
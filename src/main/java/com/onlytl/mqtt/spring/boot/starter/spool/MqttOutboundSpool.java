@@ -0,0 +1,386 @@
+package com.onlytl.mqtt.spring.boot.starter.spool;
+
+
+import com.onlytl.mqtt.spring.boot.starter.config.SpoolProperties;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttOutboundMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * MqttOutboundSpool
+ * </p >
+ * 客户端的离线出站缓存。连接断开期间发送的消息追加到磁盘分段日志，
+ * 由补发线程在连接恢复后按写入顺序发送，每批最多 in-flight 窗口条，全部确认后才移动读取位置。
+ * 缓存中还有待补发消息时新消息同样进入缓存，保证顺序；补发因连接问题中断后整批重发，投递语义为至少一次。
+ * 只有连接不可用引起的发送失败才进入缓存，主题非法、载荷过大等永远无法发送的消息在补发时丢弃，不会阻塞后续消息。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Slf4j
+public class MqttOutboundSpool {
+
+    private static final boolean MQTTV5_PRESENT = ClassUtils.isPresent(
+            "org.eclipse.paho.mqttv5.common.MqttException", MqttOutboundSpool.class.getClassLoader());
+
+    // 表示连接不可用的 Paho 原因码，v3 与 v5 客户端取值相同
+    private static final Set<Integer> CONNECTION_REASON_CODES = new HashSet<>(Arrays.asList(
+            (int) MqttException.REASON_CODE_BROKER_UNAVAILABLE,
+            (int) MqttException.REASON_CODE_CLIENT_TIMEOUT,
+            (int) MqttException.REASON_CODE_CLIENT_DISCONNECTING,
+            (int) MqttException.REASON_CODE_SERVER_CONNECT_ERROR,
+            (int) MqttException.REASON_CODE_CLIENT_NOT_CONNECTED,
+            (int) MqttException.REASON_CODE_CONNECTION_LOST,
+            (int) MqttException.REASON_CODE_CONNECT_IN_PROGRESS,
+            (int) MqttException.REASON_CODE_CLIENT_CLOSED));
+
+    private final String clientName;
+    private final SpoolProperties properties;
+    private final Function<Message<?>, CompletableFuture<Void>> sender;
+    private final int window;
+    private final int defaultQos;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MqttSpoolLog spoolLog;
+
+    private final Object monitor = new Object();
+    private final AtomicLong drainedCount = new AtomicLong();
+    private final AtomicLong discardedCount = new AtomicLong();
+
+    private volatile boolean connected = true;
+    private volatile boolean running;
+    private boolean aboveHighWatermark;
+    private Thread drainThread;
+
+    /**
+     * @param clientName 客户端名称，同时作为缓存文件名前缀
+     * @param properties 缓存配置
+     * @param sender 发送消息并在收到确认后完成的函数
+     * @param window 补发时同时等待确认的最大消息数
+     * @param defaultQos 消息未指定QoS时使用的QoS
+     * @param eventPublisher 水位事件发布器，可以为null
+     * @throws IOException 打开或恢复缓存文件失败
+     */
+    public MqttOutboundSpool(String clientName,
+                             SpoolProperties properties,
+                             Function<Message<?>, CompletableFuture<Void>> sender,
+                             int window,
+                             int defaultQos,
+                             ApplicationEventPublisher eventPublisher) throws IOException {
+        this.clientName = clientName;
+        this.properties = properties;
+        this.sender = sender;
+        this.window = Math.max(1, window);
+        this.defaultQos = defaultQos;
+        this.eventPublisher = eventPublisher;
+        this.spoolLog = new MqttSpoolLog(Paths.get(properties.getDirectory()), clientName, properties);
+    }
+
+    /**
+     * 启动补发线程
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        drainThread = new Thread(this::drainLoop, "mqtt-spool-" + clientName);
+        drainThread.setDaemon(true);
+        drainThread.start();
+    }
+
+    /**
+     * 停止补发线程，把写缓冲刷入文件并关闭缓存，未补发的消息在下次启动时继续补发
+     */
+    public synchronized void stop() {
+        running = false;
+        if (drainThread != null) {
+            drainThread.interrupt();
+            try {
+                drainThread.join(properties.getRetryInterval() + 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            drainThread = null;
+        }
+        try {
+            spoolLog.close();
+        } catch (IOException e) {
+            log.warn("Error closing MQTT outbound spool [{}]", clientName, e);
+        }
+    }
+
+    /**
+     * 新消息是否应该写入缓存：连接断开，或缓存中还有未补发的消息
+     */
+    public boolean shouldSpool() {
+        return !connected || spoolLog.getPendingRecords() > 0;
+    }
+
+    /**
+     * 把消息写入缓存，等待补发
+     *
+     * @param payload 消息内容，必须为 byte[] 或 String
+     * @param topic 主题
+     * @param qos QoS等级
+     * @return 是否写入，DROP_NEWEST 策略下缓存已满时返回false
+     * @throws IllegalStateException REJECT 策略下缓存已满
+     */
+    public boolean spool(Object payload, String topic, int qos) {
+        boolean appended;
+        try {
+            appended = spoolLog.append(MqttOutboundMessage.of(topic, payload, qos));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write MQTT outbound spool [" + clientName + "]", e);
+        }
+        if (appended) {
+            checkWatermarks();
+            synchronized (monitor) {
+                monitor.notifyAll();
+            }
+        } else {
+            log.debug("MQTT outbound spool [{}] is full, dropped message to topic [{}]", clientName, topic);
+        }
+        return appended;
+    }
+
+    /**
+     * 判断发送失败是否由连接不可用引起（连接断开、连接中、无法连接到 Broker 或网络异常），
+     * 只有这类失败的消息应该写入缓存等待补发，其他失败重试也不会成功
+     *
+     * @param failure 发送失败的异常
+     * @return 是否为连接失败
+     */
+    public static boolean isConnectionFailure(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+            if (cause instanceof MqttException &&
+                    CONNECTION_REASON_CODES.contains(((MqttException) cause).getReasonCode())) {
+                return true;
+            }
+            if (MQTTV5_PRESENT && Mqttv5Failures.isConnectionFailure(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 标记连接已断开，之后发送的消息进入缓存，直到补发成功
+     */
+    public void markDisconnected() {
+        if (connected) {
+            connected = false;
+            log.info("MQTT client [{}] disconnected, spooling outbound messages", clientName);
+        }
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * 缓存中待补发的消息数
+     */
+    public long getDepth() {
+        return spoolLog.getPendingRecords();
+    }
+
+    /**
+     * 缓存中待补发的字节数
+     */
+    public long getSizeBytes() {
+        return spoolLog.getPendingBytes();
+    }
+
+    /**
+     * 缓存已满时丢弃的消息数
+     */
+    public long getDroppedCount() {
+        return spoolLog.getDroppedCount();
+    }
+
+    /**
+     * 已补发并确认的消息数
+     */
+    public long getDrainedCount() {
+        return drainedCount.get();
+    }
+
+    /**
+     * 补发时因无法发送（非连接失败）而丢弃的消息数
+     */
+    public long getDiscardedCount() {
+        return discardedCount.get();
+    }
+
+    private void drainLoop() {
+        long intervalNanos = properties.getDrainRate() > 0 ?
+                TimeUnit.SECONDS.toNanos(1) / properties.getDrainRate() : 0;
+        long nextSend = System.nanoTime();
+        while (running) {
+            try {
+                List<MqttSpoolLog.SpooledMessage> batch = spoolLog.read(window);
+                if (batch.isEmpty()) {
+                    synchronized (monitor) {
+                        if (spoolLog.getPendingRecords() == 0) {
+                            monitor.wait(properties.getFlushInterval());
+                        }
+                    }
+                    continue;
+                }
+
+                CompletableFuture<?>[] futures = new CompletableFuture<?>[batch.size()];
+                for (int i = 0; i < futures.length; i++) {
+                    if (intervalNanos > 0) {
+                        long wait = nextSend - System.nanoTime();
+                        if (wait > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                        nextSend = Math.max(nextSend, System.nanoTime() - intervalNanos) + intervalNanos;
+                    }
+                    futures[i] = send(batch.get(i).getMessage());
+                }
+
+                Throwable retryCause = null;
+                List<Integer> failed = new ArrayList<>();
+                List<Throwable> failures = new ArrayList<>();
+                for (int i = 0; i < futures.length; i++) {
+                    try {
+                        futures[i].get();
+                    } catch (ExecutionException e) {
+                        if (isRetryable(e.getCause())) {
+                            retryCause = e.getCause();
+                        } else {
+                            failed.add(i);
+                            failures.add(e.getCause());
+                        }
+                    }
+                }
+                if (retryCause != null) {
+                    // 整批重发，已确认的消息会重复投递
+                    connected = false;
+                    log.debug("Failed to drain MQTT outbound spool [{}], retrying in {}ms",
+                            clientName, properties.getRetryInterval(), retryCause);
+                    pause(properties.getRetryInterval());
+                    continue;
+                }
+                // 重试也无法发送的消息直接丢弃，否则会一直占据缓存头部
+                for (int i = 0; i < failed.size(); i++) {
+                    log.error("Discarded spooled message to topic [{}] for client [{}], it cannot be delivered",
+                            batch.get(failed.get(i)).getMessage().getTopic(), clientName, failures.get(i));
+                }
+
+                spoolLog.commit(batch);
+                drainedCount.addAndGet(batch.size() - failed.size());
+                discardedCount.addAndGet(failed.size());
+                checkWatermarks();
+                if (!connected) {
+                    connected = true;
+                    log.info("MQTT client [{}] reconnected, draining spooled messages", clientName);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error("Error draining MQTT outbound spool [{}]", clientName, e);
+                pause(properties.getRetryInterval());
+            }
+        }
+    }
+
+    // 连接失败和等待确认超时可以重试，其他失败重试也不会成功
+    private static boolean isRetryable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return isConnectionFailure(failure);
+    }
+
+    private CompletableFuture<Void> send(MqttOutboundMessage message) {
+        try {
+            return sender.apply(MessageBuilder.withPayload(message.getPayload())
+                    .setHeader(MqttHeaders.TOPIC, message.getTopic())
+                    .setHeader(MqttHeaders.QOS, message.getQos() == null ? defaultQos : message.getQos())
+                    .build());
+        } catch (RuntimeException e) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    // 等待重试期间仍按 flushInterval 把写缓冲刷入文件
+    private void pause(long millis) {
+        long deadline = System.currentTimeMillis() + millis;
+        long remaining;
+        while (running && (remaining = deadline - System.currentTimeMillis()) > 0) {
+            try {
+                Thread.sleep(Math.min(remaining, Math.max(1, properties.getFlushInterval())));
+                spoolLog.flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.warn("Error flushing MQTT outbound spool [{}]", clientName, e);
+            }
+        }
+    }
+
+    private void checkWatermarks() {
+        if (eventPublisher == null) {
+            return;
+        }
+        long size = spoolLog.getPendingBytes();
+        long high = (long) (properties.getMaxSize() * properties.getHighWatermark());
+        long low = (long) (properties.getMaxSize() * properties.getLowWatermark());
+        boolean crossed;
+        boolean above;
+        synchronized (monitor) {
+            crossed = aboveHighWatermark ? size <= low : size >= high;
+            if (crossed) {
+                aboveHighWatermark = !aboveHighWatermark;
+            }
+            above = aboveHighWatermark;
+        }
+        if (crossed) {
+            eventPublisher.publishEvent(new MqttSpoolWatermarkEvent(
+                    this, clientName, above, spoolLog.getPendingRecords(), size));
+        }
+    }
+
+    // 只有引入 Paho v5 时才加载
+    private static final class Mqttv5Failures {
+
+        static boolean isConnectionFailure(Throwable cause) {
+            return cause instanceof org.eclipse.paho.mqttv5.common.MqttException &&
+                    CONNECTION_REASON_CODES.contains(
+                            ((org.eclipse.paho.mqttv5.common.MqttException) cause).getReasonCode());
+        }
+    }
+}
@@ -0,0 +1,436 @@
+package com.onlytl.mqtt.spring.boot.starter.spool;
+
+
+import com.onlytl.mqtt.spring.boot.starter.config.SpoolProperties;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttOutboundMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * MqttSpoolLog
+ * </p >
+ * 离线出站缓存的分段日志。消息追加到写缓冲，缓冲满或定期刷入当前分段文件，一次写入多条记录；
+ * 分段写满后滚动到新文件，补发完的分段直接删除。已确认的读取位置记录在 ack 文件中，重启后从该位置继续。
+ * <p>
+ * 记录格式：长度(4) + CRC32(4) + QoS(1) + 主题长度(2) + 主题 + 载荷。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Slf4j
+class MqttSpoolLog implements Closeable {
+
+    private static final int RECORD_HEADER_LENGTH = 8;
+    private static final int BODY_HEADER_LENGTH = 3;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final byte DEFAULT_QOS = (byte) 0xFF;
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final String name;
+    private final long segmentSize;
+    private final long maxSize;
+    private final SpoolProperties.DropPolicy dropPolicy;
+
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    private final FileChannel ackChannel;
+    private final ByteBuffer ackBuffer = ByteBuffer.allocate(16);
+
+    // 头部分段中已确认的字节偏移和记录数
+    private long readOffset;
+    private long readRecords;
+
+    private long pendingBytes;
+    private long pendingRecords;
+    private long droppedCount;
+
+    MqttSpoolLog(Path directory, String name, SpoolProperties properties) throws IOException {
+        this.directory = directory;
+        this.name = name;
+        this.segmentSize = properties.getSegmentSize();
+        this.maxSize = properties.getMaxSize();
+        this.dropPolicy = properties.getDropPolicy();
+        Files.createDirectories(directory);
+        this.ackChannel = FileChannel.open(directory.resolve(name + ".ack"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+    }
+
+    /**
+     * 追加一条消息
+     *
+     * @param message 消息，载荷必须为 byte[] 或 String
+     * @return 是否写入，DROP_NEWEST 策略下缓存已满时返回false
+     * @throws IOException 写入文件失败
+     * @throws IllegalStateException REJECT 策略下缓存已满
+     */
+    synchronized boolean append(MqttOutboundMessage message) throws IOException {
+        byte[] topic = message.getTopic().getBytes(StandardCharsets.UTF_8);
+        byte[] payload = toBytes(message.getPayload());
+        int length = BODY_HEADER_LENGTH + topic.length + payload.length;
+        int recordLength = RECORD_HEADER_LENGTH + length;
+
+        while (pendingBytes + recordLength > maxSize) {
+            if (dropPolicy == SpoolProperties.DropPolicy.DROP_OLDEST && segments.size() > 1) {
+                dropHeadSegment();
+                continue;
+            }
+            if (dropPolicy == SpoolProperties.DropPolicy.REJECT) {
+                throw new IllegalStateException("MQTT outbound spool [" + name + "] is full");
+            }
+            droppedCount++;
+            return false;
+        }
+
+        Segment active = segments.peekLast();
+        if (active == null || active.size + recordLength > segmentSize && active.records > 0) {
+            flush();
+            active = openSegment(active == null ? 0 : active.sequence + 1);
+        }
+
+        byte[] body = new byte[length];
+        body[0] = message.getQos() == null ? DEFAULT_QOS : message.getQos().byteValue();
+        body[1] = (byte) (topic.length >>> 8);
+        body[2] = (byte) topic.length;
+        System.arraycopy(topic, 0, body, BODY_HEADER_LENGTH, topic.length);
+        System.arraycopy(payload, 0, body, BODY_HEADER_LENGTH + topic.length, payload.length);
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, length);
+
+        if (writeBuffer.remaining() < recordLength) {
+            flush();
+        }
+        if (writeBuffer.remaining() >= recordLength) {
+            writeBuffer.putInt(length).putInt((int) crc.getValue()).put(body);
+        } else {
+            // 超过写缓冲大小的消息直接写入
+            ByteBuffer record = ByteBuffer.allocate(recordLength);
+            record.putInt(length).putInt((int) crc.getValue()).put(body).flip();
+            writeFully(active, record);
+        }
+        active.size += recordLength;
+        active.records++;
+        pendingBytes += recordLength;
+        pendingRecords++;
+        return true;
+    }
+
+    /**
+     * 读取头部分段中尚未确认的消息，不移动读取位置
+     *
+     * @param max 最多读取的条数
+     * @return 按写入顺序排列的消息，没有时为空
+     * @throws IOException 读取文件失败
+     */
+    synchronized List<SpooledMessage> read(int max) throws IOException {
+        flush();
+        Segment head = segments.peekFirst();
+        while (head != null && readOffset >= head.size && head != segments.peekLast()) {
+            deleteHeadSegment();
+            head = segments.peekFirst();
+        }
+        if (head == null || readOffset >= head.size) {
+            return Collections.emptyList();
+        }
+
+        List<SpooledMessage> messages = new ArrayList<>(Math.min(max, 256));
+        long position = readOffset;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH);
+        while (messages.size() < max && position < head.size) {
+            header.clear();
+            readFully(head.channel, header, position);
+            int length = header.getInt(0);
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(head.channel, body, position + RECORD_HEADER_LENGTH);
+            messages.add(decode(body.array(), head.sequence, position, RECORD_HEADER_LENGTH + length));
+            position += RECORD_HEADER_LENGTH + length;
+        }
+        return messages;
+    }
+
+    /**
+     * 确认已补发的消息，读取位置前移。读取之后所在分段已被 DROP_OLDEST 丢弃的消息不再确认，
+     * 否则读取位置会在下一个分段上前移，跳过尚未补发的消息
+     *
+     * @param messages 之前由 {@link #read(int)} 返回、已全部确认的消息
+     * @throws IOException 写入 ack 文件失败
+     */
+    synchronized void commit(List<SpooledMessage> messages) throws IOException {
+        Segment head = segments.peekFirst();
+        if (head == null || messages.isEmpty()) {
+            return;
+        }
+        long bytes = 0;
+        long records = 0;
+        for (SpooledMessage message : messages) {
+            // 丢弃分段时已扣除其中未确认消息的计数
+            if (message.sequence != head.sequence || message.offset < readOffset) {
+                continue;
+            }
+            bytes += message.length;
+            records++;
+        }
+        if (records == 0) {
+            return;
+        }
+        readOffset += bytes;
+        readRecords += records;
+        pendingBytes -= bytes;
+        pendingRecords -= records;
+
+        if (readOffset >= head.size && head != segments.peekLast()) {
+            deleteHeadSegment();
+        } else {
+            writeAck(head.sequence, readOffset, readRecords);
+        }
+    }
+
+    /**
+     * 把写缓冲中的消息写入当前分段文件
+     *
+     * @throws IOException 写入文件失败
+     */
+    synchronized void flush() throws IOException {
+        Segment active = segments.peekLast();
+        if (active == null || writeBuffer.position() == 0) {
+            return;
+        }
+        writeBuffer.flip();
+        writeFully(active, writeBuffer);
+        writeBuffer.clear();
+    }
+
+    synchronized long getPendingRecords() {
+        return pendingRecords;
+    }
+
+    synchronized long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        for (Segment segment : segments) {
+            segment.channel.close();
+        }
+        segments.clear();
+        ackChannel.close();
+    }
+
+    private void recover() throws IOException {
+        List<Long> sequences = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, name + "-*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                sequences.add(Long.parseLong(fileName.substring(name.length() + 1,
+                        fileName.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(sequences);
+
+        long ackSequence = -1;
+        long ackOffset = 0;
+        long ackRecords = 0;
+        if (ackChannel.size() >= 24) {
+            ByteBuffer ack = ByteBuffer.allocate(24);
+            readFully(ackChannel, ack, 0);
+            ackSequence = ack.getLong(0);
+            ackOffset = ack.getLong(8);
+            ackRecords = ack.getLong(16);
+        }
+
+        for (long sequence : sequences) {
+            Path file = segmentPath(sequence);
+            if (sequence < ackSequence) {
+                Files.deleteIfExists(file);
+                continue;
+            }
+            Segment segment = new Segment(sequence, FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            scan(segment);
+            segments.addLast(segment);
+            pendingBytes += segment.size;
+            pendingRecords += segment.records;
+        }
+
+        Segment head = segments.peekFirst();
+        if (head != null && head.sequence == ackSequence) {
+            readOffset = Math.min(ackOffset, head.size);
+            readRecords = Math.min(ackRecords, head.records);
+            pendingBytes -= readOffset;
+            pendingRecords -= readRecords;
+        }
+        if (pendingRecords > 0) {
+            log.info("Recovered {} spooled MQTT messages for [{}]", pendingRecords, name);
+        }
+    }
+
+    // 统计分段中完整的记录，截掉写入过程中中断的尾部
+    private void scan(Segment segment) throws IOException {
+        long fileSize = segment.channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH);
+        CRC32 crc = new CRC32();
+        while (position + RECORD_HEADER_LENGTH <= fileSize) {
+            header.clear();
+            readFully(segment.channel, header, position);
+            int length = header.getInt(0);
+            if (length < BODY_HEADER_LENGTH || position + RECORD_HEADER_LENGTH + length > fileSize) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(segment.channel, body, position + RECORD_HEADER_LENGTH);
+            crc.reset();
+            crc.update(body.array(), 0, length);
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+            position += RECORD_HEADER_LENGTH + length;
+            segment.records++;
+        }
+        if (position < fileSize) {
+            segment.channel.truncate(position);
+        }
+        segment.size = position;
+    }
+
+    private Segment openSegment(long sequence) throws IOException {
+        Segment segment = new Segment(sequence, FileChannel.open(segmentPath(sequence),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE));
+        segments.addLast(segment);
+        if (segments.size() == 1) {
+            readOffset = 0;
+            readRecords = 0;
+            writeAck(sequence, 0, 0);
+        }
+        return segment;
+    }
+
+    private void dropHeadSegment() throws IOException {
+        Segment head = segments.peekFirst();
+        long bytes = head.size - readOffset;
+        long records = head.records - readRecords;
+        pendingBytes -= bytes;
+        pendingRecords -= records;
+        droppedCount += records;
+        deleteHeadSegment();
+        log.warn("MQTT outbound spool [{}] is full, dropped {} oldest messages", name, records);
+    }
+
+    private void deleteHeadSegment() throws IOException {
+        Segment head = segments.pollFirst();
+        head.channel.close();
+        Files.deleteIfExists(segmentPath(head.sequence));
+        readOffset = 0;
+        readRecords = 0;
+        Segment next = segments.peekFirst();
+        if (next != null) {
+            writeAck(next.sequence, 0, 0);
+        }
+    }
+
+    private void writeAck(long sequence, long offset, long records) throws IOException {
+        ByteBuffer ack = ByteBuffer.allocate(24);
+        ack.putLong(sequence).putLong(offset).putLong(records).flip();
+        while (ack.hasRemaining()) {
+            ackChannel.write(ack, ack.position());
+        }
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(name + "-" + sequence + SEGMENT_SUFFIX);
+    }
+
+    private static void writeFully(Segment segment, ByteBuffer buffer) throws IOException {
+        long position = segment.channel.size();
+        while (buffer.hasRemaining()) {
+            position += segment.channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of MQTT spool segment");
+            }
+        }
+    }
+
+    private static SpooledMessage decode(byte[] body, long sequence, long offset, int recordLength) {
+        int topicLength = ((body[1] & 0xFF) << 8) | (body[2] & 0xFF);
+        String topic = new String(body, BODY_HEADER_LENGTH, topicLength, StandardCharsets.UTF_8);
+        int payloadOffset = BODY_HEADER_LENGTH + topicLength;
+        byte[] payload = new byte[body.length - payloadOffset];
+        System.arraycopy(body, payloadOffset, payload, 0, payload.length);
+        MqttOutboundMessage message = body[0] == DEFAULT_QOS ?
+                MqttOutboundMessage.of(topic, payload) : MqttOutboundMessage.of(topic, payload, body[0]);
+        return new SpooledMessage(message, sequence, offset, recordLength);
+    }
+
+    private static byte[] toBytes(Object payload) {
+        if (payload instanceof byte[]) {
+            return (byte[]) payload;
+        }
+        if (payload instanceof String) {
+            return ((String) payload).getBytes(StandardCharsets.UTF_8);
+        }
+        throw new IllegalArgumentException("MQTT outbound spool only supports byte[] and String payloads, got: " +
+                (payload == null ? null : payload.getClass().getName()));
+    }
+
+    /**
+     * 从缓存中读出的消息，以及所在分段、偏移和记录长度
+     */
+    static final class SpooledMessage {
+        private final MqttOutboundMessage message;
+        private final long sequence;
+        private final long offset;
+        private final int length;
+
+        private SpooledMessage(MqttOutboundMessage message, long sequence, long offset, int length) {
+            this.message = message;
+            this.sequence = sequence;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        MqttOutboundMessage getMessage() {
+            return message;
+        }
+    }
+
+    private static final class Segment {
+        private final long sequence;
+        private final FileChannel channel;
+        private long size;
+        private long records;
+
+        private Segment(long sequence, FileChannel channel) {
+            this.sequence = sequence;
+            this.channel = channel;
+        }
+    }
+}
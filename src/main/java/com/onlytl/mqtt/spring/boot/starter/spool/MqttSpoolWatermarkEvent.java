@@ -0,0 +1,63 @@
+package com.onlytl.mqtt.spring.boot.starter.spool;
+
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * <p>
+ * MqttSpoolWatermarkEvent
+ * </p >
+ * 离线出站缓存超过高水位或回落到低水位以下时发布的事件，可用于限流生产方或告警
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class MqttSpoolWatermarkEvent extends ApplicationEvent {
+
+    private final String clientName;
+
+    private final boolean high;
+
+    private final long depth;
+
+    private final long sizeBytes;
+
+    public MqttSpoolWatermarkEvent(Object source, String clientName, boolean high, long depth, long sizeBytes) {
+        super(source);
+        this.clientName = clientName;
+        this.high = high;
+        this.depth = depth;
+        this.sizeBytes = sizeBytes;
+    }
+
+    public String getClientName() {
+        return clientName;
+    }
+
+    /**
+     * 为true时表示超过高水位，为false时表示回落到低水位以下
+     */
+    public boolean isHigh() {
+        return high;
+    }
+
+    /**
+     * 事件发生时缓存中待补发的消息数
+     */
+    public long getDepth() {
+        return depth;
+    }
+
+    /**
+     * 事件发生时缓存中待补发的字节数
+     */
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "MqttSpoolWatermarkEvent [clientName=" + clientName + ", high=" + high +
+                ", depth=" + depth + ", sizeBytes=" + sizeBytes + "]";
+    }
+}
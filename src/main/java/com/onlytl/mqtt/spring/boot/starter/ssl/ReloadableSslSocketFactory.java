@@ -0,0 +1,72 @@
+package com.onlytl.mqtt.spring.boot.starter.ssl;
+
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * <p>
+ * ReloadableSslSocketFactory
+ * </p >
+ * 委托给当前 {@link SSLContext} 的套接字工厂。证书重新加载后替换委托对象，
+ * 已建立的连接不受影响，之后新建的连接使用新证书。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+class ReloadableSslSocketFactory extends SSLSocketFactory {
+
+    private volatile SSLSocketFactory delegate;
+
+    ReloadableSslSocketFactory(SSLContext sslContext) {
+        this.delegate = sslContext.getSocketFactory();
+    }
+
+    void update(SSLContext sslContext) {
+        this.delegate = sslContext.getSocketFactory();
+    }
+
+    @Override
+    public String[] getDefaultCipherSuites() {
+        return delegate.getDefaultCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return delegate.getSupportedCipherSuites();
+    }
+
+    @Override
+    public Socket createSocket() throws IOException {
+        return delegate.createSocket();
+    }
+
+    @Override
+    public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException {
+        return delegate.createSocket(socket, host, port, autoClose);
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        return delegate.createSocket(host, port);
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+        return delegate.createSocket(host, port, localHost, localPort);
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        return delegate.createSocket(host, port);
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+            throws IOException {
+        return delegate.createSocket(address, port, localAddress, localPort);
+    }
+}
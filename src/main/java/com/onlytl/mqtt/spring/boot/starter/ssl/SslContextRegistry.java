@@ -0,0 +1,217 @@
+package com.onlytl.mqtt.spring.boot.starter.ssl;
+
+
+import com.onlytl.mqtt.spring.boot.starter.config.SslProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.StringUtils;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.File;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>
+ * SslContextRegistry
+ * </p >
+ * 按证书配置共享 {@link SSLContext}。证书配置相同的客户端共用同一个上下文及其 TLS 会话缓存，
+ * 证书文件只解析一次。
+ * <p>
+ * 配置了 reloadInterval 时定期检查证书文件的修改时间和大小，变化后重新构建上下文：
+ * 新建的连接立即使用新证书，已建立的连接按 rolloverInterval 间隔（加随机抖动）逐个重连，避免同时断开。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Slf4j
+public class SslContextRegistry implements DisposableBean {
+
+    private final Map<List<Object>, Entry> entries = new ConcurrentHashMap<>();
+
+    private final List<ScheduledFuture<?>> watchers = new CopyOnWriteArrayList<>();
+
+    private TaskScheduler scheduler;
+
+    /**
+     * 获取证书配置对应的套接字工厂，首次获取时构建上下文
+     *
+     * @param sslProperties SSL配置
+     * @return 共享的套接字工厂，证书重新加载后自动使用新证书；未启用SSL时为null
+     * @throws Exception 加载证书失败
+     */
+    public SSLSocketFactory getSocketFactory(SslProperties sslProperties) throws Exception {
+        if (!sslProperties.isEnabled()) {
+            return null;
+        }
+        List<Object> key = key(sslProperties);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            synchronized (entries) {
+                entry = entries.get(key);
+                if (entry == null) {
+                    entry = new Entry(snapshot(sslProperties));
+                    entries.put(key, entry);
+                }
+            }
+        }
+        return entry.socketFactory;
+    }
+
+    /**
+     * 注册证书重新加载后需要执行的重连动作，每个已建立的连接注册一个
+     *
+     * @param sslProperties SSL配置
+     * @param reconnect 断开并重新建立连接的动作
+     */
+    public void registerRollover(SslProperties sslProperties, Runnable reconnect) {
+        Entry entry = entries.get(key(sslProperties));
+        if (entry != null) {
+            entry.rollovers.add(reconnect);
+        }
+    }
+
+    /**
+     * 按各配置的 reloadInterval 开始检查证书文件，已开始时不做任何操作
+     *
+     * @param scheduler 检查和重连使用的调度器
+     */
+    public synchronized void startWatching(TaskScheduler scheduler) {
+        if (this.scheduler != null) {
+            return;
+        }
+        this.scheduler = scheduler;
+        for (Entry entry : entries.values()) {
+            long interval = entry.sslProperties.getReloadInterval();
+            if (interval > 0) {
+                watchers.add(scheduler.scheduleWithFixedDelay(() -> reloadIfChanged(entry), Duration.ofMillis(interval)));
+            }
+        }
+    }
+
+    /**
+     * 立即检查所有证书文件，变化的配置重新构建上下文并逐个重连
+     *
+     * @return 重新加载的配置数
+     */
+    public int reload() {
+        int reloaded = 0;
+        for (Entry entry : entries.values()) {
+            if (reloadIfChanged(entry)) {
+                reloaded++;
+            }
+        }
+        return reloaded;
+    }
+
+    /**
+     * 已缓存的证书配置数
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void destroy() {
+        for (ScheduledFuture<?> watcher : watchers) {
+            watcher.cancel(false);
+        }
+        watchers.clear();
+    }
+
+    private boolean reloadIfChanged(Entry entry) {
+        List<Long> stamps = stamps(entry.sslProperties);
+        synchronized (entry) {
+            if (stamps.equals(entry.stamps)) {
+                return false;
+            }
+            try {
+                entry.socketFactory.update(new SslContextBuilder(entry.sslProperties).build());
+            } catch (Exception e) {
+                // 证书可能还没有写完，保留旧证书，下次检查时重试
+                log.warn("Failed to reload MQTT SSL certificates, keeping the current ones", e);
+                return false;
+            }
+            entry.stamps = stamps;
+        }
+        log.info("Reloaded MQTT SSL certificates, rolling over {} connections", entry.rollovers.size());
+        scheduleRollover(entry);
+        return true;
+    }
+
+    private void scheduleRollover(Entry entry) {
+        long interval = entry.sslProperties.getRolloverInterval();
+        List<Runnable> rollovers = new ArrayList<>(entry.rollovers);
+        long delay = 0;
+        for (Runnable rollover : rollovers) {
+            Runnable task = () -> {
+                try {
+                    rollover.run();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to roll over MQTT connection after certificate reload", e);
+                }
+            };
+            if (scheduler == null || interval <= 0) {
+                task.run();
+                continue;
+            }
+            delay += interval;
+            long jitter = ThreadLocalRandom.current().nextLong(interval / 2 + 1);
+            scheduler.schedule(task, Instant.now().plusMillis(delay + jitter));
+        }
+    }
+
+    // 只取影响证书内容的字段，重新加载相关配置不同的客户端仍共享上下文
+    private static List<Object> key(SslProperties sslProperties) {
+        return Arrays.asList(sslProperties.getProtocol(), sslProperties.getCertType(),
+                sslProperties.getCaFile(), sslProperties.getClientCertFile(), sslProperties.getClientKeyFile(),
+                sslProperties.getClientKeyPassword(), sslProperties.getTrustStore(),
+                sslProperties.getTrustStorePassword(), sslProperties.getKeyStore(),
+                sslProperties.getKeyStorePassword());
+    }
+
+    private static SslProperties snapshot(SslProperties sslProperties) {
+        SslProperties copy = new SslProperties();
+        BeanUtils.copyProperties(sslProperties, copy);
+        return copy;
+    }
+
+    // 文件系统中证书文件的修改时间和大小，类路径资源不会变化
+    private static List<Long> stamps(SslProperties sslProperties) {
+        List<Long> stamps = new ArrayList<>();
+        for (String location : Arrays.asList(sslProperties.getCaFile(), sslProperties.getClientCertFile(),
+                sslProperties.getClientKeyFile(), sslProperties.getTrustStore(), sslProperties.getKeyStore())) {
+            if (!StringUtils.hasText(location) || location.startsWith("classpath:")) {
+                continue;
+            }
+            File file = new File(location);
+            stamps.add(file.lastModified());
+            stamps.add(file.length());
+        }
+        return stamps;
+    }
+
+    private static final class Entry {
+        private final SslProperties sslProperties;
+        private final ReloadableSslSocketFactory socketFactory;
+        private final List<Runnable> rollovers = new CopyOnWriteArrayList<>();
+        private List<Long> stamps;
+
+        private Entry(SslProperties sslProperties) throws Exception {
+            this.sslProperties = sslProperties;
+            this.stamps = stamps(sslProperties);
+            this.socketFactory = new ReloadableSslSocketFactory(new SslContextBuilder(sslProperties).build());
+        }
+    }
+}
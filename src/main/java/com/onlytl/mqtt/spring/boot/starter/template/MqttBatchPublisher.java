@@ -0,0 +1,136 @@
+package com.onlytl.mqtt.spring.boot.starter.template;
+
+
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * MqttBatchPublisher
+ * </p >
+ * 流水线批量发送器：客户端处理器只解析一次，同时等待确认的消息数不超过发送窗口，
+ * 窗口已满时阻塞调用线程，直到有消息收到确认。调用 {@link #complete()} 后返回汇总结果。
+ * 实例不是线程安全的，应由单个线程提交消息。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class MqttBatchPublisher {
+
+    private final Function<Message<?>, CompletableFuture<Void>> sender;
+    private final int defaultQos;
+    private final Semaphore window;
+
+    private final Queue<MqttBatchResult.Failure> failures = new ConcurrentLinkedQueue<>();
+    private final CompletableFuture<MqttBatchResult> result = new CompletableFuture<>();
+
+    // 未完成的消息数，外加一个在 complete() 之前保留的计数
+    private final AtomicInteger outstanding = new AtomicInteger(1);
+
+    private int submitted;
+    private boolean completed;
+
+    MqttBatchPublisher(Function<Message<?>, CompletableFuture<Void>> sender, int defaultQos, int windowSize) {
+        Assert.isTrue(windowSize > 0, "In-flight window size must be positive");
+        this.sender = sender;
+        this.defaultQos = defaultQos;
+        this.window = new Semaphore(windowSize);
+    }
+
+    /**
+     * 发送消息到指定主题，使用客户端默认QoS
+     *
+     * @param payload 消息内容
+     * @param topic 主题
+     */
+    public void publish(Object payload, String topic) {
+        publish(MqttOutboundMessage.of(topic, payload));
+    }
+
+    /**
+     * 提交一条消息，发送窗口已满时等待
+     *
+     * @param outbound 待发送的消息
+     * @throws MessagingException 等待发送窗口时被中断
+     */
+    public void publish(MqttOutboundMessage outbound) {
+        Assert.state(!completed, "Batch publisher has already been completed");
+        try {
+            window.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for the MQTT in-flight window", e);
+        }
+
+        int index = submitted++;
+        outstanding.incrementAndGet();
+
+        Message<?> message = MessageBuilder.withPayload(outbound.getPayload())
+                .setHeader(MqttHeaders.TOPIC, outbound.getTopic())
+                .setHeader(MqttHeaders.QOS, outbound.getQos() != null ? outbound.getQos() : defaultQos)
+                .build();
+
+        CompletableFuture<Void> delivery;
+        try {
+            delivery = sender.apply(message);
+        } catch (RuntimeException e) {
+            delivery = new CompletableFuture<>();
+            delivery.completeExceptionally(e);
+        }
+        delivery.whenComplete((ignored, ex) -> {
+            if (ex != null) {
+                failures.add(new MqttBatchResult.Failure(index, outbound, ex));
+            }
+            window.release();
+            release();
+        });
+    }
+
+    /**
+     * 结束提交
+     *
+     * @return 所有已提交消息完成（确认或失败）后完成的汇总结果
+     */
+    public CompletableFuture<MqttBatchResult> complete() {
+        if (!completed) {
+            completed = true;
+            release();
+        }
+        return result;
+    }
+
+    /**
+     * 已提交的消息数
+     */
+    public int getSubmittedCount() {
+        return submitted;
+    }
+
+    /**
+     * 正在等待确认的消息数
+     */
+    public int getInFlightCount() {
+        return outstanding.get() - (completed ? 0 : 1);
+    }
+
+    private void release() {
+        if (outstanding.decrementAndGet() == 0) {
+            List<MqttBatchResult.Failure> sorted = new ArrayList<>(failures);
+            sorted.sort(Comparator.comparingInt(MqttBatchResult.Failure::getIndex));
+            result.complete(new MqttBatchResult(submitted, sorted));
+        }
+    }
+}
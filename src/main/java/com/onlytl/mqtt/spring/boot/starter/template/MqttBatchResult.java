@@ -0,0 +1,65 @@
+package com.onlytl.mqtt.spring.boot.starter.template;
+
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * <p>
+ * MqttBatchResult
+ * </p >
+ * 批量发送的汇总结果
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Getter
+@ToString
+public class MqttBatchResult {
+
+    /**
+     * 提交发送的消息总数
+     */
+    private final int total;
+
+    /**
+     * 发送失败的消息，按提交顺序排列
+     */
+    private final List<Failure> failures;
+
+    public MqttBatchResult(int total, List<Failure> failures) {
+        this.total = total;
+        this.failures = failures;
+    }
+
+    public int getSucceeded() {
+        return total - failures.size();
+    }
+
+    public boolean isSuccess() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * 单条消息的发送失败信息
+     */
+    @Getter
+    @ToString
+    public static class Failure {
+
+        /**
+         * 消息在批次中的序号（从0开始）
+         */
+        private final int index;
+        private final MqttOutboundMessage message;
+        private final Throwable cause;
+
+        public Failure(int index, MqttOutboundMessage message, Throwable cause) {
+            this.index = index;
+            this.message = message;
+            this.cause = cause;
+        }
+    }
+}
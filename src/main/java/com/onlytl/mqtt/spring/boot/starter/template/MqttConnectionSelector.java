@@ -0,0 +1,73 @@
+package com.onlytl.mqtt.spring.boot.starter.template;
+
+
+import com.onlytl.mqtt.spring.boot.starter.config.MqttProperties;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * MqttConnectionSelector
+ * </p >
+ * 出站连接池的连接选择策略
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@FunctionalInterface
+public interface MqttConnectionSelector {
+
+    /**
+     * 为一条消息选择出站连接
+     *
+     * @param topic 消息主题
+     * @param connections 连接池中的连接，至少包含一个
+     * @return 选中的连接
+     */
+    MqttOutboundConnection select(String topic, List<MqttOutboundConnection> connections);
+
+    /**
+     * 根据配置的策略创建选择器
+     */
+    static MqttConnectionSelector of(MqttProperties.PoolStrategy strategy) {
+        switch (strategy) {
+            case LEAST_INFLIGHT:
+                return leastInflight();
+            case TOPIC_HASH:
+                return topicHash();
+            case ROUND_ROBIN:
+            default:
+                return roundRobin();
+        }
+    }
+
+    static MqttConnectionSelector roundRobin() {
+        AtomicInteger counter = new AtomicInteger();
+        return (topic, connections) ->
+                connections.get(Math.floorMod(counter.getAndIncrement(), connections.size()));
+    }
+
+    static MqttConnectionSelector leastInflight() {
+        return (topic, connections) -> {
+            MqttOutboundConnection selected = connections.get(0);
+            int least = selected.getInFlightCount();
+            for (int i = 1; i < connections.size() && least > 0; i++) {
+                MqttOutboundConnection candidate = connections.get(i);
+                int inFlight = candidate.getInFlightCount();
+                if (inFlight < least) {
+                    selected = candidate;
+                    least = inFlight;
+                }
+            }
+            return selected;
+        };
+    }
+
+    static MqttConnectionSelector topicHash() {
+        return (topic, connections) -> {
+            int hash = topic.hashCode();
+            return connections.get(Math.floorMod(hash ^ (hash >>> 16), connections.size()));
+        };
+    }
+}
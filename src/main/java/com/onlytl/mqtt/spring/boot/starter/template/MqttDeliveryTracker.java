@@ -0,0 +1,152 @@
+package com.onlytl.mqtt.spring.boot.starter.template;
+
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.integration.mqtt.event.MqttConnectionFailedEvent;
+import org.springframework.integration.mqtt.event.MqttMessageDeliveredEvent;
+import org.springframework.integration.mqtt.event.MqttMessageSentEvent;
+import org.springframework.messaging.MessagingException;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * MqttDeliveryTracker
+ * </p >
+ * 跟踪单个出站连接的投递状态：作为出站处理器的事件发布器接收发送/投递完成事件，
+ * 在收到 PUBACK（QoS 1）或 PUBCOMP（QoS 2）时完成对应的 {@link CompletableFuture}，
+ * 并把事件继续转发给应用上下文。
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Slf4j
+public class MqttDeliveryTracker implements ApplicationEventPublisher {
+
+    // 发送线程上正在发布的消息对应的 Future，发送事件在同一线程中同步发布
+    private final ThreadLocal<CompletableFuture<Void>> publishing = new ThreadLocal<>();
+
+    // 消息ID -> 等待投递完成的 Future
+    private final Map<Integer, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+
+    // 先于发送事件到达的投递完成通知
+    private final Set<Integer> earlyDeliveries = ConcurrentHashMap.newKeySet();
+
+    // 同步发送、不需要跟踪但尚未确认的消息ID
+    private final Set<Integer> untracked = ConcurrentHashMap.newKeySet();
+
+    private final ApplicationEventPublisher delegate;
+
+    public MqttDeliveryTracker(ApplicationEventPublisher delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * 在当前线程发布消息并跟踪投递结果
+     *
+     * @param publisher 实际的发布动作
+     * @return 投递完成时完成的 Future
+     */
+    public CompletableFuture<Void> track(Runnable publisher) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        publishing.set(future);
+        try {
+            publisher.run();
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        } finally {
+            publishing.remove();
+        }
+        return future;
+    }
+
+    /**
+     * 等待投递完成的消息数（包括同步发送的消息）
+     */
+    public int getInFlightCount() {
+        return pending.size() + untracked.size();
+    }
+
+    @Override
+    public void publishEvent(ApplicationEvent event) {
+        if (event instanceof MqttMessageSentEvent) {
+            onSent((MqttMessageSentEvent) event);
+        } else if (event instanceof MqttMessageDeliveredEvent) {
+            onDelivered(((MqttMessageDeliveredEvent) event).getMessageId());
+        } else if (event instanceof MqttConnectionFailedEvent) {
+            onConnectionFailed(event);
+        }
+
+        if (delegate != null) {
+            delegate.publishEvent(event);
+        }
+    }
+
+    @Override
+    public void publishEvent(Object event) {
+        if (event instanceof ApplicationEvent) {
+            publishEvent((ApplicationEvent) event);
+        } else if (delegate != null) {
+            delegate.publishEvent(event);
+        }
+    }
+
+    private void onSent(MqttMessageSentEvent event) {
+        int messageId = event.getMessageId();
+        CompletableFuture<Void> future = publishing.get();
+        if (future == null) {
+            if (messageId != 0 && !earlyDeliveries.remove(messageId)) {
+                untracked.add(messageId);
+            }
+            return;
+        }
+
+        // QoS 0 没有消息ID和确认，交给客户端即视为完成
+        if (messageId == 0 || earlyDeliveries.remove(messageId)) {
+            future.complete(null);
+            return;
+        }
+
+        pending.put(messageId, future);
+        future.whenComplete((result, ex) -> pending.remove(messageId, future));
+        // 投递完成可能在登记前到达
+        if (earlyDeliveries.remove(messageId)) {
+            future.complete(null);
+        }
+    }
+
+    private void onDelivered(int messageId) {
+        if (messageId == 0) {
+            return;
+        }
+        CompletableFuture<Void> future = pending.remove(messageId);
+        if (future != null) {
+            future.complete(null);
+        } else if (!untracked.remove(messageId)) {
+            earlyDeliveries.add(messageId);
+        }
+    }
+
+    private void onConnectionFailed(ApplicationEvent event) {
+        untracked.clear();
+        earlyDeliveries.clear();
+        if (pending.isEmpty()) {
+            return;
+        }
+        // 没有原因时补上连接断开的原因码，离线缓存据此判断可以重发
+        Throwable cause = ((MqttConnectionFailedEvent) event).getCause();
+        MessagingException failure = new MessagingException("MQTT connection lost before delivery completed",
+                cause != null ? cause : new MqttException(MqttException.REASON_CODE_CONNECTION_LOST));
+        log.warn("MQTT connection lost, failing {} in-flight deliveries", pending.size());
+        for (CompletableFuture<Void> future : pending.values()) {
+            future.completeExceptionally(failure);
+        }
+        pending.clear();
+    }
+}
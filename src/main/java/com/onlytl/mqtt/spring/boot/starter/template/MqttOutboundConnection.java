@@ -0,0 +1,76 @@
+package com.onlytl.mqtt.spring.boot.starter.template;
+
+
+import org.springframework.integration.mqtt.outbound.AbstractMqttMessageHandler;
+import org.springframework.messaging.Message;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>
+ * MqttOutboundConnection
+ * </p >
+ * 出站连接：一个 Paho 出站处理器（v3 或 v5）及其投递跟踪器
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class MqttOutboundConnection {
+
+    private final AbstractMqttMessageHandler messageHandler;
+    private final MqttDeliveryTracker deliveryTracker;
+
+    /**
+     * @param messageHandler 出站处理器
+     * @param deliveryTracker 投递跟踪器，为null时只支持同步发送
+     */
+    public MqttOutboundConnection(AbstractMqttMessageHandler messageHandler, MqttDeliveryTracker deliveryTracker) {
+        this.messageHandler = messageHandler;
+        this.deliveryTracker = deliveryTracker;
+    }
+
+    /**
+     * 发送消息，不等待投递确认
+     */
+    public void send(Message<?> message) {
+        messageHandler.handleMessage(message);
+    }
+
+    /**
+     * 发送消息并跟踪投递结果
+     *
+     * @return 收到投递确认时完成的Future
+     */
+    public CompletableFuture<Void> sendTracked(Message<?> message) {
+        if (deliveryTracker == null) {
+            throw new IllegalStateException("Delivery tracking is not enabled for MQTT client: "
+                    + messageHandler.getClientId());
+        }
+        return deliveryTracker.track(() -> messageHandler.handleMessage(message));
+    }
+
+    /**
+     * 断开当前连接，下次发送时按最新的连接参数（如重新加载的证书）重新连接。
+     * 断开前等待在途消息完成，与断开同时进行的发送可能失败
+     */
+    public void reconnect() {
+        // 出站处理器没有作为 Bean 启动，先标记为运行中才能通过 stop() 断开连接
+        messageHandler.start();
+        messageHandler.stop();
+    }
+
+    /**
+     * 等待投递确认的消息数
+     */
+    public int getInFlightCount() {
+        return deliveryTracker == null ? 0 : deliveryTracker.getInFlightCount();
+    }
+
+    public AbstractMqttMessageHandler getMessageHandler() {
+        return messageHandler;
+    }
+
+    public MqttDeliveryTracker getDeliveryTracker() {
+        return deliveryTracker;
+    }
+}
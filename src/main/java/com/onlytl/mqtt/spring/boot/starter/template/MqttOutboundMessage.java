@@ -0,0 +1,41 @@
+package com.onlytl.mqtt.spring.boot.starter.template;
+
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * <p>
+ * MqttOutboundMessage
+ * </p >
+ * 批量发送中的一条消息
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+@Getter
+@ToString
+public class MqttOutboundMessage {
+
+    private final String topic;
+    private final Object payload;
+
+    /**
+     * QoS等级，为null时使用客户端默认QoS
+     */
+    private final Integer qos;
+
+    private MqttOutboundMessage(String topic, Object payload, Integer qos) {
+        this.topic = topic;
+        this.payload = payload;
+        this.qos = qos;
+    }
+
+    public static MqttOutboundMessage of(String topic, Object payload) {
+        return new MqttOutboundMessage(topic, payload, null);
+    }
+
+    public static MqttOutboundMessage of(String topic, Object payload, int qos) {
+        return new MqttOutboundMessage(topic, payload, qos);
+    }
+}
@@ -0,0 +1,90 @@
+package com.onlytl.mqtt.spring.boot.starter.template;
+
+
+import org.springframework.util.Assert;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * MqttOutboundPool
+ * </p >
+ * 一个逻辑客户端的出站连接池，按 {@link MqttConnectionSelector} 为每条消息选择连接
+ *
+ * @author TL
+ * @version 1.0.0
+ */
+public class MqttOutboundPool {
+
+    private final List<MqttOutboundConnection> connections;
+
+    private volatile MqttConnectionSelector selector;
+
+    // 首次选择连接时执行一次的动作，用于懒加载客户端
+    private volatile Runnable connectAction;
+
+    public MqttOutboundPool(List<MqttOutboundConnection> connections, MqttConnectionSelector selector) {
+        Assert.notEmpty(connections, "Outbound pool requires at least one connection");
+        Assert.notNull(selector, "Connection selector must not be null");
+        this.connections = Collections.unmodifiableList(connections);
+        this.selector = selector;
+    }
+
+    /**
+     * 为指定主题的消息选择连接
+     */
+    public MqttOutboundConnection select(String topic) {
+        if (connectAction != null) {
+            runConnectAction();
+        }
+        if (connections.size() == 1) {
+            return connections.get(0);
+        }
+        return selector.select(topic, connections);
+    }
+
+    /**
+     * 替换连接选择策略
+     */
+    public void setSelector(MqttConnectionSelector selector) {
+        Assert.notNull(selector, "Connection selector must not be null");
+        this.selector = selector;
+    }
+
+    /**
+     * 设置首次选择连接时执行的动作，动作必须可以重复执行且不阻塞发送线程
+     *
+     * @param connectAction 首次发送时执行的动作，为null时清除
+     */
+    public void setConnectAction(Runnable connectAction) {
+        this.connectAction = connectAction;
+    }
+
+    public List<MqttOutboundConnection> getConnections() {
+        return connections;
+    }
+
+    public int size() {
+        return connections.size();
+    }
+
+    private void runConnectAction() {
+        Runnable action = connectAction;
+        if (action != null) {
+            connectAction = null;
+            action.run();
+        }
+    }
+
+    /**
+     * 所有连接等待投递确认的消息总数
+     */
+    public int getInFlightCount() {
+        int total = 0;
+        for (MqttOutboundConnection connection : connections) {
+            total += connection.getInFlightCount();
+        }
+        return total;
+    }
+}
@@ -1,16 +1,27 @@
 package com.onlytl.mqtt.spring.boot.starter.template;
 
 
+import com.onlytl.mqtt.spring.boot.starter.codec.MqttCodecChain;
 import com.onlytl.mqtt.spring.boot.starter.config.MqttProperties;
+import com.onlytl.mqtt.spring.boot.starter.metrics.MqttMetrics;
+import com.onlytl.mqtt.spring.boot.starter.spool.MqttOutboundSpool;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.integration.mqtt.outbound.MqttPahoMessageHandler;
+import org.springframework.integration.mqtt.outbound.AbstractMqttMessageHandler;
 import org.springframework.integration.mqtt.support.MqttHeaders;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessagingException;
 import org.springframework.util.Assert;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * <p>
@@ -23,15 +34,45 @@ import java.util.Map;
 @Slf4j
 public class MqttTemplate {
 
-    private final Map<String, MqttPahoMessageHandler> messageHandlers;
+    private final Map<String, ? extends AbstractMqttMessageHandler> messageHandlers;
+    private final Map<String, MqttOutboundPool> outboundPools;
     private final Map<String, MqttProperties.ClientConfig> clientConfigs;
 
-    public MqttTemplate(Map<String, MqttPahoMessageHandler> messageHandlers,
+    private MqttMetrics metrics = MqttMetrics.NOOP;
+
+    // 客户端名称 -> 离线出站缓存，未启用缓存的客户端没有条目
+    private Map<String, MqttOutboundSpool> outboundSpools = Collections.emptyMap();
+
+    // 客户端名称 -> 载荷编码链，未启用编码的客户端没有条目
+    private Map<String, MqttCodecChain> codecChains = Collections.emptyMap();
+
+    /**
+     * 使用单个出站处理器创建，只支持同步发送
+     */
+    public MqttTemplate(Map<String, ? extends AbstractMqttMessageHandler> messageHandlers,
                         Map<String, MqttProperties.ClientConfig> clientConfigs) {
+        this(messageHandlers, new ConcurrentHashMap<>(), clientConfigs);
+    }
+
+    private MqttTemplate(Map<String, ? extends AbstractMqttMessageHandler> messageHandlers,
+                         Map<String, MqttOutboundPool> outboundPools,
+                         Map<String, MqttProperties.ClientConfig> clientConfigs) {
         this.messageHandlers = messageHandlers;
+        this.outboundPools = outboundPools;
         this.clientConfigs = clientConfigs;
     }
 
+    /**
+     * 使用出站连接池创建，支持异步发送和批量发送
+     *
+     * @param outboundPools 客户端名称 -> 出站连接池，上下文刷新后填充
+     * @param clientConfigs 客户端名称 -> 客户端配置
+     */
+    public static MqttTemplate pooled(Map<String, MqttOutboundPool> outboundPools,
+                                      Map<String, MqttProperties.ClientConfig> clientConfigs) {
+        return new MqttTemplate(Collections.emptyMap(), outboundPools, clientConfigs);
+    }
+
     /**
      * 发送消息到默认主题
      *
@@ -67,25 +108,278 @@ public class MqttTemplate {
      * @param clientName 客户端名称
      */
     public void send(Object payload, String topic, int qos, String clientName) {
-        MqttPahoMessageHandler messageHandler = messageHandlers.get(clientName);
-        if (messageHandler == null) {
-            throw new IllegalStateException("No MQTT client found with name: " + clientName);
+        send(payload, topic, qos, Collections.emptyMap(), clientName);
+    }
+
+    /**
+     * 发送消息到指定主题，并附带消息头。MQTT 5 客户端把名称匹配 user-property-headers 的消息头作为用户属性发送，
+     * MQTT 3 客户端忽略附带的消息头
+     *
+     * @param payload 消息内容
+     * @param topic 主题
+     * @param qos QoS等级
+     * @param headers 消息头，写入离线缓存的消息不保留消息头
+     * @param clientName 客户端名称
+     * @throws IllegalStateException 启用离线缓存时缓存已满、消息没有写入缓存
+     */
+    public void send(Object payload, String topic, int qos, Map<String, ?> headers, String clientName) {
+        MqttOutboundPool pool = getOutboundPool(clientName);
+        payload = encode(payload, topic, clientName);
+        MqttOutboundSpool spool = outboundSpools.get(clientName);
+        if (spool != null && spool.shouldSpool()) {
+            spool(spool, payload, topic, qos, clientName);
+            return;
         }
 
-        Message<?> message = MessageBuilder.withPayload(payload)
-                .setHeader(MqttHeaders.TOPIC, topic)
-                .setHeader(MqttHeaders.QOS, qos)
-                .build();
+        Message<?> message = buildMessage(payload, topic, qos, headers);
 
+        long start = System.nanoTime();
         try {
-            messageHandler.handleMessage(message);
+            pool.select(topic).send(message);
+            metrics.messageSent(clientName, false, System.nanoTime() - start);
             log.debug("Sent message to topic [{}] with client [{}]", topic, clientName);
         } catch (MessagingException e) {
+            if (spool != null && MqttOutboundSpool.isConnectionFailure(e)) {
+                // 连接已断开，转入离线缓存等待补发；其他失败（如主题非法）重试也不会成功，直接抛出
+                spool.markDisconnected();
+                spool(spool, payload, topic, qos, clientName);
+                return;
+            }
+            metrics.messageFailed(clientName);
             log.error("Failed to send message to topic [{}] with client [{}]", topic, clientName, e);
             throw e;
         }
     }
 
+    /**
+     * 异步发送消息到指定主题
+     *
+     * @param payload 消息内容
+     * @param topic 主题
+     * @param clientName 客户端名称
+     * @return 收到 PUBACK（QoS 1）或 PUBCOMP（QoS 2）时完成的Future，QoS 0 在交给客户端后完成
+     */
+    public CompletableFuture<Void> sendAsync(Object payload, String topic, String clientName) {
+        MqttProperties.ClientConfig config = getClientConfig(clientName);
+        return sendAsync(payload, topic, config.getDefaultQos(), clientName);
+    }
+
+    /**
+     * 异步发送消息到指定主题，并指定QoS
+     *
+     * @param payload 消息内容
+     * @param topic 主题
+     * @param qos QoS等级
+     * @param clientName 客户端名称
+     * @return 收到 PUBACK（QoS 1）或 PUBCOMP（QoS 2）时完成的Future，QoS 0 在交给客户端后完成；
+     * 发送失败、连接断开或等待确认超时时异常完成。启用离线缓存时，连接断开期间的消息写入缓存后即完成，
+     * 缓存已满、消息没有写入缓存时以 IllegalStateException 异常完成
+     */
+    public CompletableFuture<Void> sendAsync(Object payload, String topic, int qos, String clientName) {
+        return sendAsync(payload, topic, qos, Collections.emptyMap(), clientName);
+    }
+
+    /**
+     * 异步发送消息到指定主题，并附带消息头。MQTT 5 客户端把名称匹配 user-property-headers 的消息头作为用户属性发送
+     *
+     * @param payload 消息内容
+     * @param topic 主题
+     * @param qos QoS等级
+     * @param headers 消息头，写入离线缓存的消息不保留消息头
+     * @param clientName 客户端名称
+     * @return 与 {@link #sendAsync(Object, String, int, String)} 相同
+     */
+    public CompletableFuture<Void> sendAsync(Object payload, String topic, int qos,
+                                             Map<String, ?> headers, String clientName) {
+        payload = encode(payload, topic, clientName);
+        MqttOutboundSpool spool = outboundSpools.get(clientName);
+        if (spool != null && spool.shouldSpool()) {
+            return spoolAsync(spool, payload, topic, qos, clientName);
+        }
+
+        Message<?> message = buildMessage(payload, topic, qos, headers);
+
+        CompletableFuture<Void> future = resolveSender(clientName).apply(message);
+        if (spool != null && future.isCompletedExceptionally()
+                && MqttOutboundSpool.isConnectionFailure(failureOf(future))) {
+            // 交给客户端时因连接不可用立即失败，转入离线缓存等待补发
+            spool.markDisconnected();
+            return spoolAsync(spool, payload, topic, qos, clientName);
+        }
+        if (future.isCompletedExceptionally()) {
+            log.error("Failed to send message to topic [{}] with client [{}]", topic, clientName);
+        } else {
+            log.debug("Sent message asynchronously to topic [{}] with client [{}]", topic, clientName);
+        }
+        return future;
+    }
+
+    /**
+     * 批量发送消息，同时等待确认的消息数不超过客户端的 max-inflight（连接池为每个连接的 max-inflight 之和）
+     *
+     * @param messages 待发送的消息
+     * @param clientName 客户端名称
+     * @return 所有消息确认或失败后完成的汇总结果，包含每条失败消息的原因
+     */
+    public CompletableFuture<MqttBatchResult> sendBatch(Collection<MqttOutboundMessage> messages, String clientName) {
+        MqttBatchPublisher publisher = openBatch(clientName);
+        for (MqttOutboundMessage message : messages) {
+            publisher.publish(message);
+        }
+        return publisher.complete();
+    }
+
+    /**
+     * 打开流式批量发送器，适用于消息逐步产生、无法事先放入集合的场景
+     *
+     * @param clientName 客户端名称
+     * @return 批量发送器，提交完成后调用 {@link MqttBatchPublisher#complete()} 获取汇总结果
+     */
+    public MqttBatchPublisher openBatch(String clientName) {
+        MqttProperties.ClientConfig config = getClientConfig(clientName);
+        int window = config.getMaxInflight() * getOutboundPool(clientName).size();
+        return new MqttBatchPublisher(encodingSender(clientName, resolveSender(clientName)),
+                config.getDefaultQos(), window);
+    }
+
+    /**
+     * 替换客户端出站连接池的连接选择策略
+     *
+     * @param clientName 客户端名称
+     * @param selector 连接选择策略
+     */
+    public void setConnectionSelector(String clientName, MqttConnectionSelector selector) {
+        getOutboundPool(clientName).setSelector(selector);
+    }
+
+    // 解析客户端的出站连接池，返回发送消息并跟踪投递结果的函数
+    private Function<Message<?>, CompletableFuture<Void>> resolveSender(String clientName) {
+        MqttOutboundPool pool = getOutboundPool(clientName);
+        long deliveryTimeout = getClientConfig(clientName).getDeliveryTimeout();
+
+        MqttMetrics metrics = this.metrics;
+
+        return message -> {
+            String topic = message.getHeaders().get(MqttHeaders.TOPIC, String.class);
+            long start = System.nanoTime();
+            CompletableFuture<Void> future = pool.select(topic).sendTracked(message);
+            if (deliveryTimeout > 0 && !future.isDone()) {
+                future.orTimeout(deliveryTimeout, TimeUnit.MILLISECONDS);
+            }
+            if (metrics.isEnabled()) {
+                future.whenComplete((ignored, ex) -> {
+                    if (ex == null) {
+                        metrics.messageSent(clientName, true, System.nanoTime() - start);
+                    } else {
+                        metrics.messageFailed(clientName);
+                    }
+                });
+            }
+            return future;
+        };
+    }
+
+    // 批量发送的消息在交给连接之前编码
+    private Function<Message<?>, CompletableFuture<Void>> encodingSender(
+            String clientName, Function<Message<?>, CompletableFuture<Void>> sender) {
+        MqttCodecChain codecChain = codecChains.get(clientName);
+        if (codecChain == null) {
+            return sender;
+        }
+        return message -> {
+            Object payload = message.getPayload();
+            Object encoded = codecChain.encode(message.getHeaders().get(MqttHeaders.TOPIC, String.class), payload);
+            return sender.apply(encoded == payload ? message :
+                    MessageBuilder.withPayload(encoded).copyHeaders(message.getHeaders()).build());
+        };
+    }
+
+    private Object encode(Object payload, String topic, String clientName) {
+        MqttCodecChain codecChain = codecChains.get(clientName);
+        return codecChain == null ? payload : codecChain.encode(topic, payload);
+    }
+
+    public void setMetrics(MqttMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 设置离线出站缓存，启用缓存的客户端在连接断开期间发送的消息写入缓存，恢复后按顺序补发
+     *
+     * @param outboundSpools 客户端名称 -> 离线出站缓存，上下文刷新后填充
+     */
+    public void setOutboundSpools(Map<String, MqttOutboundSpool> outboundSpools) {
+        this.outboundSpools = outboundSpools;
+    }
+
+    private static Message<?> buildMessage(Object payload, String topic, int qos, Map<String, ?> headers) {
+        return MessageBuilder.withPayload(payload)
+                .copyHeaders(headers)
+                .setHeader(MqttHeaders.TOPIC, topic)
+                .setHeader(MqttHeaders.QOS, qos)
+                .build();
+    }
+
+    /**
+     * 设置载荷编码链，启用编码的客户端发送的 String 和 byte[] 载荷按编码链压缩
+     *
+     * @param codecChains 客户端名称 -> 载荷编码链，上下文刷新后填充
+     */
+    public void setCodecChains(Map<String, MqttCodecChain> codecChains) {
+        this.codecChains = codecChains;
+    }
+
+    private static Throwable failureOf(CompletableFuture<?> future) {
+        try {
+            future.getNow(null);
+            return null;
+        } catch (CompletionException | CancellationException e) {
+            return e.getCause() != null ? e.getCause() : e;
+        }
+    }
+
+    // 写入离线缓存，缓存不接受消息时（DROP_NEWEST 丢弃或 REJECT 拒绝）抛出异常，不能让调用方误以为已发送
+    private void spool(MqttOutboundSpool spool, Object payload, String topic, int qos, String clientName) {
+        boolean spooled;
+        try {
+            spooled = spool.spool(payload, topic, qos);
+        } catch (RuntimeException e) {
+            metrics.messageFailed(clientName);
+            throw e;
+        }
+        if (!spooled) {
+            metrics.messageFailed(clientName);
+            throw new IllegalStateException("MQTT outbound spool for client [" + clientName
+                    + "] is full, dropped message to topic [" + topic + "]");
+        }
+        log.debug("Spooled message to topic [{}] with client [{}]", topic, clientName);
+    }
+
+    // 异步发送写入离线缓存，缓存不接受消息时返回异常完成的Future
+    private CompletableFuture<Void> spoolAsync(MqttOutboundSpool spool, Object payload, String topic, int qos,
+                                               String clientName) {
+        try {
+            spool(spool, payload, topic, qos, clientName);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private MqttOutboundPool getOutboundPool(String clientName) {
+        MqttOutboundPool pool = outboundPools.get(clientName);
+        if (pool == null) {
+            AbstractMqttMessageHandler messageHandler = messageHandlers.get(clientName);
+            if (messageHandler == null) {
+                throw new IllegalStateException("No MQTT client found with name: " + clientName);
+            }
+            pool = outboundPools.computeIfAbsent(clientName, name -> new MqttOutboundPool(
+                    Collections.singletonList(new MqttOutboundConnection(messageHandler, null)),
+                    MqttConnectionSelector.roundRobin()));
+        }
+        return pool;
+    }
+
     private MqttProperties.ClientConfig getClientConfig(String clientName) {
         MqttProperties.ClientConfig config = clientConfigs.get(clientName);
         if (config == null) {
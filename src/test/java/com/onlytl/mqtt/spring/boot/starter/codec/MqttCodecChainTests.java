@@ -0,0 +1,163 @@
+package com.onlytl.mqtt.spring.boot.starter.codec;
+
+import com.onlytl.mqtt.spring.boot.starter.config.CodecProperties;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MqttCodecChainTests {
+
+    private final MqttPayloadCodecs codecs = new MqttPayloadCodecs(Collections.emptyList());
+
+    @Test
+    void compressesLargePayloadsAndLeavesSmallOnesUntouched() {
+        MqttCodecChain chain = codecs.createChain(properties("deflate"));
+        String json = telemetryJson(200);
+
+        byte[] encoded = (byte[]) chain.encode("telemetry/device-1", json);
+        assertThat(encoded[0]).isEqualTo(MqttCodecChain.MARKER);
+        assertThat(encoded.length).isLessThan(json.length() / 4);
+        assertThat(new String(chain.decode(encoded), StandardCharsets.UTF_8)).isEqualTo(json);
+
+        String small = "{\"t\":1}";
+        assertThat(chain.encode("telemetry/device-1", small)).isSameAs(small);
+        byte[] raw = small.getBytes(StandardCharsets.UTF_8);
+        assertThat(chain.decode(raw)).isSameAs(raw);
+    }
+
+    @Test
+    void escapesRawPayloadsStartingWithMarker() {
+        MqttCodecChain chain = codecs.createChain(properties("deflate"));
+        byte[] random = new byte[2048];
+        new Random(7).nextBytes(random);
+        random[0] = MqttCodecChain.MARKER;
+
+        byte[] encoded = (byte[]) chain.encode("binary", random);
+        assertThat(encoded).hasSize(random.length + 2);
+        assertThat(chain.decode(encoded)).isEqualTo(random);
+
+        byte[] tiny = {MqttCodecChain.MARKER, 1};
+        assertThat(chain.decode((byte[]) chain.encode("binary", tiny))).isEqualTo(tiny);
+    }
+
+    @Test
+    void usesMostSpecificFilterAndStacksStages() {
+        CodecProperties properties = properties("deflate");
+        properties.getFilters().put("telemetry/#", Arrays.asList("zstd", "deflate"));
+        properties.getFilters().put("telemetry/raw/#", Collections.emptyList());
+        MqttCodecChain chain = codecs.createChain(properties);
+        String json = telemetryJson(100);
+
+        assertThat(chain.encode("telemetry/raw/device-1", json)).isSameAs(json);
+
+        byte[] stacked = (byte[]) chain.encode("telemetry/device-1", json);
+        assertThat(stacked[1]).isIn((byte) 1, (byte) 2);
+        assertThat(new String(chain.decode(stacked), StandardCharsets.UTF_8)).isEqualTo(json);
+
+        byte[] other = (byte[]) chain.encode("events/device-1", json);
+        assertThat(other[1]).isEqualTo((byte) 1);
+        assertThat(new String(chain.decode(other), StandardCharsets.UTF_8)).isEqualTo(json);
+    }
+
+    @Test
+    void roundTripsLz4AndRejectsCorruptedInput() {
+        MqttCodecChain chain = codecs.createChain(properties("lz4"));
+        String json = telemetryJson(200);
+
+        byte[] encoded = (byte[]) chain.encode("telemetry/device-1", json);
+        assertThat(encoded[1]).isEqualTo((byte) 3);
+        assertThat(encoded.length).isLessThan(json.length() / 2);
+        assertThat(new String(chain.decode(encoded), StandardCharsets.UTF_8)).isEqualTo(json);
+
+        // 截断的数据和被篡改的数据都不能越界读取，也不能返回长度不符的结果
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length / 2);
+        assertThatThrownBy(() -> chain.decode(truncated)).isInstanceOf(IllegalArgumentException.class);
+
+        byte[] corrupted = encoded.clone();
+        for (int i = 6; i < corrupted.length; i += 7) {
+            corrupted[i] = (byte) 0xFF;
+        }
+        assertThatThrownBy(() -> chain.decode(corrupted)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void decodesOnlyTopicsCoveredByTheChain() {
+        CodecProperties properties = properties();
+        properties.getFilters().put("telemetry/#", Collections.singletonList("deflate"));
+        properties.getFilters().put("telemetry/raw/#", Collections.emptyList());
+        properties.getDecodeFilters().add("inbound/#");
+        MqttCodecChain chain = codecs.createChain(properties);
+        String json = telemetryJson(100);
+        byte[] encoded = (byte[]) chain.encode("telemetry/device-1", json);
+
+        assertThat(new String(chain.decode("telemetry/device-1", encoded), StandardCharsets.UTF_8)).isEqualTo(json);
+        assertThat(new String(chain.decode("inbound/device-1", encoded), StandardCharsets.UTF_8)).isEqualTo(json);
+
+        // 不经编码链发布的二进制载荷恰好以标记字节开头，在未编码的主题上原样派发
+        byte[] raw = {MqttCodecChain.MARKER, 0, 1, 2, 3};
+        assertThat(chain.decode("firmware/device-1", raw)).isSameAs(raw);
+        assertThat(chain.decode("telemetry/raw/device-1", raw)).isSameAs(raw);
+        assertThat(chain.decodes("firmware/device-1")).isFalse();
+        assertThat(chain.decodes(null)).isFalse();
+    }
+
+    @Test
+    void rejectsUnknownCodecs() {
+        assertThatThrownBy(() -> codecs.createChain(properties("brotli")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("brotli");
+
+        byte[] unknown = {MqttCodecChain.MARKER, 99, 0, 0, 0, 1, 0};
+        assertThatThrownBy(() -> codecs.createChain(properties("deflate")).decode(unknown))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsForgedLengthsBeforeAllocating() {
+        MqttCodecChain chain = codecs.createChain(properties("deflate"));
+
+        byte[] huge = {MqttCodecChain.MARKER, 1, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+        assertThatThrownBy(() -> chain.decode(huge))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("max decoded size");
+
+        // 未超过上限但超过压缩比：10 字节的编码数据声明 1MB 原始长度
+        byte[] ratio = new byte[16];
+        ratio[0] = MqttCodecChain.MARKER;
+        ratio[1] = 1;
+        ratio[3] = 0x10;
+        assertThatThrownBy(() -> chain.decode(ratio)).isInstanceOf(IllegalArgumentException.class);
+
+        CodecProperties small = properties("deflate");
+        small.setMaxDecodedSize(1024);
+        byte[] encoded = (byte[]) chain.encode("telemetry", telemetryJson(200));
+        assertThatThrownBy(() -> codecs.createChain(small).decode(encoded))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static CodecProperties properties(String... chain) {
+        CodecProperties properties = new CodecProperties();
+        properties.setEnabled(true);
+        properties.setChain(Arrays.asList(chain));
+        properties.setMinSize(256);
+        return properties;
+    }
+
+    private static String telemetryJson(int readings) {
+        StringBuilder json = new StringBuilder("{\"device\":\"device-1\",\"readings\":[");
+        for (int i = 0; i < readings; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"sensor\":\"temperature\",\"unit\":\"celsius\",\"value\":")
+                    .append(20 + i % 7).append(".5,\"ts\":").append(1700000000000L + i * 1000L).append('}');
+        }
+        return json.append("]}").toString();
+    }
+}
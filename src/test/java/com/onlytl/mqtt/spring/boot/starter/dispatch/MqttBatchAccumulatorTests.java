@@ -0,0 +1,121 @@
+package com.onlytl.mqtt.spring.boot.starter.dispatch;
+
+import com.onlytl.mqtt.spring.boot.starter.handler.MqttSubscriptionInvoker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MqttBatchAccumulatorTests {
+
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+    private final Listener listener = new Listener();
+
+    MqttBatchAccumulatorTests() {
+        scheduler.initialize();
+    }
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void flushesPayloadsWhenBatchIsFull() {
+        MqttBatchAccumulator accumulator = accumulator("payloads", 3, 60_000);
+        for (int i = 0; i < 7; i++) {
+            accumulator.add(MessageBuilder.withPayload("p" + i).build());
+        }
+
+        assertThat(listener.batches).hasSize(2);
+        assertThat(listener.batches.get(0)).containsExactly("p0", "p1", "p2");
+
+        accumulator.close();
+        assertThat(listener.batches.get(2)).containsExactly("p6");
+    }
+
+    @Test
+    void flushesMessagesOnTimeout() throws InterruptedException {
+        MqttBatchAccumulator accumulator = accumulator("messages", 100, 50);
+        Message<String> message = MessageBuilder.withPayload("p").build();
+        accumulator.add(message);
+
+        assertThat(listener.flushed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(listener.batches.get(0)).containsExactly(message);
+    }
+
+    @Test
+    void invokesBatchesInOrderOnMultiThreadedExecutor() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            MqttBatchAccumulator accumulator = accumulator("payloads", 1, 60_000, executor);
+            for (int i = 0; i < 200; i++) {
+                accumulator.add(MessageBuilder.withPayload("p" + i).build());
+            }
+            accumulator.close();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(listener.batches.stream().map(batch -> batch.get(0)).collect(Collectors.toList()))
+                .isEqualTo(IntStream.range(0, 200).mapToObj(i -> "p" + i).collect(Collectors.toList()));
+        assertThat(listener.maxConcurrent.get()).isEqualTo(1);
+    }
+
+    private MqttBatchAccumulator accumulator(String methodName, int batchSize, long timeoutMs) {
+        return accumulator(methodName, batchSize, timeoutMs, null);
+    }
+
+    private MqttBatchAccumulator accumulator(String methodName, int batchSize, long timeoutMs, Executor executor) {
+        Method method = ReflectionUtils.findMethod(Listener.class, methodName, List.class);
+        SubscriptionInfo subscription = SubscriptionInfo.builder()
+                .bean(listener)
+                .method(method)
+                .topic("sensors/#")
+                .invoker(MqttSubscriptionInvoker.compile(listener, method))
+                .batchSize(batchSize)
+                .batchTimeoutMs(timeoutMs)
+                .build();
+        subscription.setExecutor(executor);
+        return new MqttBatchAccumulator(subscription, "default", scheduler);
+    }
+
+    static class Listener {
+        private final List<List<Object>> batches = new CopyOnWriteArrayList<>();
+        private final CountDownLatch flushed = new CountDownLatch(1);
+
+        private final AtomicInteger concurrent = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        public void payloads(List<Object> payloads) {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            batches.add(payloads);
+            concurrent.decrementAndGet();
+        }
+
+        @SuppressWarnings("unchecked")
+        public void messages(List<Message<String>> messages) {
+            batches.add((List<Object>) (List<?>) messages);
+            flushed.countDown();
+        }
+    }
+}
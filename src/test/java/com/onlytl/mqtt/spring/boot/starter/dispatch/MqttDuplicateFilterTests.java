@@ -0,0 +1,162 @@
+package com.onlytl.mqtt.spring.boot.starter.dispatch;
+
+import com.onlytl.mqtt.spring.boot.starter.config.BufferProperties;
+import com.onlytl.mqtt.spring.boot.starter.config.DedupProperties;
+import com.onlytl.mqtt.spring.boot.starter.config.DispatchProperties;
+import com.onlytl.mqtt.spring.boot.starter.handler.DefaultMqttMessageHandler;
+import com.onlytl.mqtt.spring.boot.starter.handler.MqttSubscriptionInvoker;
+import com.onlytl.mqtt.spring.boot.starter.router.MqttTopicRouter;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class MqttDuplicateFilterTests {
+
+    @Test
+    void suppressesRedeliveredMessageIds() {
+        MqttDuplicateFilter filter = new MqttDuplicateFilter(new DedupProperties(), null);
+
+        assertThat(filter.isDuplicate(message("orders/1", "a", 7, false), "orders/1")).isFalse();
+        assertThat(filter.isDuplicate(message("orders/1", "a", 7, true), "orders/1")).isTrue();
+        // 报文ID复用：没有重发标记的新消息不是重复
+        assertThat(filter.isDuplicate(message("orders/1", "b", 7, false), "orders/1")).isFalse();
+        // 原消息没有收到时，重发的消息照常派发
+        assertThat(filter.isDuplicate(message("orders/2", "c", 8, true), "orders/2")).isFalse();
+        // QoS 0 消息不去重
+        assertThat(filter.isDuplicate(message("orders/1", "d", 0, true), "orders/1")).isFalse();
+
+        assertThat(filter.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotSuppressRedeliveryOfNewMessageReusingPacketId() {
+        MqttDuplicateFilter filter = new MqttDuplicateFilter(new DedupProperties(), null);
+
+        assertThat(filter.isDuplicate(message("orders/1", "first", 9, false), "orders/1")).isFalse();
+        // 复用报文ID的新消息首次传输在断线中丢失，只收到带重发标记的重发
+        assertThat(filter.isDuplicate(message("orders/1", "second", 9, true), "orders/1")).isFalse();
+        assertThat(filter.isDuplicate(message("orders/1", "second", 9, true), "orders/1")).isTrue();
+        assertThat(filter.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void fingerprintsPayloadsPerTopic() {
+        DedupProperties dedup = new DedupProperties();
+        dedup.setKey(DedupProperties.DedupKey.PAYLOAD);
+        MqttDuplicateFilter filter = new MqttDuplicateFilter(dedup, null);
+
+        assertThat(filter.isDuplicate(message("sensors/1", "21.5", 1, false), "sensors/1")).isFalse();
+        assertThat(filter.isDuplicate(message("sensors/2", "21.5", 2, false), "sensors/2")).isFalse();
+        assertThat(filter.isDuplicate(message("sensors/1", "21.6", 3, false), "sensors/1")).isFalse();
+        assertThat(filter.isDuplicate(message("sensors/1", "21.5", 4, false), "sensors/1")).isTrue();
+    }
+
+    @Test
+    void usesCustomKeyExtractor() {
+        DedupProperties dedup = new DedupProperties();
+        dedup.setKey(DedupProperties.DedupKey.EXTRACTOR);
+        MqttDuplicateFilter filter = new MqttDuplicateFilter(dedup, (message, topic) -> {
+            String payload = new String((byte[]) message.getPayload(), StandardCharsets.UTF_8);
+            return payload.startsWith("#") ? null : payload.substring(0, payload.indexOf(':'));
+        });
+
+        assertThat(filter.isDuplicate(message("orders", "A1:created", 1, false), "orders")).isFalse();
+        assertThat(filter.isDuplicate(message("orders", "A1:created again", 2, false), "orders")).isTrue();
+        assertThat(filter.isDuplicate(message("orders", "#heartbeat", 3, false), "orders")).isFalse();
+        assertThat(filter.isDuplicate(message("orders", "#heartbeat", 4, false), "orders")).isFalse();
+
+        dedup.setKey(DedupProperties.DedupKey.HEADER);
+        assertThatIllegalArgumentException().isThrownBy(() -> new MqttDuplicateFilter(dedup, null));
+    }
+
+    @Test
+    void boundsCacheAndExpiresFingerprints() throws InterruptedException {
+        MqttFingerprintCache bounded = new MqttFingerprintCache(100, 60000);
+        assertThat(bounded.getCapacity()).isEqualTo(128);
+        for (long i = 1; i <= 10_000; i++) {
+            bounded.put(i * 0x9E3779B97F4A7C15L);
+        }
+        assertThat(bounded.getEvictionCount()).isGreaterThanOrEqualTo(10_000 - 128);
+
+        MqttFingerprintCache cache = new MqttFingerprintCache(100, 50);
+        assertThat(cache.checkAndPut(42)).isFalse();
+        assertThat(cache.checkAndPut(42)).isTrue();
+        Thread.sleep(80);
+        assertThat(cache.checkAndPut(42)).isFalse();
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void dispatcherSkipsDuplicatesOnlyForDedupSubscriptions() {
+        StringBuilder calls = new StringBuilder();
+        SubscriptionInfo plain = subscription("plain", false, calls);
+        SubscriptionInfo deduplicated = subscription("dedup", true, calls);
+        MqttInboundDispatcher dispatcher = new MqttInboundDispatcher("default",
+                new MqttTopicRouter<>(Arrays.asList(plain, deduplicated), SubscriptionInfo::getTopic, 16),
+                new DefaultMqttMessageHandler(), new DispatchProperties(), new BufferProperties());
+        dispatcher.setDuplicateFilter(new MqttDuplicateFilter(new DedupProperties(), null));
+
+        dispatcher.handleMessage(message("orders/1", "a", 5, false));
+        dispatcher.handleMessage(message("orders/1", "a", 5, true));
+
+        assertThat(calls).hasToString("plain,dedup,plain,");
+    }
+
+    @Test
+    void fingerprintsOnlyMessagesRoutedToDedupSubscriptions() {
+        StringBuilder calls = new StringBuilder();
+        AtomicInteger fingerprints = new AtomicInteger();
+        DedupProperties dedup = new DedupProperties();
+        dedup.setKey(DedupProperties.DedupKey.EXTRACTOR);
+        MqttInboundDispatcher dispatcher = new MqttInboundDispatcher("default",
+                new MqttTopicRouter<>(Arrays.asList(subscription("plain", "orders/+", false, calls),
+                        subscription("dedup", "alerts/+", true, calls),
+                        subscription("again", "alerts/#", true, calls)), SubscriptionInfo::getTopic, 16),
+                new DefaultMqttMessageHandler(), new DispatchProperties(), new BufferProperties());
+        dispatcher.setDuplicateFilter(new MqttDuplicateFilter(dedup, (message, topic) -> {
+            fingerprints.incrementAndGet();
+            return new String((byte[]) message.getPayload(), StandardCharsets.UTF_8);
+        }));
+
+        dispatcher.handleMessage(message("orders/1", "a", 1, false));
+        dispatcher.handleMessage(message("orders/1", "a", 2, false));
+        assertThat(fingerprints).hasValue(0);
+
+        // 同一条消息匹配多个去重订阅时只计算一次指纹
+        dispatcher.handleMessage(message("alerts/1", "b", 3, false));
+        dispatcher.handleMessage(message("alerts/1", "b", 4, false));
+        assertThat(fingerprints).hasValue(2);
+        assertThat(calls).hasToString("plain,plain,dedup,again,");
+    }
+
+    private static SubscriptionInfo subscription(String name, boolean dedup, StringBuilder calls) {
+        return subscription(name, "orders/+", dedup, calls);
+    }
+
+    private static SubscriptionInfo subscription(String name, String topic, boolean dedup, StringBuilder calls) {
+        MqttSubscriptionInvoker invoker = MqttSubscriptionInvoker.forHandler(
+                (message, received, clientName) -> calls.append(name).append(','));
+        return SubscriptionInfo.builder()
+                .method(invoker.getMethod())
+                .invoker(invoker)
+                .topic(topic)
+                .dedup(dedup)
+                .build();
+    }
+
+    private static Message<byte[]> message(String topic, String payload, int id, boolean duplicate) {
+        return MessageBuilder.withPayload(payload.getBytes(StandardCharsets.UTF_8))
+                .setHeader(MqttHeaders.RECEIVED_TOPIC, topic)
+                .setHeader(MqttHeaders.ID, id)
+                .setHeader(MqttHeaders.DUPLICATE, duplicate)
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.onlytl.mqtt.spring.boot.starter.dispatch;
+
+import com.onlytl.mqtt.spring.boot.starter.config.BufferProperties.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MqttInboundQueueTests {
+
+    @Test
+    void dropOldestKeepsNewestMessages() throws InterruptedException {
+        MqttInboundQueue queue = new MqttInboundQueue(2, OverflowPolicy.DROP_OLDEST, 0);
+        queue.offer(message("a", "1"));
+        queue.offer(message("a", "2"));
+        assertThat(queue.offer(message("a", "3"))).isTrue();
+
+        assertThat(drain(queue)).containsExactly("2", "3");
+        assertThat(queue.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void dropNewestRejectsWhenFull() throws InterruptedException {
+        MqttInboundQueue queue = new MqttInboundQueue(2, OverflowPolicy.DROP_NEWEST, 0);
+        queue.offer(message("a", "1"));
+        queue.offer(message("a", "2"));
+        assertThat(queue.offer(message("a", "3"))).isFalse();
+
+        assertThat(drain(queue)).containsExactly("1", "2");
+        assertThat(queue.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void blockGivesUpAfterTimeout() {
+        MqttInboundQueue queue = new MqttInboundQueue(1, OverflowPolicy.BLOCK, 20);
+        queue.offer(message("a", "1"));
+        long start = System.nanoTime();
+
+        assertThat(queue.offer(message("a", "2"))).isFalse();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(15);
+        assertThat(queue.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void conflateKeepsLatestPerTopicInOriginalPosition() throws InterruptedException {
+        MqttInboundQueue queue = new MqttInboundQueue(2, OverflowPolicy.CONFLATE, 0);
+        queue.offer(message("a", "a1"));
+        queue.offer(message("b", "b1"));
+        queue.offer(message("a", "a2"));
+
+        assertThat(drain(queue)).containsExactly("a2", "b1");
+        assertThat(queue.getConflatedCount()).isEqualTo(1);
+
+        queue.offer(message("a", "a3"));
+        queue.offer(message("b", "b2"));
+        queue.offer(message("c", "c1"));
+        assertThat(drain(queue)).containsExactly("b2", "c1");
+        assertThat(queue.getDroppedCount()).isEqualTo(1);
+    }
+
+    private static Message<String> message(String topic, String payload) {
+        return MessageBuilder.withPayload(payload).setHeader(MqttHeaders.RECEIVED_TOPIC, topic).build();
+    }
+
+    private static List<Object> drain(MqttInboundQueue queue) throws InterruptedException {
+        List<Object> payloads = new ArrayList<>();
+        Message<?> message;
+        while ((message = queue.poll(0, TimeUnit.MILLISECONDS)) != null) {
+            payloads.add(message.getPayload());
+        }
+        return payloads;
+    }
+}
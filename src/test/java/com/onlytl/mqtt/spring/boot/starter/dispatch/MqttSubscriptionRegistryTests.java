@@ -0,0 +1,314 @@
+package com.onlytl.mqtt.spring.boot.starter.dispatch;
+
+import com.onlytl.mqtt.spring.boot.starter.config.BufferProperties;
+import com.onlytl.mqtt.spring.boot.starter.config.DispatchProperties;
+import com.onlytl.mqtt.spring.boot.starter.config.MqttClientConfiguration;
+import com.onlytl.mqtt.spring.boot.starter.config.MqttProperties;
+import com.onlytl.mqtt.spring.boot.starter.handler.DefaultMqttMessageHandler;
+import com.onlytl.mqtt.spring.boot.starter.handler.MqttPayloadDecoders;
+import com.onlytl.mqtt.spring.boot.starter.handler.MqttSubscriptionInvoker;
+import com.onlytl.mqtt.spring.boot.starter.metrics.MqttMetrics;
+import com.onlytl.mqtt.spring.boot.starter.reconnect.MqttReconnectCoordinator;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttOutboundPool;
+import com.onlytl.mqtt.spring.boot.starter.router.MqttTopicRouter;
+import org.eclipse.paho.client.mqttv3.IMqttClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.mqtt.core.MqttPahoClientFactory;
+import org.springframework.integration.mqtt.inbound.AbstractMqttMessageDrivenChannelAdapter;
+import org.springframework.integration.mqtt.inbound.MqttPahoMessageDrivenChannelAdapter;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MqttSubscriptionRegistryTests {
+
+    private final List<String> calls = new ArrayList<>();
+
+    @Test
+    void queuesSubscriptionsUntilClientsAreInitialized() {
+        MqttSubscriptionRegistry registry = new MqttSubscriptionRegistry(
+                new MqttClientConfiguration(new MqttProperties(), null, new DefaultMqttMessageHandler()));
+
+        SubscriptionInfo shared = registry.subscribe("$share/workers/tenants/+/events", 1,
+                (message, topic, clientName) -> calls.add(topic));
+        SubscriptionInfo plain = registry.subscribe("tenants/acme/#", 0,
+                (message, topic, clientName) -> calls.add(topic));
+
+        assertThat(shared.getTopic()).isEqualTo("tenants/+/events");
+        assertThat(shared.getGroup()).isEqualTo("workers");
+        assertThat(registry.getSubscriptions("default")).containsExactly(shared, plain);
+
+        assertThat(registry.unsubscribe(shared)).isTrue();
+        assertThat(registry.unsubscribe(shared)).isFalse();
+        assertThat(registry.unsubscribe("tenants/acme/#", "default")).isEqualTo(1);
+        assertThat(registry.getSubscriptions("default")).isEmpty();
+
+        assertThatIllegalArgumentException().isThrownBy(() -> registry.subscribe("a/b", 0,
+                (message, topic, clientName) -> calls.add(topic), "missing"));
+    }
+
+    @Test
+    void subscribesCoveringFilterBeforeUnsubscribingCoveredOnes() {
+        MqttClientConfiguration configuration = new MqttClientConfiguration(
+                new MqttProperties(), null, new DefaultMqttMessageHandler());
+        MqttSubscriptionRegistry registry = new MqttSubscriptionRegistry(configuration);
+        registry.subscribe("sensors/+/temp", 1, (message, topic, clientName) -> calls.add(topic));
+        Map<String, Integer> brokerFilters = new LinkedHashMap<>();
+        brokerFilters.put("sensors/+/temp", 1);
+        MqttPahoMessageDrivenChannelAdapter adapter = adapter(brokerFilters);
+        start(configuration, adapter);
+
+        SubscriptionInfo wide = registry.subscribe("sensors/#", 1, (message, topic, clientName) -> calls.add(topic));
+        assertThat(brokerFilters).containsExactly(entry("sensors/#", 1));
+
+        assertThat(registry.unsubscribe(wide)).isTrue();
+        assertThat(brokerFilters).containsExactly(entry("sensors/+/temp", 1));
+
+        // 覆盖过滤器总是先订阅再取消被替换的过滤器，切换过程中不漏收消息
+        InOrder order = inOrder(adapter);
+        order.verify(adapter).addTopic("sensors/#", 1);
+        order.verify(adapter).removeTopic("sensors/+/temp");
+        order.verify(adapter).addTopic("sensors/+/temp", 1);
+        order.verify(adapter).removeTopic("sensors/#");
+    }
+
+    @Test
+    void upgradesQosByResubscribingWithoutUnsubscribing() throws Exception {
+        MqttClientConfiguration configuration = new MqttClientConfiguration(
+                new MqttProperties(), null, new DefaultMqttMessageHandler());
+        MqttSubscriptionRegistry registry = new MqttSubscriptionRegistry(configuration);
+        registry.subscribe("orders/#", 0, (message, topic, clientName) -> calls.add(topic));
+        Map<String, Integer> brokerFilters = new LinkedHashMap<>();
+        brokerFilters.put("orders/#", 0);
+        MqttPahoMessageDrivenChannelAdapter adapter = adapter(brokerFilters);
+        IMqttClient client = mock(IMqttClient.class);
+        when(client.isConnected()).thenReturn(true);
+        ReflectionTestUtils.setField(adapter, "client", client);
+        start(configuration, adapter);
+
+        // 被 orders/# 覆盖的订阅把QoS传给 orders/#
+        registry.subscribe("orders/+/created", 2, (message, topic, clientName) -> calls.add(topic));
+
+        assertThat(brokerFilters).containsExactly(entry("orders/#", 2));
+        verify(adapter, never()).removeTopic(any());
+        verify(adapter, never()).addTopic(anyString(), anyInt());
+        InOrder order = inOrder(client, adapter);
+        order.verify(client).subscribe("orders/#", 2);
+        order.verify(adapter).setQos(2);
+    }
+
+    @Test
+    void upgradesQosOnNextConnectWhileDisconnected() {
+        MqttClientConfiguration configuration = new MqttClientConfiguration(
+                new MqttProperties(), null, new DefaultMqttMessageHandler());
+        MqttSubscriptionRegistry registry = new MqttSubscriptionRegistry(configuration);
+        registry.subscribe("orders/#", 0, (message, topic, clientName) -> calls.add(topic));
+        Map<String, Integer> brokerFilters = new LinkedHashMap<>();
+        brokerFilters.put("orders/#", 0);
+        MqttPahoMessageDrivenChannelAdapter adapter = adapter(brokerFilters);
+        start(configuration, adapter);
+
+        // 客户端尚未连接，只更新过滤器表，连接时按新的QoS订阅
+        registry.subscribe("orders/+/created", 2, (message, topic, clientName) -> calls.add(topic));
+
+        assertThat(brokerFilters).containsExactly(entry("orders/#", 2));
+        verify(adapter).setQos(2);
+        verify(adapter, never()).removeTopic(any());
+    }
+
+    @Test
+    void resubscribesThroughAdapterWhenClientIsNotAccessible() {
+        MqttClientConfiguration configuration = new MqttClientConfiguration(
+                new MqttProperties(), null, new DefaultMqttMessageHandler());
+        MqttSubscriptionRegistry registry = new MqttSubscriptionRegistry(configuration);
+        registry.subscribe("orders/#", 0, (message, topic, clientName) -> calls.add(topic));
+        Map<String, Integer> brokerFilters = new LinkedHashMap<>();
+        brokerFilters.put("orders/#", 0);
+        AbstractMqttMessageDrivenChannelAdapter adapter = adapter(AbstractMqttMessageDrivenChannelAdapter.class,
+                brokerFilters);
+        start(configuration, adapter);
+
+        registry.subscribe("orders/+/created", 2, (message, topic, clientName) -> calls.add(topic));
+
+        // 无法原地重新订阅时不能只改过滤器表，否则 Broker 上仍是原来的QoS
+        assertThat(brokerFilters).containsExactly(entry("orders/#", 2));
+        verify(adapter, never()).setQos(any());
+        InOrder order = inOrder(adapter);
+        order.verify(adapter).removeTopic("orders/#");
+        order.verify(adapter).addTopic("orders/#", 2);
+    }
+
+    @Test
+    void keepsBrokerFilterWhileAnotherSubscriptionStillCoversIt() {
+        MqttClientConfiguration configuration = new MqttClientConfiguration(
+                new MqttProperties(), null, new DefaultMqttMessageHandler());
+        MqttSubscriptionRegistry registry = new MqttSubscriptionRegistry(configuration);
+        SubscriptionInfo first = registry.subscribe("alerts/#", 1, (message, topic, clientName) -> calls.add(topic));
+        SubscriptionInfo second = registry.subscribe("alerts/#", 1, (message, topic, clientName) -> calls.add(topic));
+        SubscriptionInfo narrow = registry.subscribe("alerts/+/critical", 1,
+                (message, topic, clientName) -> calls.add(topic));
+        Map<String, Integer> brokerFilters = new LinkedHashMap<>();
+        brokerFilters.put("alerts/#", 1);
+        MqttPahoMessageDrivenChannelAdapter adapter = adapter(brokerFilters);
+        start(configuration, adapter);
+
+        assertThat(registry.unsubscribe(first)).isTrue();
+        assertThat(registry.unsubscribe(narrow)).isTrue();
+
+        assertThat(brokerFilters).containsExactly(entry("alerts/#", 1));
+        assertThat(registry.getSubscriptions("default")).containsExactly(second);
+        verify(adapter, never()).removeTopic(any());
+        verify(adapter, never()).addTopic(anyString(), anyInt());
+    }
+
+    @Test
+    void bindsMetricsForClientWhoseFirstSubscriptionIsAddedAtRuntime() throws Exception {
+        MqttClientConfiguration configuration = new MqttClientConfiguration(
+                new MqttProperties(), null, new DefaultMqttMessageHandler());
+        MqttSubscriptionRegistry registry = new MqttSubscriptionRegistry(configuration);
+        MqttMetrics metrics = mock(MqttMetrics.class);
+        MqttOutboundPool pool = mock(MqttOutboundPool.class);
+        // 模拟客户端已初始化但没有订阅连接
+        MqttConnectOptions options = new MqttConnectOptions();
+        options.setServerURIs(new String[]{"tcp://localhost:1883"});
+        MqttPahoClientFactory clientFactory = mock(MqttPahoClientFactory.class);
+        when(clientFactory.getConnectionOptions()).thenReturn(options);
+        when(clientFactory.getClientInstance(any(), anyString())).thenReturn(mock(IMqttClient.class));
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.initialize();
+        ReflectionTestUtils.setField(configuration, "metrics", metrics);
+        ReflectionTestUtils.setField(configuration, "mqttTaskScheduler", scheduler);
+        MqttReconnectCoordinator coordinator = new MqttReconnectCoordinator(
+                new MqttProperties().getReconnect(), scheduler);
+        ReflectionTestUtils.setField(configuration, "reconnectCoordinator", coordinator);
+        mapField(configuration, "clientFactories").put("default", clientFactory);
+        mapField(configuration, "channels").put("default-inbound", new DirectChannel());
+        mapField(configuration, "outboundPools").put("default", pool);
+        ReflectionTestUtils.setField(configuration, "subscriptionsProcessed", true);
+
+        try {
+            registry.subscribe("orders/#", 1, (message, topic, clientName) -> calls.add(topic));
+
+            assertThat(configuration.getInboundDispatcher("default")).isNotNull();
+            verify(metrics).bindClient(eq("default"), same(pool), notNull());
+            verify(metrics).bindReconnect(coordinator, Collections.singleton("default"));
+        } finally {
+            configuration.destroy();
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void swapsRouterForNextMessage() {
+        SubscriptionInfo first = handlerSubscription("sensors/+/temp", "first");
+        SubscriptionInfo second = handlerSubscription("sensors/#", "second");
+        MqttInboundDispatcher dispatcher = new MqttInboundDispatcher("default",
+                new MqttTopicRouter<>(Collections.singletonList(first), SubscriptionInfo::getTopic, 16),
+                new DefaultMqttMessageHandler(), new DispatchProperties(), new BufferProperties());
+
+        dispatcher.handleMessage(message("sensors/1/temp"));
+        dispatcher.setRouter(new MqttTopicRouter<>(Arrays.asList(first, second), SubscriptionInfo::getTopic, 16));
+        dispatcher.handleMessage(message("sensors/2/temp"));
+        dispatcher.setRouter(new MqttTopicRouter<>(Collections.singletonList(second), SubscriptionInfo::getTopic, 16));
+        dispatcher.handleMessage(message("sensors/3/temp"));
+
+        assertThat(calls).containsExactly(
+                "first:sensors/1/temp:21.5",
+                "first:sensors/2/temp:21.5", "second:sensors/2/temp:21.5",
+                "second:sensors/3/temp:21.5");
+    }
+
+    // 模拟订阅连接，过滤器表的增删与 Broker 上的订阅一致
+    private static MqttPahoMessageDrivenChannelAdapter adapter(Map<String, Integer> brokerFilters) {
+        return adapter(MqttPahoMessageDrivenChannelAdapter.class, brokerFilters);
+    }
+
+    private static <T extends AbstractMqttMessageDrivenChannelAdapter> T adapter(Class<T> type,
+                                                                                 Map<String, Integer> brokerFilters) {
+        T adapter = mock(type);
+        when(adapter.getTopic()).thenAnswer(invocation -> brokerFilters.keySet().toArray(new String[0]));
+        when(adapter.getQos()).thenAnswer(invocation ->
+                brokerFilters.values().stream().mapToInt(Integer::intValue).toArray());
+        doAnswer(invocation -> brokerFilters.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(adapter).addTopic(anyString(), anyInt());
+        doAnswer(invocation -> {
+            for (Object topic : invocation.getArguments()) {
+                brokerFilters.remove((String) topic);
+            }
+            return null;
+        }).when(adapter).removeTopic(any());
+        doAnswer(invocation -> {
+            Object[] qos = invocation.getArguments();
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : brokerFilters.entrySet()) {
+                entry.setValue((Integer) qos[i++]);
+            }
+            return null;
+        }).when(adapter).setQos(any());
+        return adapter;
+    }
+
+    // 模拟客户端已初始化：之后的增删直接作用于订阅连接
+    private static void start(MqttClientConfiguration configuration, AbstractMqttMessageDrivenChannelAdapter adapter) {
+        List<SubscriptionInfo> current = configuration.getSubscriptions("default");
+        MqttInboundDispatcher dispatcher = new MqttInboundDispatcher("default",
+                new MqttTopicRouter<>(current, SubscriptionInfo::getTopic, 16),
+                new DefaultMqttMessageHandler(), new DispatchProperties(), new BufferProperties());
+        mapField(configuration, "inboundAdapters").put("default", adapter);
+        mapField(configuration, "dispatchers").put("default", dispatcher);
+        ReflectionTestUtils.setField(configuration, "subscriptionsProcessed", true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> mapField(MqttClientConfiguration configuration, String name) {
+        return (Map<String, Object>) ReflectionTestUtils.getField(configuration, name);
+    }
+
+    private SubscriptionInfo handlerSubscription(String topic, String name) {
+        MqttSubscriptionInvoker invoker = MqttSubscriptionInvoker.forHandler(
+                (message, received, clientName) -> calls.add(name + ":" + received + ":" + message.getPayload()));
+        SubscriptionInfo subscription = SubscriptionInfo.builder()
+                .method(invoker.getMethod())
+                .invoker(invoker)
+                .topic(topic)
+                .build();
+        subscription.setPayloadDecoder(new MqttPayloadDecoders(null)
+                .forParameter(invoker.getMethod(), invoker.getPayloadParameterIndex(), false));
+        return subscription;
+    }
+
+    private static Message<byte[]> message(String topic) {
+        return MessageBuilder.withPayload("21.5".getBytes(StandardCharsets.UTF_8))
+                .setHeader(MqttHeaders.RECEIVED_TOPIC, topic)
+                .build();
+    }
+}
@@ -0,0 +1,89 @@
+package com.onlytl.mqtt.spring.boot.starter.factory;
+
+import org.eclipse.paho.client.mqttv3.MqttPersistable;
+import org.eclipse.paho.client.mqttv3.internal.MqttPersistentData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MqttMappedLogPersistenceTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversInFlightMessagesAfterRestart() throws Exception {
+        MqttMappedLogPersistence persistence = open();
+        persistence.put("s-1", data("header-1", "payload-1"));
+        persistence.put("s-2", data("header-2", "payload-2"));
+        persistence.put("sc-3", data("header-3", ""));
+        persistence.remove("s-2");
+        persistence.close();
+
+        MqttMappedLogPersistence reopened = open();
+
+        assertThat(Collections.list(reopened.keys())).containsExactlyInAnyOrder("s-1", "sc-3");
+        assertThat(text(reopened.get("s-1"))).isEqualTo("header-1payload-1");
+        assertThat(reopened.containsKey("s-2")).isFalse();
+        reopened.close();
+    }
+
+    @Test
+    void compactsAndGrowsWhileKeepingLiveEntries() throws Exception {
+        MqttMappedLogPersistence persistence = open();
+        String payload = String.join("", Collections.nCopies(100, "x"));
+        for (int i = 0; i < 2000; i++) {
+            persistence.put("s-" + i, data("h", payload));
+            if (i % 10 != 0) {
+                persistence.remove("s-" + i);
+            }
+        }
+        persistence.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).hasSize(1);
+        }
+        MqttMappedLogPersistence reopened = open();
+        assertThat(Collections.list(reopened.keys())).hasSize(200);
+        assertThat(text(reopened.get("s-1990"))).isEqualTo("h" + payload);
+        assertThat(reopened.getCapacity()).isLessThanOrEqualTo(64 * 1024);
+        reopened.close();
+    }
+
+    @Test
+    void clearDiscardsRecordsOnDisk() throws Exception {
+        MqttMappedLogPersistence persistence = open();
+        persistence.put("s-1", data("header", "payload"));
+        persistence.clear();
+        persistence.put("s-2", data("header", "payload"));
+        persistence.close();
+
+        MqttMappedLogPersistence reopened = open();
+        assertThat(Collections.list(reopened.keys())).containsExactly("s-2");
+        reopened.close();
+    }
+
+    private MqttMappedLogPersistence open() throws Exception {
+        MqttMappedLogPersistence persistence = new MqttMappedLogPersistence(directory, 4096);
+        persistence.open("client-outbound", "tcp://localhost:1883");
+        return persistence;
+    }
+
+    private static MqttPersistable data(String header, String payload) {
+        byte[] headerBytes = header.getBytes(StandardCharsets.UTF_8);
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return new MqttPersistentData("key", headerBytes, 0, headerBytes.length, payloadBytes, 0, payloadBytes.length);
+    }
+
+    private static String text(MqttPersistable persistable) throws Exception {
+        return new String(persistable.getHeaderBytes(), persistable.getHeaderOffset(), persistable.getHeaderLength(),
+                StandardCharsets.UTF_8);
+    }
+}
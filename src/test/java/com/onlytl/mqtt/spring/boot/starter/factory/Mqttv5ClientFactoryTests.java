@@ -0,0 +1,74 @@
+package com.onlytl.mqtt.spring.boot.starter.factory;
+
+import com.onlytl.mqtt.spring.boot.starter.config.MqttProperties;
+import com.onlytl.mqtt.spring.boot.starter.config.ReconnectProperties;
+import org.eclipse.paho.mqttv5.client.MqttConnectionOptions;
+import org.eclipse.paho.mqttv5.common.packet.UserProperty;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.mqtt.support.MqttHeaderMapper;
+import org.springframework.messaging.MessageHeaders;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class Mqttv5ClientFactoryTests {
+
+    private final Mqttv5ClientFactory factory = new Mqttv5ClientFactory(null, new ReconnectProperties());
+
+    @Test
+    void mapsVersion5ConnectionOptions() throws Exception {
+        MqttProperties.ClientConfig config = new MqttProperties.ClientConfig();
+        config.setServerUri("tcp://broker:1883");
+        config.setUsername("user");
+        config.setPassword("secret");
+        config.setCleanSession(false);
+        config.setSessionExpiryInterval(3600L);
+        config.setReceiveMaximum(32);
+        config.setTopicAliasMaximum(16);
+
+        MqttConnectionOptions options = factory.createConnectionOptions(config);
+
+        assertThat(options.getServerURIs()).containsExactly("tcp://broker:1883");
+        assertThat(options.getUserName()).isEqualTo("user");
+        assertThat(options.getPassword()).isEqualTo("secret".getBytes());
+        assertThat(options.isCleanStart()).isFalse();
+        assertThat(options.getSessionExpiryInterval()).isEqualTo(3600L);
+        assertThat(options.getReceiveMaximum()).isEqualTo(32);
+        assertThat(options.getTopicAliasMaximum()).isEqualTo(16);
+        assertThat(options.isAutomaticReconnect()).isTrue();
+        assertThat(options.getAutomaticReconnectMinDelay()).isEqualTo(1);
+        assertThat(options.getAutomaticReconnectMaxDelay()).isEqualTo(60);
+    }
+
+    @Test
+    void sendsConfiguredHeadersAsUserProperties() {
+        MqttProperties.ClientConfig config = new MqttProperties.ClientConfig();
+        config.setUserPropertyHeaders(Arrays.asList("trace-*", "tenant"));
+        MqttHeaderMapper headerMapper = Mqttv5ClientFactory.createHeaderMapper(config);
+
+        Map<String, Object> headers = new HashMap<>();
+        headers.put("trace-id", "abc");
+        headers.put("tenant", "t1");
+        headers.put("internal", "ignored");
+        org.eclipse.paho.mqttv5.common.packet.MqttProperties properties =
+                new org.eclipse.paho.mqttv5.common.packet.MqttProperties();
+        headerMapper.fromHeaders(new MessageHeaders(headers), properties);
+
+        assertThat(properties.getUserProperties()).containsExactlyInAnyOrder(
+                new UserProperty("trace-id", "abc"), new UserProperty("tenant", "t1"));
+    }
+
+    @Test
+    void rejectsMappedLogPersistence() {
+        MqttProperties.ClientConfig config = new MqttProperties.ClientConfig();
+        config.setPersistence(MqttProperties.PersistenceMode.MMAP);
+
+        assertThatThrownBy(() -> factory.createMessageHandler("client", config))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("MMAP");
+    }
+}
@@ -0,0 +1,85 @@
+package com.onlytl.mqtt.spring.boot.starter.handler;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MqttPayloadDecodersTests {
+
+    private final MqttPayloadDecoders decoders = new MqttPayloadDecoders(null);
+
+    private final byte[] json = "{\"device\":\"d-1\",\"value\":21.5}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void passesRawBytesThrough() throws Exception {
+        assertThat(decoder("bytes", false).decode(json)).isSameAs(json);
+    }
+
+    @Test
+    void wrapsBytesInReadOnlyBuffer() throws Exception {
+        ByteBuffer buffer = (ByteBuffer) decoder("buffer", false).decode(json);
+
+        assertThat(buffer.isReadOnly()).isTrue();
+        assertThat(buffer.remaining()).isEqualTo(json.length);
+    }
+
+    @Test
+    void decodesTextForStringAndObjectParameters() throws Exception {
+        assertThat(decoder("text", false).decode(json)).isEqualTo(new String(json, StandardCharsets.UTF_8));
+        assertThat(decoder("object", false).decode(json)).isInstanceOf(String.class);
+    }
+
+    @Test
+    void deserializesTypedPayloads() throws Exception {
+        Reading reading = (Reading) decoder("typed", false).decode(json);
+
+        assertThat(reading.device).isEqualTo("d-1");
+        assertThat(reading.value).isEqualTo(21.5);
+    }
+
+    @Test
+    void usesElementTypeForBatchListeners() throws Exception {
+        assertThat(decoder("typedBatch", true).decode(json)).isInstanceOf(Reading.class);
+        assertThat(decoder("messageBatch", true).decode(json)).isInstanceOf(Reading.class);
+    }
+
+    private MqttPayloadDecoder decoder(String methodName, boolean batch) {
+        Method method = ReflectionUtils.findMethod(Listener.class, methodName, (Class<?>[]) null);
+        return decoders.forMethod(method, batch);
+    }
+
+    static class Reading {
+        public String device;
+        public double value;
+    }
+
+    static class Listener {
+        void bytes(byte[] payload) {
+        }
+
+        void buffer(ByteBuffer payload) {
+        }
+
+        void text(String payload) {
+        }
+
+        void object(Object payload) {
+        }
+
+        void typed(Reading payload) {
+        }
+
+        void typedBatch(List<Reading> payloads) {
+        }
+
+        void messageBatch(List<Message<Reading>> messages) {
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.onlytl.mqtt.spring.boot.starter.handler;
+
+import com.onlytl.mqtt.spring.boot.starter.annotation.Topic;
+import com.onlytl.mqtt.spring.boot.starter.annotation.TopicVariable;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MqttSubscriptionInvokerTests {
+
+    private final Listener listener = new Listener();
+
+    @Test
+    void passesPositionalArgumentsByDeclaredCount() throws Throwable {
+        invoker("none").invoke("p", "t", "c");
+        invoker("payload").invoke("p", "t", "c");
+        invoker("payloadAndTopic").invoke("p", "t", "c");
+        invoker("all").invoke("p", "t", "c");
+
+        assertThat(listener.calls).containsExactly("none", "p", "p|t", "p|t|c");
+    }
+
+    @Test
+    void propagatesHandlerExceptionsUnwrapped() {
+        assertThatThrownBy(() -> invoker("failing").invoke("p", "t", "c"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("boom");
+    }
+
+    @Test
+    void rejectsMethodsWithTooManyParameters() {
+        assertThatIllegalArgumentException().isThrownBy(() -> invoker("tooMany"));
+    }
+
+    @Test
+    void resolvesAnnotatedParameters() throws Throwable {
+        Message<String> message = MessageBuilder.withPayload("raw")
+                .setHeader(MqttHeaders.RECEIVED_QOS, 1)
+                .setHeader(MqttHeaders.RECEIVED_RETAINED, true)
+                .build();
+        MqttSubscriptionInvoker invoker = MqttSubscriptionInvoker.compile(listener,
+                ReflectionUtils.findMethod(Listener.class, "annotated", (Class<?>[]) null),
+                Collections.singletonMap("deviceId", 1), false);
+
+        invoker.invoke("p", message, "sensors/42/temp", "c");
+
+        assertThat(invoker.getPayloadParameterIndex()).isEqualTo(3);
+        assertThat(listener.calls).containsExactly("42|sensors/42/temp|1|true|p|false");
+    }
+
+    @Test
+    void passesMessageWithConvertedPayload() throws Throwable {
+        MqttSubscriptionInvoker invoker = invoker("message");
+
+        invoker.invoke("converted", MessageBuilder.withPayload("raw").build(), "t", "c");
+
+        assertThat(invoker.getPayloadParameterIndex()).isZero();
+        assertThat(listener.calls).containsExactly("converted|t");
+    }
+
+    @Test
+    void rejectsUndeclaredTopicVariables() {
+        assertThatIllegalArgumentException().isThrownBy(() -> MqttSubscriptionInvoker.compile(listener,
+                ReflectionUtils.findMethod(Listener.class, "annotated", (Class<?>[]) null),
+                Collections.emptyMap(), false));
+    }
+
+    private MqttSubscriptionInvoker invoker(String name) {
+        return MqttSubscriptionInvoker.compile(listener,
+                ReflectionUtils.findMethod(Listener.class, name, (Class<?>[]) null));
+    }
+
+    static class Listener {
+        private final List<String> calls = new ArrayList<>();
+
+        private void none() {
+            calls.add("none");
+        }
+
+        void payload(String payload) {
+            calls.add(payload);
+        }
+
+        public String payloadAndTopic(Object payload, String topic) {
+            calls.add(payload + "|" + topic);
+            return "ignored";
+        }
+
+        public void all(String payload, String topic, String clientName) {
+            calls.add(payload + "|" + topic + "|" + clientName);
+        }
+
+        public void failing(String payload) {
+            throw new IllegalStateException("boom");
+        }
+
+        public void tooMany(String a, String b, String c, String d) {
+        }
+
+        public void annotated(@TopicVariable("deviceId") int deviceId,
+                              @Topic String topic,
+                              @Header(MqttHeaders.RECEIVED_QOS) int qos,
+                              @Payload String payload,
+                              @Header(MqttHeaders.RECEIVED_RETAINED) boolean retained,
+                              @Header(name = MqttHeaders.DUPLICATE, required = false, defaultValue = "false") boolean duplicate) {
+            calls.add(deviceId + "|" + topic + "|" + qos + "|" + retained + "|" + payload + "|" + duplicate);
+        }
+
+        public void message(Message<String> message, @Topic String topic) {
+            calls.add(message.getPayload() + "|" + topic);
+        }
+    }
+}
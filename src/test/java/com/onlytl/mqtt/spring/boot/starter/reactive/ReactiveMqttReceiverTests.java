@@ -0,0 +1,133 @@
+package com.onlytl.mqtt.spring.boot.starter.reactive;
+
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReactiveMqttReceiverTests {
+
+    private final IMqttAsyncClient client = mock(IMqttAsyncClient.class);
+
+    private final List<ReactiveMqttMessage> received = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void connectImmediately() throws Exception {
+        when(client.connect(any(), any(), any())).thenAnswer(invocation -> {
+            invocation.getArgument(2, IMqttActionListener.class).onSuccess(null);
+            return null;
+        });
+    }
+
+    @Test
+    void emitsOnlyWhatDownstreamRequested() throws Exception {
+        ReactiveMqttReceiver receiver = receiver(false, 4);
+        Subscriber subscriber = subscribe(receiver, 1);
+
+        for (int i = 1; i <= 3; i++) {
+            receiver.messageArrived("sensors/" + i, message(i));
+        }
+        assertThat(received).hasSize(1);
+        assertThat(receiver.getWindowDepth()).isEqualTo(2);
+
+        subscriber.request(2);
+        assertThat(received).extracting(ReactiveMqttMessage::getTopic)
+                .containsExactly("sensors/1", "sensors/2", "sensors/3");
+        assertThat(receiver.getWindowDepth()).isZero();
+
+        verify(client, never()).messageArrivedComplete(anyInt(), anyInt());
+        received.get(0).ack();
+        received.get(0).ack();
+        verify(client).messageArrivedComplete(1, 1);
+    }
+
+    @Test
+    void blocksCallbackThreadWhileWindowIsFull() throws Exception {
+        ReactiveMqttReceiver receiver = receiver(true, 1);
+        Subscriber subscriber = subscribe(receiver, 0);
+
+        receiver.messageArrived("sensors/1", message(1));
+        Thread callback = new Thread(() -> {
+            try {
+                receiver.messageArrived("sensors/2", message(2));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        callback.start();
+        callback.join(300);
+        assertThat(callback.isAlive()).isTrue();
+
+        subscriber.request(1);
+        callback.join(2000);
+        assertThat(callback.isAlive()).isFalse();
+        assertThat(received).hasSize(1);
+        assertThat(received.get(0).isAcknowledged()).isTrue();
+        verify(client).messageArrivedComplete(1, 1);
+    }
+
+    @Test
+    void closesConnectionOnCancel() throws Exception {
+        ReactiveMqttReceiver receiver = receiver(true, 4);
+        Subscriber subscriber = subscribe(receiver, 1);
+
+        subscriber.cancel();
+
+        verify(client, timeout(2000)).close();
+    }
+
+    private ReactiveMqttReceiver receiver(boolean autoAck, int window) {
+        return new ReactiveMqttReceiver(client, new MqttConnectOptions(),
+                new String[]{"sensors/+"}, 1, autoAck, window);
+    }
+
+    private Subscriber subscribe(ReactiveMqttReceiver receiver, int initialRequest) {
+        Subscriber subscriber = new Subscriber(initialRequest);
+        Flux.<ReactiveMqttMessage>create(receiver::start).subscribe(subscriber);
+        return subscriber;
+    }
+
+    private static MqttMessage message(int id) {
+        MqttMessage message = new MqttMessage(new byte[]{(byte) id});
+        message.setId(id);
+        message.setQos(1);
+        return message;
+    }
+
+    private class Subscriber extends BaseSubscriber<ReactiveMqttMessage> {
+        private final int initialRequest;
+
+        Subscriber(int initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            if (initialRequest > 0) {
+                request(initialRequest);
+            }
+        }
+
+        @Override
+        protected void hookOnNext(ReactiveMqttMessage message) {
+            received.add(message);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.onlytl.mqtt.spring.boot.starter.reconnect;
+
+import com.onlytl.mqtt.spring.boot.starter.config.ReconnectProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MqttReconnectCoordinatorTests {
+
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+    MqttReconnectCoordinatorTests() {
+        scheduler.setPoolSize(8);
+        scheduler.initialize();
+    }
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void backoffIsJitteredBelowExponentialCeiling() {
+        ReconnectProperties properties = new ReconnectProperties();
+        properties.setInitialInterval(100);
+        properties.setMaxInterval(1000);
+        MqttReconnectCoordinator coordinator = new MqttReconnectCoordinator(properties, scheduler);
+
+        List<Long> delays = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            long delay = coordinator.backoff(2);
+            assertThat(delay).isBetween(0L, 400L);
+            delays.add(delay);
+            assertThat(coordinator.backoff(30)).isBetween(0L, 1000L);
+        }
+        assertThat(delays.stream().distinct().count()).isGreaterThan(10);
+    }
+
+    @Test
+    void limitsConcurrentReconnects() throws Exception {
+        ReconnectProperties properties = new ReconnectProperties();
+        properties.setInitialInterval(10);
+        properties.setMaxConcurrent(2);
+        MqttReconnectCoordinator coordinator = new MqttReconnectCoordinator(properties, scheduler);
+
+        int clients = 10;
+        CountDownLatch done = new CountDownLatch(clients);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        for (int i = 0; i < clients; i++) {
+            coordinator.scheduleReconnect("client-" + i, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(30);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+        assertThat(coordinator.getTotalAttempts()).isEqualTo(clients);
+        assertThat(coordinator.getPendingCount()).isZero();
+    }
+
+    @Test
+    void cancelledReconnectDoesNotRunAndSubscriptionResetsBackoff() throws Exception {
+        ReconnectProperties properties = new ReconnectProperties();
+        properties.setInitialInterval(60000);
+        MqttReconnectCoordinator coordinator = new MqttReconnectCoordinator(properties, scheduler);
+        AtomicInteger runs = new AtomicInteger();
+
+        ScheduledFuture<?> first = coordinator.scheduleReconnect("default", runs::incrementAndGet);
+        coordinator.scheduleReconnect("default", runs::incrementAndGet).cancel(false);
+        assertThat(coordinator.getAttempts("default")).isEqualTo(2);
+        assertThat(coordinator.getPendingCount()).isEqualTo(1);
+
+        assertThat(first.cancel(false)).isTrue();
+        assertThat(coordinator.getPendingCount()).isZero();
+        coordinator.connected("default");
+        assertThat(coordinator.getAttempts("default")).isZero();
+        assertThat(runs).hasValue(0);
+    }
+}
@@ -0,0 +1,63 @@
+package com.onlytl.mqtt.spring.boot.starter.router;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class MqttTopicRouterTests {
+
+    private final List<String> filters = Arrays.asList(
+            "sensors/+/temp", "sensors/#", "sensors/a/temp", "#", "+/+", "a/", "$SYS/#");
+
+    private final MqttTopicRouter<String> router =
+            new MqttTopicRouter<>(filters, Function.identity(), 16);
+
+    @Test
+    void routesWildcardsInRegistrationOrder() {
+        assertThat(router.route("sensors/a/temp"))
+                .containsExactly("sensors/+/temp", "sensors/#", "sensors/a/temp", "#");
+        assertThat(router.route("sensors/b/temp")).containsExactly("sensors/+/temp", "sensors/#", "#");
+        assertThat(router.route("sensors")).containsExactly("sensors/#", "#");
+        assertThat(router.route("sensors/x")).containsExactly("sensors/#", "#", "+/+");
+        assertThat(router.route("a/")).containsExactly("#", "+/+", "a/");
+        assertThat(router.route("other/a/b")).containsExactly("#");
+    }
+
+    @Test
+    void systemTopicsAreNotMatchedByLeadingWildcards() {
+        assertThat(router.route("$SYS/broker/uptime")).containsExactly("$SYS/#");
+    }
+
+    @Test
+    void cacheIsBounded() {
+        for (int i = 0; i < 100; i++) {
+            router.route("devices/" + i);
+        }
+        assertThat(router.getCachedTopicCount()).isLessThanOrEqualTo(16);
+        assertThat(router.route("sensors/a/temp")).hasSize(4);
+    }
+
+    @Test
+    void singleFilterMatchAgreesWithTrie() {
+        List<String> topics = Arrays.asList("sensors/a/temp", "sensors", "sensors/x", "a/", "a", "$SYS/x", "x/y/z");
+        for (String topic : topics) {
+            List<String> routed = router.route(topic);
+            for (String filter : filters) {
+                assertThat(MqttTopicRouter.matches(filter, topic))
+                        .as("%s ~ %s", filter, topic)
+                        .isEqualTo(routed.contains(filter));
+            }
+        }
+    }
+
+    @Test
+    void rejectsMalformedFilters() {
+        assertThatIllegalArgumentException().isThrownBy(() -> TopicTrie.validateFilter("a/#/b"));
+        assertThatIllegalArgumentException().isThrownBy(() -> TopicTrie.validateFilter("a/b+"));
+    }
+}
@@ -0,0 +1,55 @@
+package com.onlytl.mqtt.spring.boot.starter.router;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class TopicFilterConsolidatorTests {
+
+    @Test
+    void dropsCoveredFiltersAndKeepsHighestQos() {
+        Map<String, Integer> filters = new LinkedHashMap<>();
+        filters.put("a/+/c", 2);
+        filters.put("a/#", 0);
+        filters.put("a/b/c", 1);
+        filters.put("x/+", 1);
+        filters.put("x/y", 0);
+        filters.put("y/1", 0);
+
+        assertThat(TopicFilterConsolidator.consolidate(filters))
+                .containsExactly(entry("a/#", 2), entry("x/+", 1), entry("y/1", 0));
+    }
+
+    @Test
+    void evaluatesCoverageLevelByLevel() {
+        assertThat(TopicFilterConsolidator.covers("a/#", "a")).isTrue();
+        assertThat(TopicFilterConsolidator.covers("a/#", "a/+/#")).isTrue();
+        assertThat(TopicFilterConsolidator.covers("+/+", "a/+")).isTrue();
+        assertThat(TopicFilterConsolidator.covers("#", "a/b")).isTrue();
+
+        assertThat(TopicFilterConsolidator.covers("a/+", "a/#")).isFalse();
+        assertThat(TopicFilterConsolidator.covers("a/+/#", "a")).isFalse();
+        assertThat(TopicFilterConsolidator.covers("a/b", "a/+")).isFalse();
+        assertThat(TopicFilterConsolidator.covers("a/+", "a/b/c")).isFalse();
+        assertThat(TopicFilterConsolidator.covers("#", "$SYS/broker")).isFalse();
+        assertThat(TopicFilterConsolidator.covers("+/broker", "$SYS/broker")).isFalse();
+    }
+
+    @Test
+    void mergesSharedSubscriptionsOnlyWithinTheirGroup() {
+        Map<String, Integer> filters = new LinkedHashMap<>();
+        filters.put("$share/g1/orders/#", 1);
+        filters.put("$share/g1/orders/+/created", 2);
+        filters.put("$share/g2/orders/+/created", 0);
+        filters.put("orders/+/created", 0);
+
+        assertThat(TopicFilterConsolidator.consolidate(filters)).containsExactly(
+                entry("$share/g1/orders/#", 2),
+                entry("$share/g2/orders/+/created", 0),
+                entry("orders/+/created", 0));
+    }
+}
@@ -0,0 +1,56 @@
+package com.onlytl.mqtt.spring.boot.starter.router;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class TopicTemplateTests {
+
+    @Test
+    void replacesVariablesWithSingleLevelWildcards() {
+        TopicTemplate template = TopicTemplate.parse("sites/{site}/sensors/{deviceId}/#");
+
+        assertThat(template.getFilter()).isEqualTo("sites/+/sensors/+/#");
+        assertThat(template.getVariables()).containsEntry("site", 1).containsEntry("deviceId", 3);
+    }
+
+    @Test
+    void keepsPlainFiltersUnchanged() {
+        TopicTemplate template = TopicTemplate.parse("sensors/+/temp");
+
+        assertThat(template.getFilter()).isEqualTo("sensors/+/temp");
+        assertThat(template.getVariables()).isEmpty();
+    }
+
+    @Test
+    void splitsSharedSubscriptionPrefix() {
+        TopicTemplate template = TopicTemplate.parse("$share/workers/sensors/{deviceId}/temp");
+
+        assertThat(template.getGroup()).isEqualTo("workers");
+        assertThat(template.getFilter()).isEqualTo("sensors/+/temp");
+        assertThat(template.getVariables()).containsEntry("deviceId", 1);
+        assertThat(TopicTemplate.sharedFilter("workers", template.getFilter())).isEqualTo("$share/workers/sensors/+/temp");
+        assertThat(TopicTemplate.sharedFilter(null, template.getFilter())).isEqualTo("sensors/+/temp");
+    }
+
+    @Test
+    void rejectsInvalidSharedGroups() {
+        assertThatIllegalArgumentException().isThrownBy(() -> TopicTemplate.parse("$share//sensors/#"));
+        assertThatIllegalArgumentException().isThrownBy(() -> TopicTemplate.parse("$share/workers"));
+        assertThatIllegalArgumentException().isThrownBy(() -> TopicTemplate.validateGroup("a+b"));
+    }
+
+    @Test
+    void extractsSegmentsByIndex() {
+        assertThat(TopicTemplate.segment("sites/a/sensors/d-1/temp", 3)).isEqualTo("d-1");
+        assertThat(TopicTemplate.segment("sites/a", 0)).isEqualTo("sites");
+        assertThat(TopicTemplate.segment("sites/a", 2)).isNull();
+    }
+
+    @Test
+    void rejectsPartialLevelVariables() {
+        assertThatIllegalArgumentException().isThrownBy(() -> TopicTemplate.parse("sensors/dev-{id}/temp"));
+        assertThatIllegalArgumentException().isThrownBy(() -> TopicTemplate.parse("sensors/{id}/{id}"));
+    }
+}
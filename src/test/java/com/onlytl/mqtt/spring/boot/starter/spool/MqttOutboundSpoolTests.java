@@ -0,0 +1,80 @@
+package com.onlytl.mqtt.spring.boot.starter.spool;
+
+import com.onlytl.mqtt.spring.boot.starter.config.SpoolProperties;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.net.ConnectException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MqttOutboundSpoolTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void classifiesOnlyConnectionProblemsAsConnectionFailures() {
+        assertThat(MqttOutboundSpool.isConnectionFailure(failure(
+                new MqttException(MqttException.REASON_CODE_CLIENT_NOT_CONNECTED)))).isTrue();
+        assertThat(MqttOutboundSpool.isConnectionFailure(new CompletionException(
+                new MqttException(MqttException.REASON_CODE_CONNECTION_LOST)))).isTrue();
+        assertThat(MqttOutboundSpool.isConnectionFailure(failure(
+                new MqttException(new ConnectException("Connection refused"))))).isTrue();
+
+        assertThat(MqttOutboundSpool.isConnectionFailure(failure(
+                new IllegalArgumentException("Invalid topic")))).isFalse();
+        assertThat(MqttOutboundSpool.isConnectionFailure(failure(
+                new MqttException(MqttException.REASON_CODE_NOT_AUTHORIZED)))).isFalse();
+    }
+
+    @Test
+    void discardsUndeliverableMessagesInsteadOfRetryingForever() throws Exception {
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        SpoolProperties properties = new SpoolProperties();
+        properties.setDirectory(directory.toString());
+        properties.setRetryInterval(10);
+        MqttOutboundSpool spool = new MqttOutboundSpool("default", properties, message -> {
+            String topic = message.getHeaders().get(MqttHeaders.TOPIC, String.class);
+            if (topic.contains("#")) {
+                return CompletableFuture.failedFuture(failure(new IllegalArgumentException("Invalid topic")));
+            }
+            delivered.add(topic);
+            return CompletableFuture.completedFuture(null);
+        }, 4, 1, null);
+        spool.markDisconnected();
+        spool.spool("a", "orders/1", 1);
+        spool.spool("b", "orders/#", 1);
+        spool.spool("c", "orders/2", 1);
+
+        spool.start();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (spool.getDepth() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            spool.stop();
+        }
+
+        assertThat(spool.getDepth()).isZero();
+        assertThat(delivered).containsExactly("orders/1", "orders/2");
+        assertThat(spool.getDrainedCount()).isEqualTo(2);
+        assertThat(spool.getDiscardedCount()).isEqualTo(1);
+        assertThat(spool.isConnected()).isTrue();
+    }
+
+    private static MessageHandlingException failure(Throwable cause) {
+        return new MessageHandlingException(MessageBuilder.withPayload("p").build(), "Failed to publish", cause);
+    }
+}
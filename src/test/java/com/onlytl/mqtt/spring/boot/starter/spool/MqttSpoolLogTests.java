@@ -0,0 +1,227 @@
+package com.onlytl.mqtt.spring.boot.starter.spool;
+
+import com.onlytl.mqtt.spring.boot.starter.config.SpoolProperties;
+import com.onlytl.mqtt.spring.boot.starter.template.MqttOutboundMessage;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.messaging.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class MqttSpoolLogTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void resumesFromCommittedPositionAfterRestart() throws Exception {
+        SpoolProperties properties = properties(1024);
+        MqttSpoolLog spoolLog = new MqttSpoolLog(directory, "default", properties);
+        for (int i = 0; i < 50; i++) {
+            spoolLog.append(MqttOutboundMessage.of("t/" + i, "payload-" + i, 1));
+        }
+        List<MqttSpoolLog.SpooledMessage> first = spoolLog.read(5);
+        spoolLog.commit(first);
+        spoolLog.close();
+
+        MqttSpoolLog reopened = new MqttSpoolLog(directory, "default", properties);
+        assertThat(reopened.getPendingRecords()).isEqualTo(45);
+
+        List<String> topics = new ArrayList<>();
+        List<MqttSpoolLog.SpooledMessage> batch;
+        while (!(batch = reopened.read(7)).isEmpty()) {
+            batch.forEach(message -> topics.add(message.getMessage().getTopic()));
+            reopened.commit(batch);
+        }
+        assertThat(topics).hasSize(45).startsWith("t/5", "t/6").endsWith("t/49");
+        assertThat(reopened.getPendingRecords()).isZero();
+        assertThat(reopened.getPendingBytes()).isZero();
+        assertThat(reopened.read(1)).isEmpty();
+        reopened.close();
+
+        // 补发完的分段已删除，只剩当前分段
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.filter(file -> file.toString().endsWith(".seg"))).hasSize(1);
+        }
+    }
+
+    @Test
+    void appliesDropPolicyWhenFull() throws Exception {
+        SpoolProperties properties = properties(256);
+        properties.setMaxSize(1024);
+
+        MqttSpoolLog rejecting = new MqttSpoolLog(directory.resolve("reject"), "default", properties);
+        assertThatIllegalStateException().isThrownBy(() -> {
+            for (int i = 0; i < 100; i++) {
+                rejecting.append(MqttOutboundMessage.of("t", new byte[32]));
+            }
+        });
+        rejecting.close();
+
+        properties.setDropPolicy(SpoolProperties.DropPolicy.DROP_NEWEST);
+        MqttSpoolLog dropNewest = new MqttSpoolLog(directory.resolve("newest"), "default", properties);
+        for (int i = 0; i < 100; i++) {
+            dropNewest.append(MqttOutboundMessage.of("t/" + i, new byte[32]));
+        }
+        assertThat(dropNewest.getDroppedCount()).isEqualTo(100 - dropNewest.getPendingRecords());
+        assertThat(dropNewest.read(1).get(0).getMessage().getTopic()).isEqualTo("t/0");
+        dropNewest.close();
+
+        properties.setDropPolicy(SpoolProperties.DropPolicy.DROP_OLDEST);
+        MqttSpoolLog dropOldest = new MqttSpoolLog(directory.resolve("oldest"), "default", properties);
+        for (int i = 0; i < 100; i++) {
+            dropOldest.append(MqttOutboundMessage.of("t/" + i, new byte[32]));
+        }
+        assertThat(dropOldest.getPendingBytes()).isLessThanOrEqualTo(1024);
+        assertThat(dropOldest.getDroppedCount()).isEqualTo(100 - dropOldest.getPendingRecords());
+        assertThat(dropOldest.read(1).get(0).getMessage().getTopic()).isNotEqualTo("t/0");
+        dropOldest.close();
+    }
+
+    @Test
+    void ignoresCommitsForSegmentsDroppedWhileDraining() throws Exception {
+        SpoolProperties properties = properties(256);
+        properties.setMaxSize(1024);
+        properties.setDropPolicy(SpoolProperties.DropPolicy.DROP_OLDEST);
+        MqttSpoolLog spoolLog = new MqttSpoolLog(directory, "default", properties);
+        for (int i = 0; i < 10; i++) {
+            spoolLog.append(MqttOutboundMessage.of("t/" + i, new byte[32]));
+        }
+        List<MqttSpoolLog.SpooledMessage> inFlight = spoolLog.read(3);
+
+        // 补发期间写满，读出的批次所在分段被丢弃
+        for (int i = 10; i < 100; i++) {
+            spoolLog.append(MqttOutboundMessage.of("t/" + i, new byte[32]));
+        }
+        long pendingRecords = spoolLog.getPendingRecords();
+        long pendingBytes = spoolLog.getPendingBytes();
+        spoolLog.commit(inFlight);
+        assertThat(spoolLog.getPendingRecords()).isEqualTo(pendingRecords);
+        assertThat(spoolLog.getPendingBytes()).isEqualTo(pendingBytes);
+
+        int drained = 0;
+        List<MqttSpoolLog.SpooledMessage> batch;
+        while (!(batch = spoolLog.read(4)).isEmpty()) {
+            drained += batch.size();
+            spoolLog.commit(batch);
+            spoolLog.commit(batch);
+        }
+        assertThat(drained).isEqualTo(pendingRecords);
+        assertThat(spoolLog.getPendingRecords()).isZero();
+        assertThat(spoolLog.getPendingBytes()).isZero();
+        spoolLog.close();
+    }
+
+    @Test
+    void keepsCountersConsistentWhenDroppingConcurrentlyWithDrain() throws Exception {
+        SpoolProperties properties = properties(256);
+        properties.setMaxSize(1024);
+        properties.setDropPolicy(SpoolProperties.DropPolicy.DROP_OLDEST);
+        MqttSpoolLog spoolLog = new MqttSpoolLog(directory, "default", properties);
+
+        int total = 5000;
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Integer> drained = new ArrayList<>();
+        Thread drainer = new Thread(() -> {
+            try {
+                while (true) {
+                    List<MqttSpoolLog.SpooledMessage> batch = spoolLog.read(3);
+                    if (batch.isEmpty()) {
+                        if (!writing.get()) {
+                            return;
+                        }
+                        Thread.yield();
+                        continue;
+                    }
+                    batch.forEach(message -> drained.add(Integer.parseInt(message.getMessage().getTopic().substring(2))));
+                    Thread.yield();
+                    spoolLog.commit(batch);
+                    assertThat(spoolLog.getPendingRecords()).isNotNegative();
+                    assertThat(spoolLog.getPendingBytes()).isNotNegative();
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        drainer.start();
+        for (int i = 0; i < total; i++) {
+            spoolLog.append(MqttOutboundMessage.of("t/" + i, new byte[32]));
+        }
+        writing.set(false);
+        drainer.join(10000);
+
+        assertThat(drainer.isAlive()).isFalse();
+        assertThat(failure.get()).isNull();
+        assertThat(spoolLog.getPendingRecords()).isZero();
+        assertThat(spoolLog.getPendingBytes()).isZero();
+        // 补发顺序与写入顺序一致，最后写入的消息没有被跳过
+        assertThat(drained).isSorted().contains(total - 1);
+        spoolLog.close();
+    }
+
+    @Test
+    void drainsSpooledMessagesInOrderOnceDeliveryRecovers() throws Exception {
+        SpoolProperties properties = properties(1024);
+        properties.setDirectory(directory.toString());
+        properties.setRetryInterval(20);
+        properties.setFlushInterval(10);
+
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean available = new AtomicBoolean();
+        MqttOutboundSpool spool = new MqttOutboundSpool("default", properties, message -> {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            if (available.get()) {
+                delivered.add(payload(message));
+                future.complete(null);
+            } else {
+                future.completeExceptionally(new MqttException(MqttException.REASON_CODE_CLIENT_NOT_CONNECTED));
+            }
+            return future;
+        }, 4, 1, null);
+        spool.markDisconnected();
+        spool.start();
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(spool.shouldSpool()).isTrue();
+            spool.spool("m-" + i, "t", 1);
+        }
+        available.set(true);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (spool.getDepth() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        spool.stop();
+
+        assertThat(spool.getDrainedCount()).isEqualTo(20);
+        assertThat(spool.isConnected()).isTrue();
+        assertThat(delivered.stream().distinct().collect(Collectors.toList()))
+                .containsExactlyElementsOf(Stream.iterate(0, i -> i + 1).limit(20)
+                        .map(i -> "m-" + i).collect(Collectors.toList()));
+    }
+
+    private static SpoolProperties properties(long segmentSize) {
+        SpoolProperties properties = new SpoolProperties();
+        properties.setSegmentSize(segmentSize);
+        return properties;
+    }
+
+    private static String payload(Message<?> message) {
+        return new String((byte[]) message.getPayload(), StandardCharsets.UTF_8);
+    }
+}
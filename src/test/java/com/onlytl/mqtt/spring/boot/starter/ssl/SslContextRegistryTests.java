@@ -0,0 +1,83 @@
+package com.onlytl.mqtt.spring.boot.starter.ssl;
+
+import com.onlytl.mqtt.spring.boot.starter.config.SslProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.net.ssl.SSLSocketFactory;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyStore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SslContextRegistryTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void sharesSocketFactoryForIdenticalConfiguration() throws Exception {
+        Path trustStore = writeTrustStore("trust.p12", "changeit");
+        SslContextRegistry registry = new SslContextRegistry();
+
+        SSLSocketFactory first = registry.getSocketFactory(properties(trustStore, "changeit"));
+        SSLSocketFactory second = registry.getSocketFactory(properties(trustStore, "changeit"));
+        SslProperties reloading = properties(trustStore, "changeit");
+        reloading.setReloadInterval(1000);
+        SSLSocketFactory third = registry.getSocketFactory(reloading);
+
+        Path otherStore = writeTrustStore("other.p12", "secret");
+        SSLSocketFactory other = registry.getSocketFactory(properties(otherStore, "secret"));
+
+        assertThat(second).isSameAs(first);
+        assertThat(third).isSameAs(first);
+        assertThat(other).isNotSameAs(first);
+        assertThat(registry.size()).isEqualTo(2);
+        assertThat(registry.getSocketFactory(new SslProperties())).isNull();
+    }
+
+    @Test
+    void reloadsChangedCertificatesAndRollsOverConnections() throws Exception {
+        Path trustStore = writeTrustStore("trust.p12", "changeit");
+        SslProperties properties = properties(trustStore, "changeit");
+        properties.setReloadInterval(1000);
+        SslContextRegistry registry = new SslContextRegistry();
+        registry.getSocketFactory(properties);
+
+        AtomicInteger reconnects = new AtomicInteger();
+        registry.registerRollover(properties, reconnects::incrementAndGet);
+        registry.registerRollover(properties, reconnects::incrementAndGet);
+        assertThat(registry.reload()).isZero();
+
+        writeTrustStore("trust.p12", "changeit");
+        Files.setLastModifiedTime(trustStore, FileTime.fromMillis(
+                Files.getLastModifiedTime(trustStore).toMillis() + 5000));
+
+        assertThat(registry.reload()).isEqualTo(1);
+        assertThat(reconnects).hasValue(2);
+        assertThat(registry.reload()).isZero();
+    }
+
+    private Path writeTrustStore(String name, String password) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        keyStore.load(null, null);
+        Path file = directory.resolve(name);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            keyStore.store(out, password.toCharArray());
+        }
+        return file;
+    }
+
+    private static SslProperties properties(Path trustStore, String password) {
+        SslProperties properties = new SslProperties();
+        properties.setEnabled(true);
+        properties.setCertType(SslProperties.CertType.JKS);
+        properties.setTrustStore(trustStore.toString());
+        properties.setTrustStorePassword(password);
+        return properties;
+    }
+}
@@ -0,0 +1,76 @@
+package com.onlytl.mqtt.spring.boot.starter.template;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MqttBatchPublisherTests {
+
+    private final Queue<CompletableFuture<Void>> deliveries = new ConcurrentLinkedQueue<>();
+
+    private CompletableFuture<Void> send(Message<?> message) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        deliveries.add(future);
+        return future;
+    }
+
+    @Test
+    void reportsAggregateResultWithPerItemFailures() throws Exception {
+        MqttBatchPublisher publisher = new MqttBatchPublisher(this::send, 1, 10);
+        for (int i = 0; i < 3; i++) {
+            publisher.publish(MqttOutboundMessage.of("t/" + i, "p" + i));
+        }
+        CompletableFuture<MqttBatchResult> result = publisher.complete();
+        assertThat(result).isNotDone();
+
+        deliveries.poll().complete(null);
+        deliveries.poll().completeExceptionally(new IllegalStateException("nack"));
+        deliveries.poll().complete(null);
+
+        MqttBatchResult batchResult = result.get(1, TimeUnit.SECONDS);
+        assertThat(batchResult.getTotal()).isEqualTo(3);
+        assertThat(batchResult.getSucceeded()).isEqualTo(2);
+        assertThat(batchResult.getFailures()).singleElement()
+                .satisfies(failure -> {
+                    assertThat(failure.getIndex()).isEqualTo(1);
+                    assertThat(failure.getMessage().getTopic()).isEqualTo("t/1");
+                });
+    }
+
+    @Test
+    void blocksWhenWindowIsFull() throws Exception {
+        MqttBatchPublisher publisher = new MqttBatchPublisher(this::send, 1, 2);
+        CountDownLatch thirdSubmitted = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 3; i++) {
+                publisher.publish("p" + i, "t");
+            }
+            thirdSubmitted.countDown();
+        });
+        producer.start();
+
+        assertThat(thirdSubmitted.await(100, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(deliveries).hasSize(2);
+
+        deliveries.poll().complete(null);
+        assertThat(thirdSubmitted.await(5, TimeUnit.SECONDS)).isTrue();
+        producer.join();
+
+        deliveries.forEach(future -> future.complete(null));
+        assertThat(publisher.complete().get(1, TimeUnit.SECONDS).isSuccess()).isTrue();
+    }
+
+    @Test
+    void completesEmptyBatchImmediately() {
+        MqttBatchPublisher publisher = new MqttBatchPublisher(this::send, 1, 2);
+
+        assertThat(publisher.complete()).isCompleted();
+    }
+}
@@ -0,0 +1,74 @@
+package com.onlytl.mqtt.spring.boot.starter.template;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.mqtt.core.DefaultMqttPahoClientFactory;
+import org.springframework.integration.mqtt.event.MqttMessageSentEvent;
+import org.springframework.integration.mqtt.outbound.MqttPahoMessageHandler;
+import org.springframework.integration.support.MessageBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MqttConnectionSelectorTests {
+
+    private final List<MqttOutboundConnection> connections = new ArrayList<>();
+
+    MqttConnectionSelectorTests() {
+        for (int i = 0; i < 3; i++) {
+            connections.add(new MqttOutboundConnection(
+                    new MqttPahoMessageHandler("client-" + i, new DefaultMqttPahoClientFactory()),
+                    new MqttDeliveryTracker(null)));
+        }
+    }
+
+    @Test
+    void roundRobinCyclesThroughConnections() {
+        MqttConnectionSelector selector = MqttConnectionSelector.roundRobin();
+
+        assertThat(selector.select("t", connections)).isSameAs(connections.get(0));
+        assertThat(selector.select("t", connections)).isSameAs(connections.get(1));
+        assertThat(selector.select("t", connections)).isSameAs(connections.get(2));
+        assertThat(selector.select("t", connections)).isSameAs(connections.get(0));
+    }
+
+    @Test
+    void poolRunsConnectActionOnFirstSelectOnly() {
+        MqttOutboundPool pool = new MqttOutboundPool(connections, MqttConnectionSelector.roundRobin());
+        AtomicInteger connects = new AtomicInteger();
+        pool.setConnectAction(connects::incrementAndGet);
+
+        pool.select("t");
+        pool.select("t");
+
+        assertThat(connects).hasValue(1);
+    }
+
+    @Test
+    void topicHashIsStablePerTopic() {
+        MqttConnectionSelector selector = MqttConnectionSelector.topicHash();
+        MqttOutboundConnection first = selector.select("devices/42/command", connections);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(selector.select("devices/42/command", connections)).isSameAs(first);
+        }
+    }
+
+    @Test
+    void leastInflightPrefersIdleConnection() {
+        inFlight(connections.get(0), 1);
+        inFlight(connections.get(1), 2);
+        inFlight(connections.get(1), 3);
+
+        MqttConnectionSelector selector = MqttConnectionSelector.leastInflight();
+
+        assertThat(selector.select("t", connections)).isSameAs(connections.get(2));
+    }
+
+    private static void inFlight(MqttOutboundConnection connection, int messageId) {
+        connection.getDeliveryTracker().track(() -> connection.getDeliveryTracker().publishEvent(
+                new MqttMessageSentEvent(connection, MessageBuilder.withPayload("p").build(), "t", messageId, "c", 0)));
+    }
+}
@@ -0,0 +1,88 @@
+package com.onlytl.mqtt.spring.boot.starter.template;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.integration.mqtt.event.MqttConnectionFailedEvent;
+import org.springframework.integration.mqtt.event.MqttMessageDeliveredEvent;
+import org.springframework.integration.mqtt.event.MqttMessageSentEvent;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.MessagingException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MqttDeliveryTrackerTests {
+
+    private final List<Object> forwarded = new ArrayList<>();
+
+    private final MqttDeliveryTracker tracker = new MqttDeliveryTracker(forwarded::add);
+
+    @Test
+    void completesOnDeliveryAndForwardsEvents() {
+        CompletableFuture<Void> future = tracker.track(() -> tracker.publishEvent(sent(7)));
+        assertThat(future).isNotDone();
+        assertThat(tracker.getInFlightCount()).isEqualTo(1);
+
+        tracker.publishEvent(delivered(7));
+
+        assertThat(future).isCompleted();
+        assertThat(tracker.getInFlightCount()).isZero();
+        assertThat(forwarded).hasSize(2);
+    }
+
+    @Test
+    void completesQos0Immediately() {
+        CompletableFuture<Void> future = tracker.track(() -> tracker.publishEvent(sent(0)));
+
+        assertThat(future).isCompleted();
+    }
+
+    @Test
+    void handlesDeliveryBeforeSentEvent() {
+        CompletableFuture<Void> future = tracker.track(() -> {
+            tracker.publishEvent(delivered(3));
+            tracker.publishEvent(sent(3));
+        });
+
+        assertThat(future).isCompleted();
+    }
+
+    @Test
+    void ignoresDeliveriesOfUntrackedMessages() {
+        tracker.publishEvent(sent(5));
+        tracker.publishEvent(delivered(5));
+
+        CompletableFuture<Void> future = tracker.track(() -> tracker.publishEvent(sent(5)));
+        assertThat(future).isNotDone();
+    }
+
+    @Test
+    void failsPendingDeliveriesWhenConnectionIsLost() {
+        CompletableFuture<Void> future = tracker.track(() -> tracker.publishEvent(sent(9)));
+
+        tracker.publishEvent(new MqttConnectionFailedEvent(this, new IllegalStateException("lost")));
+
+        assertThat(future).isCompletedExceptionally();
+        assertThat(tracker.getInFlightCount()).isZero();
+    }
+
+    @Test
+    void failsWhenPublishThrows() {
+        CompletableFuture<Void> future = tracker.track(() -> {
+            throw new MessagingException("not connected");
+        });
+
+        assertThat(future).isCompletedExceptionally();
+    }
+
+    private ApplicationEvent sent(int messageId) {
+        return new MqttMessageSentEvent(this, MessageBuilder.withPayload("p").build(), "t", messageId, "c", 0);
+    }
+
+    private ApplicationEvent delivered(int messageId) {
+        return new MqttMessageDeliveredEvent(this, messageId, "c", 0);
+    }
+}
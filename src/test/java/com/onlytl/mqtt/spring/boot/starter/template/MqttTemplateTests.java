@@ -0,0 +1,104 @@
+package com.onlytl.mqtt.spring.boot.starter.template;
+
+import com.onlytl.mqtt.spring.boot.starter.config.MqttProperties;
+import com.onlytl.mqtt.spring.boot.starter.config.SpoolProperties;
+import com.onlytl.mqtt.spring.boot.starter.spool.MqttOutboundSpool;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.integration.mqtt.outbound.AbstractMqttMessageHandler;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class MqttTemplateTests {
+
+    @TempDir
+    Path directory;
+
+    private MqttOutboundSpool spool;
+
+    @AfterEach
+    void close() {
+        if (spool != null) {
+            spool.stop();
+        }
+    }
+
+    @Test
+    void failsWhenFullSpoolDropsNewestMessage() throws IOException {
+        MqttTemplate template = template(SpoolProperties.DropPolicy.DROP_NEWEST);
+
+        template.send("0123456789", "t", 1, "default");
+        assertThatIllegalStateException().isThrownBy(() -> template.send("0123456789", "t", 1, "default"))
+                .withMessageContaining("is full");
+
+        CompletableFuture<Void> future = template.sendAsync("0123456789", "t", 1, "default");
+        assertThat(future).isCompletedExceptionally();
+        assertThat(spool.getDepth()).isEqualTo(1);
+        assertThat(spool.getDroppedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void surfacesRejectedMessageAsFailedFuture() throws IOException {
+        MqttTemplate template = template(SpoolProperties.DropPolicy.REJECT);
+
+        assertThat(template.sendAsync("0123456789", "t", 1, "default")).isCompleted();
+        CompletableFuture<Void> rejected = template.sendAsync("0123456789", "t", 1, "default");
+
+        assertThat(rejected).isCompletedExceptionally();
+        assertThat(spool.getDepth()).isEqualTo(1);
+    }
+
+    @Test
+    void spoolsOnlyWhenConnectionIsUnavailable() throws IOException {
+        AbstractMqttMessageHandler handler = mock(AbstractMqttMessageHandler.class);
+        MqttTemplate template = template(SpoolProperties.DropPolicy.REJECT, handler);
+
+        doThrow(new MessageHandlingException(MessageBuilder.withPayload("p").build(), "Failed to publish",
+                new IllegalArgumentException("Invalid topic"))).when(handler).handleMessage(any());
+        assertThatExceptionOfType(MessageHandlingException.class)
+                .isThrownBy(() -> template.send("p", "orders/#", 1, "default"));
+        assertThat(spool.isConnected()).isTrue();
+        assertThat(spool.getDepth()).isZero();
+
+        doThrow(new MessageHandlingException(MessageBuilder.withPayload("p").build(), "Failed to publish",
+                new MqttException(MqttException.REASON_CODE_CLIENT_NOT_CONNECTED))).when(handler).handleMessage(any());
+        template.send("p", "orders/1", 1, "default");
+        assertThat(spool.isConnected()).isFalse();
+        assertThat(spool.getDepth()).isEqualTo(1);
+    }
+
+    // 离线缓存只能容纳一条消息，补发线程未启动，消息一直留在缓存中
+    private MqttTemplate template(SpoolProperties.DropPolicy dropPolicy) throws IOException {
+        MqttTemplate template = template(dropPolicy, mock(AbstractMqttMessageHandler.class));
+        spool.markDisconnected();
+        return template;
+    }
+
+    private MqttTemplate template(SpoolProperties.DropPolicy dropPolicy, AbstractMqttMessageHandler handler)
+            throws IOException {
+        SpoolProperties properties = new SpoolProperties();
+        properties.setDirectory(directory.toString());
+        properties.setMaxSize(40);
+        properties.setDropPolicy(dropPolicy);
+        spool = new MqttOutboundSpool("default", properties, message -> new CompletableFuture<>(), 1, 1, null);
+
+        MqttTemplate template = new MqttTemplate(Collections.singletonMap("default", handler),
+                Collections.singletonMap("default", new MqttProperties.ClientConfig()));
+        template.setOutboundSpools(Collections.singletonMap("default", spool));
+        return template;
+    }
+}